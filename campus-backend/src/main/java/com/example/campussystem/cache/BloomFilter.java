@@ -0,0 +1,118 @@
+package com.example.campussystem.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * long 键的布隆过滤器
+ * 用两个64位哈希组合出 k 个位置（Kirsch-Mitzenmacher），位数组的位序与Redis位图一致
+ * （偏移 0 为第一个字节的最高位），因此可以整体以 GET/SET 读写，也可以用 SETBIT 增量写入同一个Redis key。
+ * 写入使用CAS，可在读取的同时并发写入。
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long numBits, int numHashes) {
+        long words = (Math.max(64, numBits) + 63) >>> 6;
+        this.words = new AtomicLongArray((int) words);
+        this.numBits = words << 6;
+        this.numHashes = Math.max(1, numHashes);
+    }
+
+    /**
+     * 按预计元素数和期望误判率创建：m = -n·ln(p) / ln²2，k = m/n · ln2
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long numBits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int numHashes = (int) Math.max(1, Math.round((double) numBits / n * Math.log(2)));
+        return new BloomFilter(numBits, numHashes);
+    }
+
+    /**
+     * 从Redis位图恢复，字节数与位数不一致时返回 null
+     */
+    public static BloomFilter fromBytes(byte[] bytes, long numBits, int numHashes) {
+        BloomFilter filter = new BloomFilter(numBits, numHashes);
+        if (bytes == null || bytes.length != filter.numBits / 8) {
+            return null;
+        }
+        for (int i = 0; i < filter.words.length(); i++) {
+            long word = 0;
+            for (int j = 0; j < 8; j++) {
+                word = (word << 8) | (bytes[i * 8 + j] & 0xFFL);
+            }
+            filter.words.set(i, word);
+        }
+        return filter;
+    }
+
+    public void put(long key) {
+        for (long offset : offsets(key)) {
+            int index = (int) (offset >>> 6);
+            long mask = 1L << (63 - (offset & 63));
+            long current;
+            do {
+                current = words.get(index);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(long key) {
+        for (long offset : offsets(key)) {
+            if ((words.get((int) (offset >>> 6)) & (1L << (63 - (offset & 63)))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * key 对应的位偏移，用于同步写入Redis位图（SETBIT）
+     */
+    public long[] offsets(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long[] offsets = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, numBits);
+        }
+        return offsets;
+    }
+
+    /**
+     * 按Redis位图的位序导出
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[words.length() * 8];
+        for (int i = 0; i < words.length(); i++) {
+            long word = words.get(i);
+            for (int j = 7; j >= 0; j--) {
+                bytes[i * 8 + j] = (byte) word;
+                word >>>= 8;
+            }
+        }
+        return bytes;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private static long mix(long key) {
+        // SplitMix64 终结函数
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.campussystem.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 熔断器
+ * CLOSED：正常放行，连续失败（含超过慢调用阈值的调用）达到阈值后转为 OPEN；
+ * OPEN：直接拒绝，不再等待超时，持续 openMillis 后转为 HALF_OPEN；
+ * HALF_OPEN：同一时刻只放行一个探测调用，成功则恢复 CLOSED，失败则重新 OPEN。
+ * CLOSED 状态下的放行判断只读一个 volatile 字段，不加锁。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+    private final BiConsumer<State, State> listener;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean(false);
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * @param failureThreshold 连续失败多少次后熔断
+     * @param slowCallMillis   耗时超过该值的成功调用也计为失败，0 表示不统计慢调用
+     * @param openMillis       熔断持续时间，之后放行探测调用
+     * @param listener         状态变化回调（旧状态, 新状态），在触发变化的调用线程中执行
+     */
+    public CircuitBreaker(String name, int failureThreshold, long slowCallMillis, long openMillis,
+                          BiConsumer<State, State> listener) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * 是否放行本次调用；放行后必须调用 {@link #onResult} 报告结果
+     */
+    public boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejected.increment();
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        if (probing.compareAndSet(false, true)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * 报告一次已放行调用的结果
+     *
+     * @param success 调用是否成功（不可用类异常之外的业务异常也算成功）
+     */
+    public void onResult(boolean success, long elapsedMillis) {
+        boolean slow = success && slowCallMillis > 0 && elapsedMillis >= slowCallMillis;
+        if (slow) {
+            slowCalls.increment();
+        }
+        if (success && !slow) {
+            consecutiveFailures.set(0);
+            if (state == State.HALF_OPEN) {
+                transition(State.HALF_OPEN, State.CLOSED);
+            }
+            return;
+        }
+        failures.increment();
+        if (state == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures.get());
+        stats.put("failures", failures.sum());
+        stats.put("slowCalls", slowCalls.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("opened", opened.sum());
+        stats.put("openedAt", state == State.CLOSED ? null : openedAt);
+        return stats;
+    }
+
+    private void transition(State from, State to) {
+        synchronized (this) {
+            if (state != from) {
+                return;
+            }
+            if (to == State.OPEN) {
+                openedAt = System.currentTimeMillis();
+                opened.increment();
+            }
+            consecutiveFailures.set(0);
+            probing.set(false);
+            state = to;
+        }
+        if (listener != null) {
+            listener.accept(from, to);
+        }
+    }
+}
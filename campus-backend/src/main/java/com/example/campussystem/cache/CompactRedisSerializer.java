@@ -0,0 +1,612 @@
+package com.example.campussystem.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制的Redis值序列化器
+ * 格式：魔数(1) + 版本(1) + 标志(1) + 正文，正文超过阈值时用Deflate压缩（仅在确实变小时）。
+ * 正文是带类型标签的值：常用标量、集合、分页和本项目的对象按字段名写入，不写Java类名以外的类型信息；
+ * 同一份数据中重复出现的字符串（字段名、类名、分类名等）只写一次，之后写引用序号。
+ * 对象按字段名读写，新增或删除的字段被忽略，滚动升级时新旧版本的DTO可以互相读取。
+ * 读取时不以魔数开头的数据交给旧的JSON序列化器，因此升级前写入的缓存仍可读取；
+ * 以 json 格式运行时写入也完全交给旧序列化器，供所有节点升级完成前使用。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xCB;
+    static final byte VERSION = 1;
+
+    private static final int FLAG_DEFLATE = 1;
+    private static final int MAX_DEPTH = 64;
+
+    // 允许按类名实例化的包，其他对象交给旧的JSON序列化器
+    private static final String OBJECT_PACKAGE_PREFIX = "com.example.campussystem.";
+
+    private static final int T_NULL = 0;
+    private static final int T_TRUE = 1;
+    private static final int T_FALSE = 2;
+    private static final int T_INT = 3;
+    private static final int T_LONG = 4;
+    private static final int T_DOUBLE = 5;
+    private static final int T_STRING = 6;
+    private static final int T_STRING_REF = 7;
+    private static final int T_DECIMAL = 8;
+    private static final int T_DATETIME = 9;
+    private static final int T_DATE = 10;
+    private static final int T_LIST = 11;
+    private static final int T_SET = 12;
+    private static final int T_MAP = 13;
+    private static final int T_PAGE = 14;
+    private static final int T_OBJECT = 15;
+    private static final int T_ENUM = 16;
+    private static final int T_BYTES = 17;
+    private static final int T_JSON = 18;
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, Field>> FIELDS_BY_NAME = new ConcurrentHashMap<>();
+
+    private final RedisSerializer<Object> legacy;
+    private final boolean binary;
+    private final int compressThreshold;
+
+    /**
+     * @param legacy            升级前使用的JSON序列化器，用于读取旧数据和无法紧凑编码的值
+     * @param binary            是否写入二进制格式，false 时写入与旧版本完全相同的JSON
+     * @param compressThreshold 正文超过该字节数时尝试压缩，小于等于 0 表示不压缩
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> legacy, boolean binary, int compressThreshold) {
+        this.legacy = legacy;
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!binary) {
+            return legacy.serialize(value);
+        }
+        Writer writer = new Writer();
+        writer.out.write(MAGIC);
+        writer.out.write(VERSION);
+        writer.out.write(0);
+        writer.writeValue(value, 0);
+        byte[] bytes = writer.out.toByteArray();
+        if (compressThreshold > 0 && bytes.length - 3 > compressThreshold) {
+            byte[] compressed = deflate(bytes, 3);
+            if (compressed.length + 3 < bytes.length) {
+                byte[] result = new byte[compressed.length + 3];
+                result[0] = MAGIC;
+                result[1] = VERSION;
+                result[2] = FLAG_DEFLATE;
+                System.arraycopy(compressed, 0, result, 3, compressed.length);
+                return result;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacy.deserialize(bytes);
+        }
+        if (bytes.length < 3) {
+            throw new SerializationException("缓存数据不完整");
+        }
+        if (bytes[1] > VERSION) {
+            throw new SerializationException("不支持的缓存数据版本: " + bytes[1]);
+        }
+        byte[] body = (bytes[2] & FLAG_DEFLATE) != 0
+                ? inflate(bytes, 3)
+                : Arrays.copyOfRange(bytes, 3, bytes.length);
+        Reader reader = new Reader(body);
+        return reader.readValue(0);
+    }
+
+    private static byte[] deflate(byte[] bytes, int offset) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes, offset, bytes.length - offset);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("缓存数据解压失败：数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存数据解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 需要写入的字段：排除静态、transient 和 @JsonIgnore 字段，按名称排序
+     */
+    private static Field[] fieldsOf(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                            || field.isAnnotationPresent(JsonIgnore.class) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName));
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    private static boolean isCompactObject(Class<?> type) {
+        return type.getName().startsWith(OBJECT_PACKAGE_PREFIX) && !type.isAnonymousClass()
+                && !type.isSynthetic() && !type.isArray();
+    }
+
+    private final class Writer {
+        private final Output out = new Output();
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void writeValue(Object value, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new SerializationException("缓存对象嵌套过深，可能存在循环引用");
+            }
+            if (value == null) {
+                out.write(T_NULL);
+            } else if (value instanceof Boolean) {
+                out.write((Boolean) value ? T_TRUE : T_FALSE);
+            } else if (value instanceof Integer) {
+                out.write(T_INT);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.write(T_LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Double) {
+                out.write(T_DOUBLE);
+                long bits = Double.doubleToRawLongBits((Double) value);
+                for (int i = 56; i >= 0; i -= 8) {
+                    out.write((int) (bits >>> i));
+                }
+            } else if (value instanceof String) {
+                writeString((String) value);
+            } else if (value instanceof BigDecimal) {
+                BigDecimal decimal = (BigDecimal) value;
+                out.write(T_DECIMAL);
+                writeVarLong(zigZag(decimal.scale()));
+                writeBytes(decimal.unscaledValue().toByteArray());
+            } else if (value instanceof LocalDateTime) {
+                LocalDateTime time = (LocalDateTime) value;
+                out.write(T_DATETIME);
+                writeVarLong(zigZag(time.toEpochSecond(ZoneOffset.UTC)));
+                writeVarLong(time.getNano());
+            } else if (value instanceof LocalDate) {
+                out.write(T_DATE);
+                writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+            } else if (value instanceof byte[]) {
+                out.write(T_BYTES);
+                writeBytes((byte[]) value);
+            } else if (!Hibernate.isInitialized(value)) {
+                // 未加载的懒加载关联不写入，也不触发数据库查询
+                out.write(T_NULL);
+            } else if (value instanceof Page) {
+                writePage((Page<?>) value, depth);
+            } else if (value instanceof List) {
+                out.write(T_LIST);
+                writeItems((List<?>) value, depth);
+            } else if (value instanceof Set) {
+                out.write(T_SET);
+                writeItems((Set<?>) value, depth);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.write(T_MAP);
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey(), depth + 1);
+                    writeValue(entry.getValue(), depth + 1);
+                }
+            } else if (value instanceof Enum && isCompactObject(((Enum<?>) value).getDeclaringClass())) {
+                out.write(T_ENUM);
+                writeString(((Enum<?>) value).getDeclaringClass().getName());
+                writeString(((Enum<?>) value).name());
+            } else {
+                Object unproxied = Hibernate.unproxy(value);
+                if (isCompactObject(unproxied.getClass())) {
+                    writeObject(unproxied, depth);
+                } else {
+                    // 其他类型保持旧的JSON格式
+                    out.write(T_JSON);
+                    writeBytes(legacy.serialize(unproxied));
+                }
+            }
+        }
+
+        private void writeObject(Object value, int depth) {
+            Field[] fields = fieldsOf(value.getClass());
+            out.write(T_OBJECT);
+            writeString(value.getClass().getName());
+            writeVarLong(fields.length);
+            for (Field field : fields) {
+                writeString(field.getName());
+                try {
+                    writeValue(field.get(value), depth + 1);
+                } catch (IllegalAccessException e) {
+                    throw new SerializationException("无法读取字段 " + field, e);
+                }
+            }
+        }
+
+        private void writePage(Page<?> page, int depth) {
+            out.write(T_PAGE);
+            writeItems(page.getContent(), depth);
+            Pageable pageable = page.getPageable();
+            if (pageable.isPaged()) {
+                writeVarLong(pageable.getPageNumber() + 1L);
+                writeVarLong(pageable.getPageSize());
+            } else {
+                writeVarLong(0);
+            }
+            writeVarLong(page.getTotalElements());
+            List<Sort.Order> orders = page.getSort().toList();
+            writeVarLong(orders.size());
+            for (Sort.Order order : orders) {
+                writeString(order.getProperty());
+                out.write(order.isAscending() ? 0 : 1);
+            }
+        }
+
+        private void writeItems(Collection<?> items, int depth) {
+            writeVarLong(items.size());
+            for (Object item : items) {
+                writeValue(item, depth + 1);
+            }
+        }
+
+        private void writeString(String value) {
+            Integer ref = strings.get(value);
+            if (ref != null) {
+                out.write(T_STRING_REF);
+                writeVarLong(ref);
+                return;
+            }
+            strings.put(value, strings.size());
+            out.write(T_STRING);
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    /**
+     * 非同步的字节输出缓冲（ByteArrayOutputStream 的每次写入都要加锁）
+     */
+    private static final class Output {
+        private byte[] buf = new byte[512];
+        private int count;
+
+        void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buf, count, length);
+            count += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+            }
+        }
+    }
+
+    private final class Reader {
+        private final byte[] in;
+        private int pos;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(byte[] in) {
+            this.in = in;
+        }
+
+        Object readValue(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new SerializationException("缓存对象嵌套过深");
+            }
+            int tag = readByte();
+            switch (tag) {
+                case T_NULL:
+                    return null;
+                case T_TRUE:
+                    return Boolean.TRUE;
+                case T_FALSE:
+                    return Boolean.FALSE;
+                case T_INT:
+                    return (int) unZigZag(readVarLong());
+                case T_LONG:
+                    return unZigZag(readVarLong());
+                case T_DOUBLE: {
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | readByte();
+                    }
+                    return Double.longBitsToDouble(bits);
+                }
+                case T_STRING:
+                case T_STRING_REF:
+                    return readString(tag);
+                case T_DECIMAL: {
+                    int scale = (int) unZigZag(readVarLong());
+                    return new BigDecimal(new BigInteger(readBytes()), scale);
+                }
+                case T_DATETIME: {
+                    long seconds = unZigZag(readVarLong());
+                    return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(), ZoneOffset.UTC);
+                }
+                case T_DATE:
+                    return LocalDate.ofEpochDay(unZigZag(readVarLong()));
+                case T_BYTES:
+                    return readBytes();
+                case T_LIST:
+                    return readItems(new ArrayList<>(), depth);
+                case T_SET:
+                    return readItems(new LinkedHashSet<>(), depth);
+                case T_MAP: {
+                    int size = readLength();
+                    Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(depth + 1), readValue(depth + 1));
+                    }
+                    return map;
+                }
+                case T_PAGE:
+                    return readPage(depth);
+                case T_OBJECT:
+                    return readObject(depth);
+                case T_ENUM:
+                    return readEnum();
+                case T_JSON:
+                    return legacy.deserialize(readBytes());
+                default:
+                    throw new SerializationException("未知的缓存数据类型标签: " + tag);
+            }
+        }
+
+        private Object readObject(int depth) {
+            Class<?> type = loadClass(readString(readByte()));
+            Object value;
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                value = constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new SerializationException("无法创建缓存对象 " + type.getName(), e);
+            }
+            Map<String, Field> fields = FIELDS_BY_NAME.computeIfAbsent(type, t -> {
+                Map<String, Field> byName = new HashMap<>();
+                for (Field field : fieldsOf(t)) {
+                    byName.put(field.getName(), field);
+                }
+                return byName;
+            });
+            int count = readLength();
+            for (int i = 0; i < count; i++) {
+                String name = readString(readByte());
+                Object fieldValue = readValue(depth + 1);
+                Field field = fields.get(name);
+                if (field != null) {
+                    setField(field, value, fieldValue);
+                }
+            }
+            return value;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object readEnum() {
+            Class<?> type = loadClass(readString(readByte()));
+            String name = readString(readByte());
+            if (!type.isEnum()) {
+                throw new SerializationException("不是枚举类型: " + type.getName());
+            }
+            return Enum.valueOf((Class) type, name);
+        }
+
+        private Page<Object> readPage(int depth) {
+            List<Object> content = readItems(new ArrayList<>(), depth);
+            long pageNumber = readVarLong();
+            int pageSize = pageNumber > 0 ? (int) readVarLong() : 0;
+            long total = readVarLong();
+            int orderCount = readLength();
+            List<Sort.Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                String property = readString(readByte());
+                orders.add(readByte() == 0 ? Sort.Order.asc(property) : Sort.Order.desc(property));
+            }
+            Pageable pageable = pageNumber > 0
+                    ? PageRequest.of((int) pageNumber - 1, pageSize, Sort.by(orders))
+                    : Pageable.unpaged();
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        private <C extends Collection<Object>> C readItems(C items, int depth) {
+            int size = readLength();
+            for (int i = 0; i < size; i++) {
+                items.add(readValue(depth + 1));
+            }
+            return items;
+        }
+
+        private String readString(int tag) {
+            if (tag == T_STRING_REF) {
+                int ref = readLength();
+                if (ref >= strings.size()) {
+                    throw new SerializationException("无效的字符串引用: " + ref);
+                }
+                return strings.get(ref);
+            }
+            if (tag != T_STRING) {
+                throw new SerializationException("期望字符串，实际类型标签: " + tag);
+            }
+            String value = new String(readBytes(), StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private byte[] readBytes() {
+            int length = readLength();
+            if (length > in.length - pos) {
+                throw new SerializationException("缓存数据不完整");
+            }
+            byte[] bytes = Arrays.copyOfRange(in, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        private int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > in.length) {
+                throw new SerializationException("无效的长度: " + length);
+            }
+            return (int) length;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("无效的变长整数");
+        }
+
+        private int readByte() {
+            if (pos >= in.length) {
+                throw new SerializationException("缓存数据不完整");
+            }
+            return in[pos++] & 0xFF;
+        }
+
+        private Class<?> loadClass(String name) {
+            if (!name.startsWith(OBJECT_PACKAGE_PREFIX)) {
+                throw new SerializationException("不允许反序列化的类型: " + name);
+            }
+            try {
+                return Class.forName(name, false, CompactRedisSerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SerializationException("缓存对象的类型不存在: " + name, e);
+            }
+        }
+    }
+
+    /**
+     * 写入字段，数值类型不一致时（字段类型在版本间变化）按目标类型转换，无法转换的字段保留默认值
+     */
+    private static void setField(Field field, Object target, Object value) {
+        Class<?> type = field.getType();
+        if (value instanceof Number && !type.isInstance(value)) {
+            Number number = (Number) value;
+            if (type == long.class || type == Long.class) {
+                value = number.longValue();
+            } else if (type == int.class || type == Integer.class) {
+                value = number.intValue();
+            } else if (type == double.class || type == Double.class) {
+                value = number.doubleValue();
+            }
+        }
+        if (value == null && type.isPrimitive()) {
+            return;
+        }
+        try {
+            field.set(target, value);
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            // 字段类型已不兼容，保留默认值
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
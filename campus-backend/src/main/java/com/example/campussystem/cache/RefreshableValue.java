@@ -0,0 +1,65 @@
+package com.example.campussystem.cache;
+
+/**
+ * 支持提前刷新的缓存值
+ * 缓存key的过期时间为硬TTL；值本身记录软过期时间和上次加载耗时。
+ * 超过软过期时间后读取方仍返回旧值，同时由后台刷新；加载耗时用于XFetch概率性提前刷新，
+ * 加载越慢的值越早开始刷新，且各节点的刷新时间点随机分散。
+ */
+public class RefreshableValue {
+
+    private Object value;
+
+    // 软过期时间（毫秒时间戳）
+    private long softExpireAt;
+
+    // 上次加载耗时（毫秒）
+    private long loadMillis;
+
+    public RefreshableValue() {
+    }
+
+    public RefreshableValue(Object value, long softExpireAt, long loadMillis) {
+        this.value = value;
+        this.softExpireAt = softExpireAt;
+        this.loadMillis = loadMillis;
+    }
+
+    /**
+     * 是否应该刷新：now - loadMillis * beta * ln(random) >= softExpireAt
+     * random 取 (0, 1]，beta 为 0 时退化为到达软过期时间才刷新
+     */
+    public boolean shouldRefresh(long now, double beta, double random) {
+        if (now >= softExpireAt) {
+            return true;
+        }
+        if (beta <= 0 || loadMillis <= 0) {
+            return false;
+        }
+        return now - loadMillis * beta * Math.log(random) >= softExpireAt;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getSoftExpireAt() {
+        return softExpireAt;
+    }
+
+    public void setSoftExpireAt(long softExpireAt) {
+        this.softExpireAt = softExpireAt;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public void setLoadMillis(long loadMillis) {
+        this.loadMillis = loadMillis;
+    }
+}
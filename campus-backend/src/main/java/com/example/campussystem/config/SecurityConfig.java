@@ -142,6 +142,8 @@ public class SecurityConfig {
                     "/products",
                     "/products/{id}",
                     "/products/search",
+                    "/products/search/faceted",
+                    "/products/suggest",
                     "/categories",
                     "/categories/{id}/products",
                     "/files/view/**",
@@ -1,10 +1,12 @@
 package com.example.campussystem.config;
 
+import com.example.campussystem.service.CacheWarmUpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
@@ -13,7 +15,10 @@ import java.net.UnknownHostException;
 
 /**
  * 系统启动监听器
- * 在应用启动完成后显示访问信息
+ * 在应用启动完成后预热缓存并显示访问信息。
+ * 预热在 ApplicationReadyEvent 的监听线程中同步执行，Spring Boot 在所有监听器返回后才把就绪状态置为
+ * ACCEPTING_TRAFFIC，因此实例在预热完成或超时后才对外报告就绪。
+ * 监听器顺序排在热门榜单、最新时间线、搜索索引等启动加载之后，预热读到的是已就绪的数据。
  */
 @Component
 public class StartupListener {
@@ -31,12 +36,24 @@ public class StartupListener {
 
     private final Environment environment;
 
-    public StartupListener(Environment environment) {
+    private final CacheWarmUpService cacheWarmUpService;
+
+    public StartupListener(Environment environment, CacheWarmUpService cacheWarmUpService) {
         this.environment = environment;
+        this.cacheWarmUpService = cacheWarmUpService;
     }
 
     @EventListener(ApplicationReadyEvent.class)
+    @Order(CacheWarmUpService.STARTUP_WARM_UP_ORDER)
     public void onApplicationReady() {
+        if (cacheWarmUpService.isEnabled()) {
+            try {
+                cacheWarmUpService.warmUp();
+            } catch (Exception e) {
+                logger.warn("缓存预热失败，首批请求将直接回源: {}", e.getMessage());
+            }
+        }
+
         try {
             String hostAddress = InetAddress.getLocalHost().getHostAddress();
             String localAddress = "localhost";
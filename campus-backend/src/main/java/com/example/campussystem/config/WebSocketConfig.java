@@ -1,10 +1,14 @@
 package com.example.campussystem.config;
 
+import com.example.campussystem.websocket.UserHandshakeHandler;
 import com.example.campussystem.websocket.WebSocketAuthInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
 /**
@@ -21,17 +25,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${websocket.allowed-origins:*}")
     private String allowedOrigins;
 
+    @Value("${websocket.broker.heartbeat:10000}")
+    private long brokerHeartbeat;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.send-time-limit:15000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:4}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    /**
+     * 复用 STOMP 基础设施自带的调度器发送代理心跳（需延迟注入以避免循环依赖）
+     */
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     /**
      * STOMP协议配置 - 用于结构化消息传递
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // 启用简单的基于内存的消息代理，将消息返回给前缀为"/topic"和"/queue"的目的地
-        config.enableSimpleBroker("/topic", "/queue");
-        
+        // 启用简单的基于内存的消息代理，将消息返回给前缀为"/topic"和"/queue"的目的地；
+        // 跨节点的用户消息由 RedisUserRelay 经 Redis 频道中继后再投递到本机代理。
+        // 开启双向心跳，及时发现失联客户端并触发断开事件，使会话注册表保持准确
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{brokerHeartbeat, brokerHeartbeat})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+
         // 设置应用程序目的地前缀
         config.setApplicationDestinationPrefixes("/app");
-        
+
         // 设置用户目的地前缀
         config.setUserDestinationPrefix("/user");
     }
@@ -41,16 +89,54 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // 以握手阶段解析出的userId作为会话Principal，/user/** 目的地据此路由到具体用户
+        UserHandshakeHandler handshakeHandler = new UserHandshakeHandler();
+
         // 注册STOMP端点，支持原生WebSocket连接
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns(allowedOrigins)
+                .setHandshakeHandler(handshakeHandler)
                 .addInterceptors(webSocketAuthInterceptor);
-        
+
         // 同时保留SockJS支持作为回退选项
         registry.addEndpoint("/ws-sockjs")
                 .setAllowedOriginPatterns(allowedOrigins)
+                .setHandshakeHandler(handshakeHandler)
                 .addInterceptors(webSocketAuthInterceptor)
                 .withSockJS();
     }
 
-}
\ No newline at end of file
+    /**
+     * 传输层限制：限制入站消息大小，并对慢客户端的发送缓冲与发送耗时设上限，
+     * 超出时关闭该会话，而不是让出站线程被单个客户端拖住
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit);
+    }
+
+    /**
+     * 客户端入站通道线程池（处理 /app/** 消息）
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    /**
+     * 客户端出站通道线程池（代理向各会话写出消息）
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+}
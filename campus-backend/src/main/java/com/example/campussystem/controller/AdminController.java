@@ -4,6 +4,13 @@ import com.example.campussystem.common.ApiResponse;
 import com.example.campussystem.dto.ProductResponse;
 import com.example.campussystem.dto.UserProfileResponse;
 import com.example.campussystem.service.AdminService;
+import com.example.campussystem.service.ExistenceFilterService;
+import com.example.campussystem.service.LatestProductService;
+import com.example.campussystem.service.MessageService;
+import com.example.campussystem.service.PopularProductService;
+import com.example.campussystem.service.ProductSearchService;
+import com.example.campussystem.service.RecommendationService;
+import com.example.campussystem.websocket.WebSocketSessionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +31,27 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private PopularProductService popularProductService;
+
+    @Autowired
+    private LatestProductService latestProductService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     /**
      * 获取系统统计信息
      */
@@ -205,6 +233,90 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success("系统数据清理成功"));
     }
 
+    /**
+     * 从消息表重建会话摘要
+     */
+    @PostMapping("/conversations/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildConversationSummaries() {
+        int rows = messageService.rebuildConversationSummaries();
+        return ResponseEntity.ok(ApiResponse.success("会话摘要重建成功", rows));
+    }
+
+    /**
+     * 获取本节点WebSocket会话注册表统计
+     */
+    @GetMapping("/websocket/sessions")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getWebSocketSessionStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(webSocketSessionRegistry.getStatistics()));
+    }
+
+    /**
+     * 重建商品搜索索引
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildSearchIndex() {
+        int documents = productSearchService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("商品搜索索引重建成功", documents));
+    }
+
+    /**
+     * 获取商品搜索索引统计
+     */
+    @GetMapping("/search/statistics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSearchIndexStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(productSearchService.getStatistics()));
+    }
+
+    /**
+     * 从数据库重建热门商品榜单
+     */
+    @PostMapping("/popular/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildPopularLeaderboard() {
+        int size = popularProductService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("热门商品榜单重建成功", size));
+    }
+
+    /**
+     * 获取热门商品榜单统计
+     */
+    @GetMapping("/popular/statistics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPopularLeaderboardStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(popularProductService.getStatistics()));
+    }
+
+    /**
+     * 获取最新商品时间线统计
+     */
+    @GetMapping("/latest/statistics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getLatestTimelineStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(latestProductService.getStatistics()));
+    }
+
+    /**
+     * 重新计算商品推荐
+     */
+    @PostMapping("/recommendations/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildRecommendations() {
+        int products = recommendationService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("商品推荐计算完成", products));
+    }
+
+    /**
+     * 重建商品、用户ID存在性过滤器
+     */
+    @PostMapping("/existence-filter/rebuild")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildExistenceFilters() {
+        return ResponseEntity.ok(ApiResponse.success("存在性过滤器重建完成", existenceFilterService.rebuild()));
+    }
+
+    /**
+     * 获取存在性过滤器统计
+     */
+    @GetMapping("/existence-filter/statistics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getExistenceFilterStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(existenceFilterService.getStatistics()));
+    }
+
     /**
      * 获取商品状态对应的消息
      */
@@ -217,4 +329,4 @@ public class AdminController {
             default: return "商品状态更新成功";
         }
     }
-}
\ No newline at end of file
+}
@@ -2,11 +2,15 @@ package com.example.campussystem.controller;
 
 import com.example.campussystem.common.ApiResponse;
 import com.example.campussystem.service.CacheEvictionService;
+import com.example.campussystem.service.CacheService;
+import com.example.campussystem.service.CacheWarmUpService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * 缓存管理控制器
  */
@@ -18,6 +22,12 @@ public class CacheController {
     @Autowired
     private CacheEvictionService cacheEvictionService;
 
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private CacheWarmUpService cacheWarmUpService;
+
     /**
      * 获取缓存统计信息
      */
@@ -27,6 +37,14 @@ public class CacheController {
         return ResponseEntity.ok(ApiResponse.success("获取缓存统计信息成功", statistics));
     }
 
+    /**
+     * 获取各级缓存（本地L1 / Redis L2）的命中统计
+     */
+    @GetMapping("/tiers")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getTierStatistics() {
+        return ResponseEntity.ok(ApiResponse.success("获取缓存分级统计成功", cacheService.getTierStatistics()));
+    }
+
     /**
      * 清理所有缓存
      */
@@ -76,9 +94,18 @@ public class CacheController {
      * 预热缓存
      */
     @PostMapping("/warmup")
-    public ResponseEntity<ApiResponse<String>> warmUpCache() {
-        cacheEvictionService.warmUpCache();
-        return ResponseEntity.ok(ApiResponse.success("缓存预热成功"));
+    public ResponseEntity<ApiResponse<CacheWarmUpService.WarmUpReport>> warmUpCache() {
+        CacheWarmUpService.WarmUpReport report = cacheEvictionService.warmUpCache();
+        return ResponseEntity.ok(ApiResponse.success(
+                report.isComplete() ? "缓存预热成功" : "缓存预热部分完成", report));
+    }
+
+    /**
+     * 获取最近一次缓存预热的结果
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<ApiResponse<CacheWarmUpService.WarmUpReport>> getWarmUpReport() {
+        return ResponseEntity.ok(ApiResponse.success("获取缓存预热结果成功", cacheWarmUpService.getLastReport()));
     }
 
     /**
@@ -0,0 +1,77 @@
+package com.example.campussystem.controller;
+
+import com.example.campussystem.service.MessageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * STOMP 消息控制器
+ * 处理客户端发往 /app/chat.* 的实时事件（正在输入、已读回执）
+ */
+@Controller
+public class ChatSocketController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSocketController.class);
+
+    @Autowired
+    private MessageService messageService;
+
+    /**
+     * 正在输入：{ toUserId, conversationId, isTyping }
+     */
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload Map<String, Object> body, Principal principal) {
+        Long userId = resolveUserId(principal);
+        Long toUserId = toLong(body.get("toUserId"));
+        if (userId == null || toUserId == null) {
+            return;
+        }
+        boolean typing = !Boolean.FALSE.equals(body.get("isTyping"));
+        messageService.notifyTyping(userId, toUserId, typing);
+    }
+
+    /**
+     * 标记已读：{ conversationId, messageId }
+     * 有 messageId 时标记单条消息，否则按 conversationId（联系人ID）标记整段会话
+     */
+    @MessageMapping("/chat.markRead")
+    public void markRead(@Payload Map<String, Object> body, Principal principal) {
+        Long userId = resolveUserId(principal);
+        if (userId == null) {
+            return;
+        }
+        try {
+            Long messageId = toLong(body.get("messageId"));
+            Long contactUserId = toLong(body.get("conversationId"));
+            if (messageId != null) {
+                messageService.markMessageAsRead(messageId, userId);
+            } else if (contactUserId != null) {
+                messageService.markConversationAsRead(userId, contactUserId);
+            }
+        } catch (Exception e) {
+            logger.warn("STOMP标记已读失败, userId={}: {}", userId, e.getMessage());
+        }
+    }
+
+    private Long resolveUserId(Principal principal) {
+        return principal == null ? null : toLong(principal.getName());
+    }
+
+    private Long toLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.campussystem.controller;
 
 import com.example.campussystem.dto.ConversationResponse;
+import com.example.campussystem.dto.MessageCursorResponse;
 import com.example.campussystem.dto.MessageRequest;
 import com.example.campussystem.dto.MessageResponse;
 import com.example.campussystem.service.MessageService;
@@ -87,6 +88,27 @@ public class MessageController {
         }
     }
 
+    /**
+     * 按游标获取对话消息（从新到旧，适合向上滚动加载历史）
+     */
+    @GetMapping("/conversation/{contactUserId}/cursor")
+    public Result<MessageCursorResponse> getConversationMessagesByCursor(
+            @PathVariable Long contactUserId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpServletRequest request) {
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+            if (userId == null) {
+                return Result.error("用户未登录");
+            }
+            MessageCursorResponse response = messageService.getConversationMessagesBefore(userId, contactUserId, cursor, limit);
+            return Result.success(response);
+        } catch (Exception e) {
+            return Result.error("获取对话消息失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取对话列表
      */
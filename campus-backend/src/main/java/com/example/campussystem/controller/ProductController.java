@@ -1,8 +1,10 @@
 package com.example.campussystem.controller;
 
 import com.example.campussystem.common.ApiResponse;
+import com.example.campussystem.dto.ProductCursorResponse;
 import com.example.campussystem.dto.ProductRequest;
 import com.example.campussystem.dto.ProductResponse;
+import com.example.campussystem.dto.ProductSearchResponse;
 import com.example.campussystem.security.UserPrincipal;
 import com.example.campussystem.service.ProductService;
 import jakarta.validation.Valid;
@@ -138,6 +140,37 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("搜索商品成功", response));
     }
 
+    /**
+     * 搜索框输入联想
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<String>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        List<String> suggestions = productService.suggest(prefix, limit);
+        return ResponseEntity.ok(ApiResponse.success(suggestions));
+    }
+
+    /**
+     * 分面搜索：返回当前页商品及分类、价格区间、成色、是否可议价的计数
+     */
+    @GetMapping("/search/faceted")
+    public ResponseEntity<ApiResponse<ProductSearchResponse>> facetedSearch(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) Boolean negotiable,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        ProductSearchResponse response = productService.facetedSearch(
+                keyword, categoryId, minPrice, maxPrice, condition, negotiable, page, size);
+        return ResponseEntity.ok(ApiResponse.success("搜索商品成功", response));
+    }
+
     /**
      * 根据分类获取商品列表
      */
@@ -190,6 +223,18 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("获取热门商品成功", response));
     }
 
+    /**
+     * 获取热度趋势商品（近期浏览、收藏、咨询按时间衰减加权）
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getTrendingProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        Page<ProductResponse> response = productService.getTrendingProducts(page, size);
+        return ResponseEntity.ok(ApiResponse.success("获取热度趋势商品成功", response));
+    }
+
     /**
      * 获取最新商品
      */
@@ -202,6 +247,19 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("获取最新商品成功", response));
     }
 
+    /**
+     * 按游标获取最新商品（适合无限滚动，深翻页不变慢）
+     */
+    @GetMapping("/latest/cursor")
+    public ResponseEntity<ApiResponse<ProductCursorResponse>> getLatestProductsByCursor(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        ProductCursorResponse response = productService.getLatestProductsAfter(categoryId, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success("获取最新商品成功", response));
+    }
+
     /**
      * 获取推荐商品
      */
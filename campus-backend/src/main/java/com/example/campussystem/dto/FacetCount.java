@@ -0,0 +1,45 @@
+package com.example.campussystem.dto;
+
+/**
+ * 分面计数DTO
+ */
+public class FacetCount {
+
+    private String value; // 作为过滤参数回传的取值，价格区间形如 "50-100"，最后一档为 "1000-"
+    private String label; // 展示文本
+    private long count;
+
+    // 构造函数
+    public FacetCount() {}
+
+    public FacetCount(String value, String label, long count) {
+        this.value = value;
+        this.label = label;
+        this.count = count;
+    }
+
+    // Getter和Setter方法
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
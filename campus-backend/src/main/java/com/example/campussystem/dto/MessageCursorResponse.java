@@ -0,0 +1,47 @@
+package com.example.campussystem.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页的消息响应DTO
+ */
+public class MessageCursorResponse {
+
+    private List<MessageResponse> messages;
+    private String nextCursor; // 继续向前翻页时传入的游标，没有更多消息时为空
+    private boolean hasMore;
+
+    // 构造函数
+    public MessageCursorResponse() {}
+
+    public MessageCursorResponse(List<MessageResponse> messages, String nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getter和Setter方法
+    public List<MessageResponse> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<MessageResponse> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
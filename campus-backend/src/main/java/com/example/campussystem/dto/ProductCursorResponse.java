@@ -0,0 +1,47 @@
+package com.example.campussystem.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页的商品响应DTO
+ */
+public class ProductCursorResponse {
+
+    private List<ProductResponse> products;
+    private String nextCursor; // 继续向前翻页时传入的游标，没有更多商品时为空
+    private boolean hasMore;
+
+    // 构造函数
+    public ProductCursorResponse() {}
+
+    public ProductCursorResponse(List<ProductResponse> products, String nextCursor, boolean hasMore) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getter和Setter方法
+    public List<ProductResponse> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductResponse> products) {
+        this.products = products;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.campussystem.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面搜索响应DTO：当前页商品与各分面计数
+ */
+public class ProductSearchResponse {
+
+    private Page<ProductResponse> products;
+    private Map<String, List<FacetCount>> facets; // 分面名（category/price/condition/negotiable） -> 各取值计数
+
+    // 构造函数
+    public ProductSearchResponse() {}
+
+    public ProductSearchResponse(Page<ProductResponse> products, Map<String, List<FacetCount>> facets) {
+        this.products = products;
+        this.facets = facets;
+    }
+
+    // Getter和Setter方法
+    public Page<ProductResponse> getProducts() {
+        return products;
+    }
+
+    public void setProducts(Page<ProductResponse> products) {
+        this.products = products;
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, List<FacetCount>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.campussystem.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话摘要实体类
+ * 每个用户与每个联系人各一行，冗余保存最后一条消息和该用户视角的未读数，
+ * 会话列表只需按 (user_id, last_message_time) 索引读取一次
+ */
+@Entity
+@Table(name = "conversations",
+       uniqueConstraints = @UniqueConstraint(name = "uk_conversations_user_contact", columnNames = {"user_id", "contact_user_id"}),
+       indexes = @Index(name = "idx_conversations_user_time", columnList = "user_id, last_message_time"))
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "contact_user_id", nullable = false)
+    private Long contactUserId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_content", columnDefinition = "TEXT")
+    private String lastMessageContent;
+
+    @Column(name = "last_message_type")
+    private Integer lastMessageType;
+
+    @Column(name = "product_id")
+    private Long productId; // 最后一条消息关联的商品
+
+    @Column(name = "last_message_time")
+    private LocalDateTime lastMessageTime;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount = 0; // 联系人发给该用户且未读的消息数
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+
+    // 构造函数
+    public Conversation() {}
+
+    // Getter和Setter方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getContactUserId() {
+        return contactUserId;
+    }
+
+    public void setContactUserId(Long contactUserId) {
+        this.contactUserId = contactUserId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessageContent() {
+        return lastMessageContent;
+    }
+
+    public void setLastMessageContent(String lastMessageContent) {
+        this.lastMessageContent = lastMessageContent;
+    }
+
+    public Integer getLastMessageType() {
+        return lastMessageType;
+    }
+
+    public void setLastMessageType(Integer lastMessageType) {
+        this.lastMessageType = lastMessageType;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDateTime getLastMessageTime() {
+        return lastMessageTime;
+    }
+
+    public void setLastMessageTime(LocalDateTime lastMessageTime) {
+        this.lastMessageTime = lastMessageTime;
+    }
+
+    public Integer getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Integer unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+}
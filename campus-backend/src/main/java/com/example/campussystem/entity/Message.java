@@ -14,7 +14,12 @@ import java.time.LocalDateTime;
  * 消息实体类
  */
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // 会话消息按游标翻页：(发送者, 接收者, id)，两个方向各做一次范围扫描后合并
+        @Index(name = "idx_messages_conversation", columnList = "from_user_id, to_user_id, id"),
+        // 每次发消息判断是否为围绕商品的新会话：(发送者, 接收者, 商品) 等值查找
+        @Index(name = "idx_messages_chat_start", columnList = "from_user_id, to_user_id, product_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Message {
 
@@ -14,7 +14,11 @@ import java.util.List;
  * 商品实体类
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // 最新商品键集分页：(状态, 发布时间, id) 与按分类的同类查询
+        @Index(name = "idx_products_status_time", columnList = "status, create_time, id"),
+        @Index(name = "idx_products_category_status_time", columnList = "category_id, status, create_time, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Product {
 
@@ -51,7 +55,8 @@ public class Product {
     @Column(name = "images", columnDefinition = "JSON")
     private String images; // JSON格式存储图片URL数组
 
-    @Column(name = "view_count")
+    // 只由 ProductRepository.incrementViewCount 累加，实体保存时不回写，避免覆盖期间刷入的浏览量
+    @Column(name = "view_count", updatable = false)
     private Integer viewCount = 0;
 
     @Column(name = "status")
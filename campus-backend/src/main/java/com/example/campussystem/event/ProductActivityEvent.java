@@ -0,0 +1,40 @@
+package com.example.campussystem.event;
+
+/**
+ * 商品互动事件
+ * 收藏商品、围绕商品发起会话后发布，热度趋势在事务提交后计入；
+ * 与 {@link ProductChangedEvent} 一样由 {@link ProductChangeRelay} 转发给其他节点，在其他节点上以 remote=true 重新发布，
+ * 使各节点的热度窗口包含全部节点的互动。
+ */
+public class ProductActivityEvent {
+
+    public enum Type {
+        FAVORITE, CHAT_START
+    }
+
+    private final Long productId;
+    private final Type type;
+    private final boolean remote;
+
+    public ProductActivityEvent(Long productId, Type type) {
+        this(productId, type, false);
+    }
+
+    public ProductActivityEvent(Long productId, Type type, boolean remote) {
+        this.productId = productId;
+        this.type = type;
+        this.remote = remote;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
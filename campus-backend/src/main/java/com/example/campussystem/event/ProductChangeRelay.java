@@ -0,0 +1,118 @@
+package com.example.campussystem.event;
+
+import com.example.campussystem.service.CacheService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 商品变更事件与商品互动事件的跨节点中继
+ * 本机事务提交后把变更的商品ID、收藏/会话等互动发布到Redis频道，其他节点收到后以远程事件重新发布，
+ * 使各节点的进程内索引、时间线、热度窗口等保持一致。
+ */
+@Component
+public class ProductChangeRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeRelay.class);
+
+    private static final String CHANGE_CHANNEL = "product:changed";
+    private static final String ACTIVITY_CHANNEL = "product:activity";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANGE_CHANNEL));
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onRemoteActivity(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(ACTIVITY_CHANNEL));
+    }
+
+    /**
+     * 通知其他节点，消息格式：节点ID|商品ID,商品ID...
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote() || event.getProductIds().isEmpty()) {
+            return;
+        }
+        try {
+            String ids = event.getProductIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+            cacheService.redisRun(() -> stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, nodeId + "|" + ids));
+        } catch (Exception e) {
+            logger.warn("发布商品变更通知失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 通知其他节点，消息格式：节点ID|互动类型|商品ID
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        if (event.isRemote() || event.getProductId() == null) {
+            return;
+        }
+        try {
+            String body = nodeId + "|" + event.getType().name() + "|" + event.getProductId();
+            cacheService.redisRun(() -> stringRedisTemplate.convertAndSend(ACTIVITY_CHANNEL, body));
+        } catch (Exception e) {
+            logger.warn("发布商品互动通知失败: {}", e.getMessage());
+        }
+    }
+
+    private void onRemoteActivity(String body) {
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new ProductActivityEvent(Long.valueOf(parts[2].trim()),
+                    ProductActivityEvent.Type.valueOf(parts[1]), true));
+        } catch (IllegalArgumentException e) {
+            logger.warn("忽略无法解析的商品互动通知: {}", body);
+        }
+    }
+
+    private void onRemoteChange(String body) {
+        String[] parts = body.split("\\|", 2);
+        if (parts.length != 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : parts[1].split(",")) {
+            if (!id.isBlank()) {
+                ids.add(Long.valueOf(id.trim()));
+            }
+        }
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ids, true));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.campussystem.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 商品变更事件
+ * 商品发布、修改、删除或状态变化后发布，监听方（搜索索引、热门榜单等）在事务提交后从数据库重新加载对应商品。
+ * 本机事件由 {@link ProductChangeRelay} 转发给其他节点，在其他节点上以 remote=true 重新发布；
+ * 只维护共享Redis数据的监听方应忽略远程事件，维护进程内数据的监听方两者都要处理。
+ */
+public class ProductChangedEvent {
+
+    private final List<Long> productIds;
+    private final boolean remote;
+
+    public ProductChangedEvent(Long productId) {
+        this(Collections.singletonList(productId), false);
+    }
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this(productIds, false);
+    }
+
+    public ProductChangedEvent(Collection<Long> productIds, boolean remote) {
+        this.productIds = Collections.unmodifiableList(new ArrayList<>(productIds));
+        this.remote = remote;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
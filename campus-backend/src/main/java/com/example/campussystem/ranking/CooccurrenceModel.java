@@ -0,0 +1,161 @@
+package com.example.campussystem.ranking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * 物品-物品共现模型
+ * 每个用户的行为（收藏、购买）构成一个带权重的物品篮子，两件物品出现在同一篮子中即共现一次。
+ * 相似度为阻尼余弦：sim(a,b) = Σ_u d_u·w_ua·w_ub / sqrt(Σ_u w_ua² · Σ_u w_ub²)，
+ * 其中 d_u = 1/ln(e + |篮子|) 削弱行为特别多的用户对所有物品对的影响。
+ * 共现矩阵按行稀疏存储（行内为 {@link LongDoubleHashMap}），只保留非零元素。
+ * 篮子超过上限时保留权重最高的物品，权重相同的保留最近发生的行为。
+ */
+public class CooccurrenceModel {
+
+    private final int maxBasketSize;
+
+    // 用户 -> 篮子
+    private final Map<Long, Basket> baskets = new HashMap<>();
+
+    public CooccurrenceModel(int maxBasketSize) {
+        this.maxBasketSize = maxBasketSize;
+    }
+
+    /**
+     * 记录一次用户行为，同一用户对同一物品的多次行为取最大权重和最近时间
+     *
+     * @param time 行为发生时间（毫秒时间戳），未知时传 0
+     */
+    public void add(long userId, long itemId, double weight, long time) {
+        Basket basket = baskets.computeIfAbsent(userId, id -> new Basket());
+        double current = basket.weights.get(itemId);
+        if (weight > current) {
+            basket.weights.addTo(itemId, weight - current);
+        }
+        double lastTime = basket.times.get(itemId);
+        if (time > lastTime) {
+            basket.times.addTo(itemId, time - lastTime);
+        }
+    }
+
+    /**
+     * 计算每件物品最相似的 topN 件物品（按相似度从高到低），只保留满足 candidate 的邻居
+     */
+    public Map<Long, long[]> topNeighbours(int topN, LongPredicate candidate) {
+        Map<Long, LongDoubleHashMap> rows = new HashMap<>();
+        LongDoubleHashMap norms = new LongDoubleHashMap(1024);
+
+        for (Basket basket : baskets.values()) {
+            int size = basket.weights.size();
+            long[] items = new long[size];
+            double[] weights = new double[size];
+            int[] count = {0};
+            basket.weights.forEach((item, weight) -> {
+                items[count[0]] = item;
+                weights[count[0]] = weight;
+                count[0]++;
+            });
+            int n = size;
+            if (size > maxBasketSize) {
+                n = maxBasketSize;
+                keepStrongest(basket, items, weights, n);
+            }
+            double damping = 1d / Math.log(Math.E + n);
+            for (int i = 0; i < n; i++) {
+                norms.addTo(items[i], weights[i] * weights[i]);
+                if (n < 2) {
+                    continue;
+                }
+                LongDoubleHashMap row = rows.computeIfAbsent(items[i], id -> new LongDoubleHashMap());
+                for (int j = 0; j < n; j++) {
+                    if (j != i) {
+                        row.addTo(items[j], damping * weights[i] * weights[j]);
+                    }
+                }
+            }
+        }
+
+        Map<Long, long[]> result = new HashMap<>();
+        for (Map.Entry<Long, LongDoubleHashMap> entry : rows.entrySet()) {
+            long item = entry.getKey();
+            double itemNorm = norms.get(item);
+            PriorityQueue<Neighbour> heap = new PriorityQueue<>(topN + 1,
+                    (a, b) -> Double.compare(a.similarity, b.similarity));
+            entry.getValue().forEach((other, dot) -> {
+                if (!candidate.test(other)) {
+                    return;
+                }
+                double similarity = dot / Math.sqrt(itemNorm * norms.get(other));
+                if (heap.size() < topN) {
+                    heap.offer(new Neighbour(other, similarity));
+                } else if (similarity > heap.peek().similarity) {
+                    heap.poll();
+                    heap.offer(new Neighbour(other, similarity));
+                }
+            });
+            if (heap.isEmpty()) {
+                continue;
+            }
+            long[] neighbours = new long[heap.size()];
+            for (int i = neighbours.length - 1; i >= 0; i--) {
+                neighbours[i] = heap.poll().itemId;
+            }
+            result.put(item, neighbours);
+        }
+        return result;
+    }
+
+    /**
+     * 用户数
+     */
+    public int basketCount() {
+        return baskets.size();
+    }
+
+    /**
+     * 把权重最高（相同时最近）的 n 件物品移到数组前部，不依赖哈希表的遍历顺序
+     */
+    private static void keepStrongest(Basket basket, long[] items, double[] weights, int n) {
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byWeight = Double.compare(weights[b], weights[a]);
+            if (byWeight != 0) {
+                return byWeight;
+            }
+            int byTime = Double.compare(basket.times.get(items[b]), basket.times.get(items[a]));
+            return byTime != 0 ? byTime : Long.compare(items[a], items[b]);
+        });
+        long[] keptItems = new long[n];
+        double[] keptWeights = new double[n];
+        for (int i = 0; i < n; i++) {
+            keptItems[i] = items[order[i]];
+            keptWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(keptItems, 0, items, 0, n);
+        System.arraycopy(keptWeights, 0, weights, 0, n);
+    }
+
+    private static final class Basket {
+        // 物品 -> 权重
+        final LongDoubleHashMap weights = new LongDoubleHashMap();
+        // 物品 -> 最近一次行为时间（毫秒时间戳）
+        final LongDoubleHashMap times = new LongDoubleHashMap();
+    }
+
+    private static final class Neighbour {
+        final long itemId;
+        final double similarity;
+
+        Neighbour(long itemId, double similarity) {
+            this.itemId = itemId;
+            this.similarity = similarity;
+        }
+    }
+}
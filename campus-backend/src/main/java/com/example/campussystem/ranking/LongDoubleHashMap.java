@@ -0,0 +1,108 @@
+package com.example.campussystem.ranking;
+
+import java.util.Arrays;
+
+/**
+ * long -> double 的开放寻址哈希表（线性探测）
+ * 作为稀疏矩阵的行使用，避免为每个非零元素创建 Long/Double 装箱对象和链表节点。
+ * 非线程安全，只在单线程的批量计算中使用。
+ */
+public class LongDoubleHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+
+    public LongDoubleHashMap() {
+        this(8);
+    }
+
+    public LongDoubleHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+    }
+
+    /**
+     * 累加：key 不存在时视为 0
+     */
+    public void addTo(long key, double delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 获取值，key 不存在时返回 0
+     */
+    public double get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0d;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有条目
+     */
+    public void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("不支持的键: " + key);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 条目回调
+     */
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, double value);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.campussystem.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 有界的最新商品时间线
+ * 按（发布时间, ID）倒序保存最新的若干个在售商品。读取只获取一份不可变快照，无需加锁；
+ * 写入（发布、上下架）较少，复制数组后用CAS整体替换，失败则基于最新快照重试。
+ * 时间线保证：快照中的商品恰好是全部在售商品中排在末尾商品之前（含）的那些，
+ * 因此覆盖范围内的分页可以直接从内存返回，更深的分页从末尾商品开始按键集查询数据库。
+ */
+public class ProductTimeline {
+
+    private final int capacity;
+    private final AtomicReference<Snapshot> state =
+            new AtomicReference<>(new Snapshot(new long[0], new long[0], false));
+
+    public ProductTimeline(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 用数据库查询结果整体替换时间线，ids/times 须已按（时间, ID）倒序排列
+     *
+     * @param exhaustive 结果是否已包含全部在售商品（查询返回的条数少于容量）
+     */
+    public void reset(long[] ids, long[] times, boolean exhaustive) {
+        int size = Math.min(ids.length, capacity);
+        long[] newIds = new long[size];
+        long[] newTimes = new long[size];
+        System.arraycopy(ids, 0, newIds, 0, size);
+        System.arraycopy(times, 0, newTimes, 0, size);
+        state.set(new Snapshot(newIds, newTimes, exhaustive && ids.length <= capacity));
+    }
+
+    /**
+     * 插入或移动商品到其发布时间对应的位置
+     * 比末尾商品更早的商品只有在时间线已包含全部在售商品时才插入，否则会破坏覆盖范围的连续性
+     */
+    public void upsert(long productId, long time) {
+        while (true) {
+            Snapshot current = state.get();
+            Snapshot next = current.without(productId).with(productId, time, capacity);
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 移除商品（下架、删除或转移到其他分类）
+     */
+    public void remove(long productId) {
+        while (true) {
+            Snapshot current = state.get();
+            Snapshot next = current.without(productId);
+            if (next == current || state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前快照，同一次分页应只使用同一份快照
+     */
+    public Snapshot snapshot() {
+        return state.get();
+    }
+
+    /**
+     * 时间线的不可变快照
+     */
+    public static final class Snapshot {
+        private final long[] ids;
+        private final long[] times;
+        private final boolean exhaustive;
+
+        Snapshot(long[] ids, long[] times, boolean exhaustive) {
+            this.ids = ids;
+            this.times = times;
+            this.exhaustive = exhaustive;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * 是否已包含全部在售商品（此时任何分页都无需查询数据库）
+         */
+        public boolean isExhaustive() {
+            return exhaustive;
+        }
+
+        /**
+         * [offset, offset + limit) 范围内的商品ID，超出部分被截断
+         */
+        public List<Long> slice(int offset, int limit) {
+            if (offset >= ids.length || limit <= 0) {
+                return Collections.emptyList();
+            }
+            int end = (int) Math.min((long) offset + limit, ids.length);
+            List<Long> result = new ArrayList<>(end - offset);
+            for (int i = offset; i < end; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        }
+
+        /**
+         * 商品在快照中的位置，不在时间线中时返回 -1
+         */
+        public int indexOf(long productId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == productId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 末尾商品的ID与发布时间，深分页从这里开始按键集查询；空时间线返回 null
+         */
+        public long[] tail() {
+            return ids.length == 0 ? null : new long[]{ids[ids.length - 1], times[ids.length - 1]};
+        }
+
+        Snapshot without(long productId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == productId) {
+                    long[] newIds = new long[ids.length - 1];
+                    long[] newTimes = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, newIds, 0, i);
+                    System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+                    System.arraycopy(times, 0, newTimes, 0, i);
+                    System.arraycopy(times, i + 1, newTimes, i, times.length - i - 1);
+                    return new Snapshot(newIds, newTimes, exhaustive);
+                }
+            }
+            return this;
+        }
+
+        Snapshot with(long productId, long time, int capacity) {
+            int pos = 0;
+            while (pos < ids.length && (times[pos] > time || (times[pos] == time && ids[pos] > productId))) {
+                pos++;
+            }
+            if (pos == ids.length && !exhaustive) {
+                return this;
+            }
+            boolean full = ids.length >= capacity;
+            if (full && pos == ids.length) {
+                // 放不下的商品排在末尾之后，时间线不再包含全部在售商品
+                return new Snapshot(ids, times, false);
+            }
+            int size = full ? capacity : ids.length + 1;
+            long[] newIds = new long[size];
+            long[] newTimes = new long[size];
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(times, 0, newTimes, 0, pos);
+            newIds[pos] = productId;
+            newTimes[pos] = time;
+            System.arraycopy(ids, pos, newIds, pos + 1, size - pos - 1);
+            System.arraycopy(times, pos, newTimes, pos + 1, size - pos - 1);
+            // 容量已满时挤出末尾商品，之后的商品只能从数据库读取
+            return new Snapshot(newIds, newTimes, exhaustive && !full);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.campussystem.ranking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * 带时间衰减的滑动窗口计分器
+ * 时间按固定宽度切分为桶，环形数组只保留最近 bucketCount 个桶，过期的桶在被复用时整体丢弃。
+ * 记录事件只是对当前桶中对应商品的计数器做一次无锁累加；计算排名时每个桶按其中点距当前时间的
+ * 长短乘以指数衰减因子 2^(-age/halfLife) 后求和，再取分数最高的 K 个。
+ */
+public class TrendingWindow {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final double decayPerMilli;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public TrendingWindow(long bucketMillis, int bucketCount, long halfLifeMillis) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        this.ring = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * 在 timeMillis 所在的桶中为商品累加权重，早于窗口的事件被忽略
+     */
+    public void record(long productId, double weight, long timeMillis) {
+        long epoch = timeMillis / bucketMillis;
+        int slot = (int) (epoch % bucketCount);
+        Bucket bucket = ring.get(slot);
+        while (bucket == null || bucket.epoch != epoch) {
+            if (bucket != null && bucket.epoch > epoch) {
+                return;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+            bucket = ring.get(slot);
+        }
+        bucket.counts.computeIfAbsent(productId, id -> new DoubleAdder()).add(weight);
+    }
+
+    /**
+     * 从窗口中移除商品的全部计数（如商品已下架）
+     */
+    public void remove(long productId) {
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null) {
+                bucket.counts.remove(productId);
+            }
+        }
+    }
+
+    /**
+     * 计算当前时刻衰减后分数最高的 limit 个商品，按分数从高到低排列
+     */
+    public List<Score> top(int limit, long nowMillis) {
+        long currentEpoch = nowMillis / bucketMillis;
+        Map<Long, Double> totals = new HashMap<>();
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null || bucket.epoch <= currentEpoch - bucketCount || bucket.epoch > currentEpoch) {
+                continue;
+            }
+            long age = Math.max(0, nowMillis - (bucket.epoch * bucketMillis + bucketMillis / 2));
+            double decay = Math.exp(-decayPerMilli * age);
+            for (Map.Entry<Long, DoubleAdder> entry : bucket.counts.entrySet()) {
+                totals.merge(entry.getKey(), entry.getValue().sum() * decay, Double::sum);
+            }
+        }
+
+        PriorityQueue<Score> heap = new PriorityQueue<>(Math.max(1, limit + 1),
+                (a, b) -> Double.compare(a.score, b.score));
+        for (Map.Entry<Long, Double> entry : totals.entrySet()) {
+            if (heap.size() < limit) {
+                heap.offer(new Score(entry.getKey(), entry.getValue()));
+            } else if (limit > 0 && entry.getValue() > heap.peek().score) {
+                heap.poll();
+                heap.offer(new Score(entry.getKey(), entry.getValue()));
+            }
+        }
+        List<Score> result = new ArrayList<>(heap);
+        result.sort((a, b) -> Double.compare(b.score, a.score));
+        return result;
+    }
+
+    /**
+     * 窗口内有计数的商品数（各桶去重前的条目总数）
+     */
+    public int entryCount() {
+        int count = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null) {
+                count += bucket.counts.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 商品及其衰减后的分数
+     */
+    public static class Score {
+        private final long productId;
+        private final double score;
+
+        public Score(long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Bucket {
+        final long epoch;
+        final Map<Long, DoubleAdder> counts = new ConcurrentHashMap<>();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
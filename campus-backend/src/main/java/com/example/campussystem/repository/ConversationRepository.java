@@ -0,0 +1,102 @@
+package com.example.campussystem.repository;
+
+import com.example.campussystem.entity.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 会话摘要数据访问接口
+ */
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    /**
+     * 查询用户的会话列表，同时带出联系人和关联商品（一次查询）
+     * 返回值每行依次为：Conversation, User(联系人), Product(可能为null)
+     */
+    @Query("SELECT c, u, p FROM Conversation c " +
+           "JOIN User u ON u.id = c.contactUserId " +
+           "LEFT JOIN Product p ON p.id = c.productId " +
+           "WHERE c.userId = :userId ORDER BY c.lastMessageTime DESC")
+    List<Object[]> findInbox(@Param("userId") Long userId);
+
+    /**
+     * 新消息写入会话摘要（不存在则创建）
+     * 只有更新的消息才会覆盖最后消息字段，last_message_id 必须放在最后赋值，
+     * 因为 MySQL 按顺序求值且后面的表达式会看到前面已更新的值
+     */
+    @Modifying
+    @Query(value = "INSERT INTO conversations (user_id, contact_user_id, last_message_id, last_message_content, " +
+                   "last_message_type, product_id, last_message_time, unread_count, update_time) " +
+                   "VALUES (:userId, :contactUserId, :messageId, :content, :type, :productId, :messageTime, :unreadDelta, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "unread_count = unread_count + VALUES(unread_count), " +
+                   "last_message_content = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message_content), last_message_content), " +
+                   "last_message_type = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message_type), last_message_type), " +
+                   "product_id = IF(VALUES(last_message_id) > last_message_id, VALUES(product_id), product_id), " +
+                   "last_message_time = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message_time), last_message_time), " +
+                   "update_time = NOW(), " +
+                   "last_message_id = GREATEST(last_message_id, VALUES(last_message_id))",
+           nativeQuery = true)
+    int upsertLastMessage(@Param("userId") Long userId,
+                          @Param("contactUserId") Long contactUserId,
+                          @Param("messageId") Long messageId,
+                          @Param("content") String content,
+                          @Param("type") Integer type,
+                          @Param("productId") Long productId,
+                          @Param("messageTime") LocalDateTime messageTime,
+                          @Param("unreadDelta") int unreadDelta);
+
+    /**
+     * 清零用户与某联系人会话的未读数
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.unreadCount = 0 WHERE c.userId = :userId AND c.contactUserId = :contactUserId")
+    int resetUnreadCount(@Param("userId") Long userId, @Param("contactUserId") Long contactUserId);
+
+    /**
+     * 未读数减一（不会减为负数）
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.unreadCount = c.unreadCount - 1 " +
+           "WHERE c.userId = :userId AND c.contactUserId = :contactUserId AND c.unreadCount > 0")
+    int decrementUnreadCount(@Param("userId") Long userId, @Param("contactUserId") Long contactUserId);
+
+    /**
+     * 删除两个用户之间的会话摘要（双方各一行）
+     */
+    @Modifying
+    @Query("DELETE FROM Conversation c WHERE (c.userId = :userId1 AND c.contactUserId = :userId2) OR (c.userId = :userId2 AND c.contactUserId = :userId1)")
+    int deleteBetween(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+
+    /**
+     * 从消息表重建会话摘要：按 (用户, 联系人) 汇总最后消息ID和未读数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO conversations (user_id, contact_user_id, last_message_id, unread_count, update_time) " +
+                   "SELECT t.user_id, t.contact_user_id, MAX(t.id), SUM(t.unread), NOW() FROM (" +
+                   "  SELECT from_user_id AS user_id, to_user_id AS contact_user_id, id, 0 AS unread FROM messages " +
+                   "  UNION ALL " +
+                   "  SELECT to_user_id AS user_id, from_user_id AS contact_user_id, id, " +
+                   "         CASE WHEN is_read = 0 THEN 1 ELSE 0 END AS unread FROM messages" +
+                   ") t GROUP BY t.user_id, t.contact_user_id " +
+                   "ON DUPLICATE KEY UPDATE last_message_id = VALUES(last_message_id), unread_count = VALUES(unread_count), update_time = NOW()",
+           nativeQuery = true)
+    int backfillSummaries();
+
+    /**
+     * 重建后根据最后消息ID补齐冗余的消息字段
+     */
+    @Modifying
+    @Query(value = "UPDATE conversations c JOIN messages m ON m.id = c.last_message_id " +
+                   "SET c.last_message_content = m.content, c.last_message_type = m.type, " +
+                   "c.product_id = m.product_id, c.last_message_time = m.create_time",
+           nativeQuery = true)
+    int backfillLastMessageFields();
+}
@@ -2,8 +2,11 @@ package com.example.campussystem.repository;
 
 import com.example.campussystem.entity.Favorite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,4 +55,16 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
      * 删除商品的所有收藏记录
      */
     void deleteByProductId(Long productId);
-}
\ No newline at end of file
+
+    /**
+     * 查询指定时间之后的收藏事件：[商品ID, 收藏时间]
+     */
+    @Query("SELECT f.productId, f.createTime FROM Favorite f WHERE f.createTime >= :since")
+    List<Object[]> findProductFavoriteTimesSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 全部收藏的 [用户ID, 商品ID, 收藏时间]，用于计算商品共现推荐
+     */
+    @Query("SELECT f.userId, f.productId, f.createTime FROM Favorite f")
+    List<Object[]> findUserProductPairs();
+}
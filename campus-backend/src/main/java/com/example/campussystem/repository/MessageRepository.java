@@ -30,6 +30,15 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE (m.fromUserId = :userId1 AND m.toUserId = :userId2) OR (m.fromUserId = :userId2 AND m.toUserId = :userId1) ORDER BY m.createTime DESC")
     Page<Message> findConversationMessages(@Param("userId1") Long userId1, @Param("userId2") Long userId2, Pageable pageable);
 
+    /**
+     * 按游标查找单一方向（fromUserId 发给 toUserId）id小于指定值的消息（按id倒序）
+     * 等值条件加 id 范围正好是 (from_user_id, to_user_id, id) 复合索引的前缀，按索引倒序扫描取前N条，
+     * 无需排序，代价与会话历史长度无关；两个方向分别查询后由调用方合并
+     */
+    @Query("SELECT m FROM Message m WHERE m.fromUserId = :fromUserId AND m.toUserId = :toUserId AND m.id < :beforeId ORDER BY m.id DESC")
+    List<Message> findDirectedMessagesBefore(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId,
+                                             @Param("beforeId") Long beforeId, Pageable pageable);
+
     /**
      * 查找用户发送的消息
      */
@@ -173,4 +182,17 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
      * 查找指定类型的消息
      */
     List<Message> findByTypeOrderByCreateTimeDesc(Integer type);
-}
\ No newline at end of file
+
+    /**
+     * 检查发送者是否已就某商品给接收者发过消息（用于识别围绕商品的新会话）
+     */
+    boolean existsByFromUserIdAndToUserIdAndProductId(Long fromUserId, Long toUserId, Long productId);
+
+    /**
+     * 查询指定时间之后围绕商品发起的会话：[商品ID, 首条消息时间]，按 发送者-接收者-商品 去重
+     * 只统计首条消息落在时间窗口内的会话，与实时统计只计首条消息一致；窗口内仍有消息往来的旧会话不计入
+     */
+    @Query("SELECT m.productId, MIN(m.createTime) FROM Message m WHERE m.productId IS NOT NULL " +
+           "GROUP BY m.fromUserId, m.toUserId, m.productId HAVING MIN(m.createTime) >= :since")
+    List<Object[]> findProductChatStartsSince(@Param("since") LocalDateTime since);
+}
@@ -252,4 +252,10 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     @Query("SELECT COALESCE(SUM(o.amount), 0) FROM Order o WHERE (o.buyerId = :userId OR o.sellerId = :userId) AND o.status = 3")
     BigDecimal sumSuccessfulOrderAmountByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 全部有效订单的 [买家ID, 商品ID, 下单时间]（排除已取消），用于计算商品共现推荐
+     */
+    @Query("SELECT o.buyerId, o.productId, o.createTime FROM Order o WHERE o.status <> 4")
+    List<Object[]> findBuyerProductPairs();
+}
@@ -4,9 +4,11 @@ import com.example.campussystem.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -49,11 +51,48 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     Page<Product> findByCategoryIdAndStatus(Long categoryId, Integer status, Pageable pageable);
 
+    /**
+     * 分页查询分类下指定状态的商品ID（排序由 pageable 指定）
+     */
+    @Query(value = "SELECT p.id FROM Product p WHERE p.categoryId = :categoryId AND p.status = :status",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.categoryId = :categoryId AND p.status = :status")
+    Page<Long> findIdPageByCategoryIdAndStatus(@Param("categoryId") Long categoryId,
+                                               @Param("status") Integer status, Pageable pageable);
+
+    /**
+     * 用户发布的、状态不为指定值的商品ID
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.userId = :userId AND p.status <> :status ORDER BY p.id ASC")
+    List<Long> findIdsByUserIdAndStatusNot(@Param("userId") Long userId, @Param("status") Integer status);
+
     /**
      * 根据状态查询商品列表（分页）
      */
     Page<Product> findByStatus(Integer status, Pageable pageable);
 
+    /**
+     * 按ID游标分批扫描指定状态的商品（用于重建内存索引，避免深分页）
+     */
+    List<Product> findByStatusAndIdGreaterThanOrderByIdAsc(Integer status, Long lastId, Pageable pageable);
+
+    /**
+     * 指定状态的全部商品ID
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.status = :status")
+    List<Long> findIdsByStatus(@Param("status") Integer status);
+
+    /**
+     * 按ID游标分批扫描全部商品ID（含已下架、已删除的商品）
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<Long> findIdsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * 指定时间之前创建的商品的最大ID
+     */
+    @Query("SELECT MAX(p.id) FROM Product p WHERE p.createTime < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
     /**
      * 根据标题关键词搜索商品（分页）
      */
@@ -97,6 +136,49 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.status = :status ORDER BY p.createTime DESC")
     Page<Product> findLatestProducts(@Param("status") Integer status, Pageable pageable);
 
+    /**
+     * 最新商品时间线：[商品ID, 发布时间]，按（发布时间, ID）倒序
+     */
+    @Query("SELECT p.id, p.createTime FROM Product p WHERE p.status = :status ORDER BY p.createTime DESC, p.id DESC")
+    List<Object[]> findTimeline(@Param("status") Integer status, Pageable pageable);
+
+    /**
+     * 分类最新商品时间线：[商品ID, 发布时间]，按（发布时间, ID）倒序
+     */
+    @Query("SELECT p.id, p.createTime FROM Product p WHERE p.categoryId = :categoryId AND p.status = :status " +
+           "ORDER BY p.createTime DESC, p.id DESC")
+    List<Object[]> findCategoryTimeline(@Param("categoryId") Long categoryId, @Param("status") Integer status,
+                                        Pageable pageable);
+
+    /**
+     * 从锚点商品之后按（发布时间, ID）倒序继续翻页（键集分页），锚点的发布时间取自数据库以避免精度差异
+     * 游标分页每次以上一页最后一个商品为锚点，offset 为 0；按页码访问时锚点固定为时间线末尾，
+     * 仍需跳过时间线之后的 offset 行，越深越慢
+     */
+    @Query(value = "SELECT p.id FROM products p JOIN products a ON a.id = :afterId " +
+                   "WHERE p.status = :status AND (p.create_time < a.create_time " +
+                   "OR (p.create_time = a.create_time AND p.id < a.id)) " +
+                   "ORDER BY p.create_time DESC, p.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> findTimelineAfter(@Param("status") Integer status, @Param("afterId") Long afterId,
+                                 @Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * 分类版本的键集分页，见 {@link #findTimelineAfter}
+     */
+    @Query(value = "SELECT p.id FROM products p JOIN products a ON a.id = :afterId " +
+                   "WHERE p.category_id = :categoryId AND p.status = :status AND (p.create_time < a.create_time " +
+                   "OR (p.create_time = a.create_time AND p.id < a.id)) " +
+                   "ORDER BY p.create_time DESC, p.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> findCategoryTimelineAfter(@Param("categoryId") Long categoryId, @Param("status") Integer status,
+                                         @Param("afterId") Long afterId,
+                                         @Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * 按分类统计指定状态的商品数量：[分类ID, 数量]
+     */
+    @Query("SELECT p.categoryId, COUNT(p) FROM Product p WHERE p.status = :status GROUP BY p.categoryId")
+    List<Object[]> countByStatusGroupByCategory(@Param("status") Integer status);
+
     /**
      * 统计用户发布的商品数量
      */
@@ -135,4 +217,22 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * 根据状态和更新时间查询商品
      */
     List<Product> findByStatusAndUpdateTimeBefore(Integer status, LocalDateTime updateTime);
-}
\ No newline at end of file
+
+    /**
+     * 累加商品浏览次数（不经过实体加载，只更新浏览量一列）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.viewCount = COALESCE(p.viewCount, 0) + :delta WHERE p.id = :productId")
+    int incrementViewCount(@Param("productId") Long productId, @Param("delta") int delta);
+
+    /**
+     * 条件更新商品状态：仅当当前状态等于期望值时才更新，返回受影响行数
+     * 用于下单预订等并发场景，由数据库行锁保证只有一个请求成功
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.status = :newStatus WHERE p.id = :productId AND p.status = :expectedStatus")
+    int updateStatusIfMatch(@Param("productId") Long productId,
+                            @Param("expectedStatus") Integer expectedStatus,
+                            @Param("newStatus") Integer newStatus);
+}
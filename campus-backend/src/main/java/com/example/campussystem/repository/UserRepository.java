@@ -111,4 +111,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByUsernameContainingIgnoreCaseOrRealNameContainingIgnoreCaseOrStudentIdContaining(
             String username, String realName, String studentId, Pageable pageable);
+
+    /**
+     * 按ID游标分批扫描全部用户ID
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :lastId ORDER BY u.id ASC")
+    java.util.List<Long> findIdsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * 指定时间之前创建的用户的最大ID
+     */
+    @Query("SELECT MAX(u.id) FROM User u WHERE u.createTime < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.campussystem.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 中日韩二元分词器
+ * 连续的中日韩字符按相邻两字切分（同时保留单字，以支持单字查询），
+ * 字母和数字按连续片段切成小写单词，其余字符作为分隔符。
+ */
+public final class BigramTokenizer {
+
+    private BigramTokenizer() {
+    }
+
+    /**
+     * 文档分词：中日韩片段输出单字和二元组
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, tokens, true);
+        return tokens;
+    }
+
+    /**
+     * 查询分词：中日韩片段只输出二元组（片段只有一个字时输出单字），结果去重
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, tokens, false);
+        return new ArrayList<>(new LinkedHashSet<>(tokens));
+    }
+
+    private static void scan(String text, List<String> out, boolean withUnigrams) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, out);
+                cjk.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, out, withUnigrams);
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else {
+                flushWord(word, out);
+                flushCjk(cjk, out, withUnigrams);
+            }
+        }
+        flushWord(word, out);
+        flushCjk(cjk, out, withUnigrams);
+    }
+
+    private static void flushWord(StringBuilder word, List<String> out) {
+        if (word.length() > 0) {
+            out.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(StringBuilder run, List<String> out, boolean withUnigrams) {
+        if (run.length() == 0) {
+            return;
+        }
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1 || withUnigrams) {
+            for (int cp : cps) {
+                out.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int j = 0; j + 1 < cps.length; j++) {
+            out.add(new String(cps, j, 2));
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
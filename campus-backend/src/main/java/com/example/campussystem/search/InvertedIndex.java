@@ -0,0 +1,593 @@
+package com.example.campussystem.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品倒排索引
+ * 每个词项对应一条按内部文档号升序的倒排链（文档号 + 加权词频），查询时从最短的倒排链出发求交集，
+ * 再按 BM25 打分取前 N 条，耗时只与命中文档数相关，与商品总量无关。
+ * 分类、价格区间、成色、是否可议价各自按取值维护文档号位图，分面计数由命中位图与各取值位图求交得到。
+ * 更新商品时旧文档只做删除标记并分配新文档号，删除标记过多时整体压缩。
+ */
+public class InvertedIndex {
+
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_PRICE = "price";
+    public static final String FACET_CONDITION = "condition";
+    public static final String FACET_NEGOTIABLE = "negotiable";
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // 删除标记数超过该值且超过在线文档数时触发压缩
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 价格分桶的上界（升序），第 i 个桶为 [bounds[i-1], bounds[i])，最后一个桶无上界
+    private final BigDecimal[] priceBounds;
+
+    private Map<String, PostingList> postings = new HashMap<>();
+    private List<Document> docs = new ArrayList<>();
+    private Map<Long, Integer> docIdByProduct = new HashMap<>();
+    private BitSet live = new BitSet();
+    private int deletedCount;
+    private double totalLength;
+
+    // 分面位图
+    private Map<Long, BitSet> categoryBits = new HashMap<>();
+    private BitSet[] priceBits;
+    private Map<String, BitSet> conditionBits = new HashMap<>();
+    private BitSet negotiableBits = new BitSet();
+
+    public InvertedIndex() {
+        this(new BigDecimal[0]);
+    }
+
+    public InvertedIndex(BigDecimal[] priceBounds) {
+        this.priceBounds = priceBounds.clone();
+        Arrays.sort(this.priceBounds);
+        this.priceBits = newPriceBits();
+    }
+
+    /**
+     * 新增或替换商品文档
+     */
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.productId);
+            addInternal(document);
+            if (deletedCount > COMPACT_THRESHOLD && deletedCount > docIdByProduct.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除商品文档
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在线文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIdByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索：文档须包含全部查询词项（无词项时为全部在线文档）并满足全部过滤条件。
+     * 有词项时按 BM25 降序、商品ID降序返回，无词项时按发布时间降序、商品ID降序返回（与数据库回退查询一致）。
+     * 需要分面时，每个分面的计数基于“命中集合 + 除该分面自身外的其他过滤条件”，
+     * 这样已选中某个取值时仍能看到同一分面下其他取值的数量。
+     */
+    public SearchResult search(SearchQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = new BitSet();
+            List<ScoredDoc> scored = new ArrayList<>();
+            if (query.terms.isEmpty()) {
+                hits.or(live);
+            } else if (!collectKeywordHits(query.terms, hits, scored)) {
+                return new SearchResult(0, new ArrayList<>(), query.withFacets ? emptyFacets() : null);
+            }
+
+            BitSet categoryFilter = query.categoryId == null ? null
+                    : categoryBits.getOrDefault(query.categoryId, new BitSet());
+            BitSet priceFilter = query.minPrice == null && query.maxPrice == null ? null
+                    : priceFilter(hits, query.minPrice, query.maxPrice);
+            BitSet conditionFilter = query.condition == null ? null
+                    : conditionBits.getOrDefault(query.condition, new BitSet());
+            BitSet negotiableFilter = query.negotiable == null ? null
+                    : (query.negotiable ? negotiableBits : andNot(live, negotiableBits));
+
+            BitSet matched = intersect(hits, categoryFilter, priceFilter, conditionFilter, negotiableFilter);
+            long total = matched.cardinality();
+
+            List<Long> productIds = query.terms.isEmpty()
+                    ? newestFirst(matched, query.offset, query.limit)
+                    : topByScore(scored, matched, query.offset, query.limit);
+
+            Map<String, Map<String, Integer>> facets = null;
+            if (query.withFacets) {
+                facets = new LinkedHashMap<>();
+                BitSet base = intersect(hits, null, priceFilter, conditionFilter, negotiableFilter);
+                facets.put(FACET_CATEGORY, countByValue(base, categoryBits));
+                base = intersect(hits, categoryFilter, null, conditionFilter, negotiableFilter);
+                facets.put(FACET_PRICE, countByPrice(base));
+                base = intersect(hits, categoryFilter, priceFilter, null, negotiableFilter);
+                facets.put(FACET_CONDITION, countByValue(base, conditionBits));
+                base = intersect(hits, categoryFilter, priceFilter, conditionFilter, null);
+                facets.put(FACET_NEGOTIABLE, countNegotiable(base));
+            }
+            return new SearchResult(total, productIds, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 求全部词项倒排链的交集，写入命中位图并记录每个命中文档的 BM25 分数
+     *
+     * @return 任一词项不存在时返回 false
+     */
+    private boolean collectKeywordHits(List<String> terms, BitSet hits, List<ScoredDoc> scored) {
+        List<PostingList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null || list.df == 0) {
+                return false;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.df));
+
+        int n = docIdByProduct.size();
+        double avgLength = n == 0 ? 1 : Math.max(totalLength / n, 1e-6);
+        float[] idf = new float[lists.size()];
+        for (int t = 0; t < lists.size(); t++) {
+            int df = lists.get(t).df;
+            idf[t] = (float) Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        }
+
+        PostingList shortest = lists.get(0);
+        for (int i = 0; i < shortest.size; i++) {
+            int docId = shortest.docIds[i];
+            if (!live.get(docId)) {
+                continue;
+            }
+            Document doc = docs.get(docId);
+            double score = bm25(idf[0], shortest.tfs[i], doc.length, avgLength);
+            boolean matched = true;
+            for (int t = 1; t < lists.size(); t++) {
+                PostingList list = lists.get(t);
+                int pos = list.indexOf(docId);
+                if (pos < 0) {
+                    matched = false;
+                    break;
+                }
+                score += bm25(idf[t], list.tfs[pos], doc.length, avgLength);
+            }
+            if (matched) {
+                hits.set(docId);
+                scored.add(new ScoredDoc(docId, doc.productId, score));
+            }
+        }
+        return true;
+    }
+
+    private List<Long> topByScore(List<ScoredDoc> scored, BitSet matched, int offset, int limit) {
+        int keep = offset + limit;
+        List<Long> productIds = new ArrayList<>();
+        if (keep <= 0) {
+            return productIds;
+        }
+        PriorityQueue<ScoredDoc> top = new PriorityQueue<>(keep, ScoredDoc.WORST_FIRST);
+        for (ScoredDoc doc : scored) {
+            if (matched.get(doc.docId)) {
+                top.offer(doc);
+                if (top.size() > keep) {
+                    top.poll();
+                }
+            }
+        }
+        List<ScoredDoc> ranked = new ArrayList<>(top);
+        ranked.sort(ScoredDoc.WORST_FIRST.reversed());
+        for (int i = offset; i < ranked.size(); i++) {
+            productIds.add(ranked.get(i).productId);
+        }
+        return productIds;
+    }
+
+    /**
+     * 无关键词时按发布时间倒序取页；文档号随每次更新重新分配，不能代表发布顺序
+     */
+    private List<Long> newestFirst(BitSet matched, int offset, int limit) {
+        int keep = offset + limit;
+        List<Long> productIds = new ArrayList<>();
+        if (keep <= 0) {
+            return productIds;
+        }
+        PriorityQueue<Document> top = new PriorityQueue<>(keep, Document.OLDEST_FIRST);
+        for (int docId = matched.nextSetBit(0); docId >= 0; docId = matched.nextSetBit(docId + 1)) {
+            top.offer(docs.get(docId));
+            if (top.size() > keep) {
+                top.poll();
+            }
+        }
+        List<Document> ranked = new ArrayList<>(top);
+        ranked.sort(Document.OLDEST_FIRST.reversed());
+        for (int i = offset; i < ranked.size(); i++) {
+            productIds.add(ranked.get(i).productId);
+        }
+        return productIds;
+    }
+
+    private BitSet priceFilter(BitSet hits, BigDecimal minPrice, BigDecimal maxPrice) {
+        BitSet result = new BitSet();
+        for (int docId = hits.nextSetBit(0); docId >= 0; docId = hits.nextSetBit(docId + 1)) {
+            BigDecimal price = docs.get(docId).price;
+            if (price == null) {
+                continue;
+            }
+            if ((minPrice == null || price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || price.compareTo(maxPrice) <= 0)) {
+                result.set(docId);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet intersect(BitSet hits, BitSet... filters) {
+        BitSet result = (BitSet) hits.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+
+    private static <K> Map<String, Integer> countByValue(BitSet base, Map<K, BitSet> bitsByValue) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<K, BitSet> entry : bitsByValue.entrySet()) {
+            BitSet bits = (BitSet) base.clone();
+            bits.and(entry.getValue());
+            int count = bits.cardinality();
+            if (count > 0) {
+                counts.put(String.valueOf(entry.getKey()), count);
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Integer> countByPrice(BitSet base) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < priceBits.length; i++) {
+            BitSet bits = (BitSet) base.clone();
+            bits.and(priceBits[i]);
+            counts.put(priceBucketKey(i), bits.cardinality());
+        }
+        return counts;
+    }
+
+    private Map<String, Integer> countNegotiable(BitSet base) {
+        BitSet yes = (BitSet) base.clone();
+        yes.and(negotiableBits);
+        int yesCount = yes.cardinality();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("true", yesCount);
+        counts.put("false", base.cardinality() - yesCount);
+        return counts;
+    }
+
+    private Map<String, Map<String, Integer>> emptyFacets() {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put(FACET_CATEGORY, new LinkedHashMap<>());
+        facets.put(FACET_PRICE, countByPrice(new BitSet()));
+        facets.put(FACET_CONDITION, new LinkedHashMap<>());
+        facets.put(FACET_NEGOTIABLE, countNegotiable(new BitSet()));
+        return facets;
+    }
+
+    /**
+     * 价格分桶键，形如 "50-100"，最后一个桶为 "1000-"
+     */
+    private String priceBucketKey(int bucket) {
+        String lower = bucket == 0 ? "0" : priceBounds[bucket - 1].stripTrailingZeros().toPlainString();
+        String upper = bucket < priceBounds.length ? priceBounds[bucket].stripTrailingZeros().toPlainString() : "";
+        return lower + "-" + upper;
+    }
+
+    private int priceBucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price.compareTo(priceBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private BitSet[] newPriceBits() {
+        BitSet[] bits = new BitSet[priceBounds.length + 1];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = new BitSet();
+        }
+        return bits;
+    }
+
+    private static double bm25(float idf, float tf, float length, double avgLength) {
+        return idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+    }
+
+    private void addInternal(Document doc) {
+        int docId = docs.size();
+        docs.add(doc);
+        docIdByProduct.put(doc.productId, docId);
+        live.set(docId);
+        totalLength += doc.length;
+        for (Map.Entry<String, Float> entry : doc.terms.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new PostingList()).add(docId, entry.getValue());
+        }
+        categoryBits.computeIfAbsent(doc.categoryId, k -> new BitSet()).set(docId);
+        if (doc.price != null) {
+            priceBits[priceBucketOf(doc.price)].set(docId);
+        }
+        if (doc.condition != null) {
+            conditionBits.computeIfAbsent(doc.condition, k -> new BitSet()).set(docId);
+        }
+        if (doc.negotiable) {
+            negotiableBits.set(docId);
+        }
+    }
+
+    private void removeInternal(long productId) {
+        Integer docId = docIdByProduct.remove(productId);
+        if (docId == null) {
+            return;
+        }
+        Document doc = docs.get(docId);
+        live.clear(docId);
+        docs.set(docId, null);
+        totalLength -= doc.length;
+        deletedCount++;
+        for (String term : doc.terms.keySet()) {
+            PostingList list = postings.get(term);
+            if (list != null && --list.df == 0) {
+                postings.remove(term);
+            }
+        }
+        clearFacetBit(categoryBits, doc.categoryId, docId);
+        if (doc.price != null) {
+            priceBits[priceBucketOf(doc.price)].clear(docId);
+        }
+        if (doc.condition != null) {
+            clearFacetBit(conditionBits, doc.condition, docId);
+        }
+        negotiableBits.clear(docId);
+    }
+
+    private static <K> void clearFacetBit(Map<K, BitSet> bitsByValue, K value, int docId) {
+        BitSet bits = bitsByValue.get(value);
+        if (bits != null) {
+            bits.clear(docId);
+            if (bits.isEmpty()) {
+                bitsByValue.remove(value);
+            }
+        }
+    }
+
+    /**
+     * 丢弃删除标记，按原顺序为在线文档重新编号并重建倒排链与分面位图
+     */
+    private void compact() {
+        List<Document> liveDocs = new ArrayList<>(docIdByProduct.size());
+        for (int docId = live.nextSetBit(0); docId >= 0; docId = live.nextSetBit(docId + 1)) {
+            liveDocs.add(docs.get(docId));
+        }
+        postings = new HashMap<>();
+        docs = new ArrayList<>(liveDocs.size());
+        docIdByProduct = new HashMap<>();
+        live = new BitSet();
+        deletedCount = 0;
+        totalLength = 0;
+        categoryBits = new HashMap<>();
+        priceBits = newPriceBits();
+        conditionBits = new HashMap<>();
+        negotiableBits = new BitSet();
+        for (Document doc : liveDocs) {
+            addInternal(doc);
+        }
+    }
+
+    /**
+     * 索引文档：商品ID、发布时间、过滤/分面字段以及按字段加权后的词频
+     */
+    public static class Document {
+        // 发布时间早者在前；同一时间时商品ID小者在前
+        static final Comparator<Document> OLDEST_FIRST = Comparator
+                .comparingLong((Document d) -> d.createTime)
+                .thenComparingLong(d -> d.productId);
+
+        final long productId;
+        final long createTime;
+        final long categoryId;
+        final BigDecimal price;
+        final String condition;
+        final boolean negotiable;
+        final Map<String, Float> terms;
+        final float length;
+
+        /**
+         * @param createTime 发布时间（毫秒时间戳），无关键词浏览时按它倒序
+         */
+        public Document(long productId, long createTime, long categoryId, BigDecimal price, String condition,
+                        boolean negotiable, Map<String, Float> terms) {
+            this.productId = productId;
+            this.createTime = createTime;
+            this.categoryId = categoryId;
+            this.price = price;
+            this.condition = condition;
+            this.negotiable = negotiable;
+            this.terms = terms;
+            float sum = 0;
+            for (float tf : terms.values()) {
+                sum += tf;
+            }
+            this.length = sum;
+        }
+    }
+
+    /**
+     * 检索条件，过滤字段为 null 表示不限
+     */
+    public static class SearchQuery {
+        private List<String> terms = new ArrayList<>();
+        private Long categoryId;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private String condition;
+        private Boolean negotiable;
+        private int offset;
+        private int limit = 10;
+        private boolean withFacets;
+
+        public SearchQuery terms(List<String> terms) {
+            this.terms = terms;
+            return this;
+        }
+
+        public SearchQuery category(Long categoryId) {
+            this.categoryId = categoryId;
+            return this;
+        }
+
+        public SearchQuery price(BigDecimal minPrice, BigDecimal maxPrice) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            return this;
+        }
+
+        public SearchQuery condition(String condition) {
+            this.condition = condition;
+            return this;
+        }
+
+        public SearchQuery negotiable(Boolean negotiable) {
+            this.negotiable = negotiable;
+            return this;
+        }
+
+        public SearchQuery page(int offset, int limit) {
+            this.offset = offset;
+            this.limit = limit;
+            return this;
+        }
+
+        public SearchQuery withFacets(boolean withFacets) {
+            this.withFacets = withFacets;
+            return this;
+        }
+    }
+
+    /**
+     * 检索结果：命中总数、当前页的商品ID（已排序）以及分面计数（分面名 -> 取值 -> 数量，未请求时为 null）
+     */
+    public static class SearchResult {
+        private final long total;
+        private final List<Long> productIds;
+        private final Map<String, Map<String, Integer>> facets;
+
+        public SearchResult(long total, List<Long> productIds, Map<String, Map<String, Integer>> facets) {
+            this.total = total;
+            this.productIds = productIds;
+            this.facets = facets;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        public Map<String, Map<String, Integer>> getFacets() {
+            return facets;
+        }
+    }
+
+    /**
+     * 倒排链：文档号严格递增追加（被删除的文档号保留在链中，查询时用存活位图过滤），
+     * df 只统计在线文档
+     */
+    private static final class PostingList {
+        int[] docIds = new int[4];
+        float[] tfs = new float[4];
+        int size;
+        int df;
+
+        void add(int docId, float tf) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docIds[size] = docId;
+            tfs[size] = tf;
+            size++;
+            df++;
+        }
+
+        int indexOf(int docId) {
+            return Arrays.binarySearch(docIds, 0, size, docId);
+        }
+    }
+
+    private static final class ScoredDoc {
+        // 分数低者在前；同分时商品ID小者在前（即更旧的商品先被淘汰）
+        static final Comparator<ScoredDoc> WORST_FIRST = Comparator
+                .comparingDouble((ScoredDoc d) -> d.score)
+                .thenComparingLong(d -> d.productId);
+
+        final int docId;
+        final long productId;
+        final double score;
+
+        ScoredDoc(int docId, long productId, double score) {
+            this.docId = docId;
+            this.productId = productId;
+            this.score = score;
+        }
+    }
+}
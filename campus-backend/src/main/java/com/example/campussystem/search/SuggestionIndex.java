@@ -0,0 +1,416 @@
+package com.example.campussystem.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 输入联想索引
+ * 以压缩前缀树（基数树）保存候选短语（商品标题、品牌、分类名），每个节点缓存其子树中权重最高的 K 个短语，
+ * 前缀查询只需沿树下行到前缀所在节点并直接返回该节点的缓存结果。
+ * 短语权重为所有贡献该短语的商品浏览量之和，商品变更或浏览量增加时沿路径增量维护各节点的 Top-K。
+ */
+public class SuggestionIndex {
+
+    // 过长的短语（如冗长标题）只截取前缀参与联想
+    private static final int MAX_PHRASE_LENGTH = 50;
+
+    private static final Comparator<Phrase> BEST_FIRST = Comparator
+            .comparingLong((Phrase p) -> p.weight).reversed()
+            .thenComparing(p -> p.key);
+
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+
+    // 规范化短语 -> 短语
+    private final Map<String, Phrase> phrases = new HashMap<>();
+
+    // 商品ID -> 该商品贡献的短语及权重
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    public SuggestionIndex(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * 设置商品贡献的短语及其权重（浏览量），替换该商品之前的贡献
+     */
+    public void put(long productId, List<String> texts, long weight) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            Set<String> keys = new LinkedHashSet<>();
+            for (String text : texts) {
+                String display = display(text);
+                if (display.isEmpty()) {
+                    continue;
+                }
+                String key = normalize(display);
+                if (!keys.add(key)) {
+                    continue;
+                }
+                Phrase phrase = phrases.get(key);
+                if (phrase == null) {
+                    phrase = new Phrase(key, display);
+                    phrases.put(key, phrase);
+                    phrase.weight = weight;
+                    phrase.refs = 1;
+                    insert(phrase);
+                } else {
+                    phrase.refs++;
+                    changeWeight(phrase, phrase.weight + weight);
+                }
+            }
+            contributions.put(productId, new Contribution(new ArrayList<>(keys), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除商品贡献的全部短语
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 商品浏览量增加时同步提升其短语的权重
+     */
+    public void addWeight(long productId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Contribution contribution = contributions.get(productId);
+            if (contribution == null || delta == 0) {
+                return;
+            }
+            contribution.weight += delta;
+            for (String key : contribution.keys) {
+                Phrase phrase = phrases.get(key);
+                if (phrase != null) {
+                    changeWeight(phrase, phrase.weight + delta);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 返回以 prefix 开头、权重最高的若干短语
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(display(prefix));
+        List<String> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    return result;
+                }
+                int common = commonPrefix(child.edge, key, i);
+                if (i + common == key.length()) {
+                    node = child;
+                    break;
+                }
+                if (common < child.edge.length()) {
+                    return result;
+                }
+                node = child;
+                i += common;
+            }
+            for (Phrase phrase : node.top) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(phrase.text);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 短语数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return phrases.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution == null) {
+            return;
+        }
+        for (String key : contribution.keys) {
+            Phrase phrase = phrases.get(key);
+            if (phrase == null) {
+                continue;
+            }
+            if (--phrase.refs == 0) {
+                phrases.remove(key);
+                delete(phrase);
+            } else {
+                changeWeight(phrase, phrase.weight - contribution.weight);
+            }
+        }
+    }
+
+    /**
+     * 插入新短语，必要时拆分边，然后自下而上把它并入路径上各节点的 Top-K
+     */
+    private void insert(Phrase phrase) {
+        String key = phrase.key;
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.child(c);
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                node.putChild(leaf);
+                node = leaf;
+                path.add(leaf);
+                i = key.length();
+                break;
+            }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                // 拆分：新建中间节点承接公共部分，原子节点下移
+                Node middle = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                middle.putChild(child);
+                middle.top = new ArrayList<>(child.top);
+                node.putChild(middle);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        node.terminal = phrase;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            offer(path.get(p), phrase);
+        }
+    }
+
+    /**
+     * 删除短语：清除终止标记，自下而上重算受影响节点的 Top-K，并回收空节点、合并单子节点链
+     */
+    private void delete(Phrase phrase) {
+        List<Node> path = findPath(phrase.key);
+        if (path == null) {
+            return;
+        }
+        Node target = path.get(path.size() - 1);
+        target.terminal = null;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node node = path.get(p);
+            if (node.top.contains(phrase)) {
+                recompute(node);
+            }
+        }
+        for (int p = path.size() - 1; p >= 1; p--) {
+            Node node = path.get(p);
+            Node parent = path.get(p - 1);
+            if (node.terminal == null && node.childCount() == 0) {
+                parent.removeChild(node);
+            } else if (node.terminal == null && node.childCount() == 1) {
+                Node only = node.onlyChild();
+                only.edge = node.edge + only.edge;
+                parent.putChild(only);
+            }
+        }
+    }
+
+    /**
+     * 调整短语权重：权重上升时逐层尝试并入 Top-K；下降时只重算原先包含它的节点
+     */
+    private void changeWeight(Phrase phrase, long newWeight) {
+        long oldWeight = phrase.weight;
+        if (newWeight == oldWeight) {
+            return;
+        }
+        List<Node> path = findPath(phrase.key);
+        if (path == null) {
+            phrase.weight = newWeight;
+            return;
+        }
+        // 先从各节点移除再修改权重，避免有序列表中的元素键值在原地变化
+        List<Boolean> contained = new ArrayList<>(path.size());
+        for (Node node : path) {
+            contained.add(node.top.remove(phrase));
+        }
+        phrase.weight = newWeight;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node node = path.get(p);
+            if (newWeight < oldWeight && contained.get(p)) {
+                recompute(node);
+            } else {
+                offer(node, phrase);
+            }
+        }
+    }
+
+    private void offer(Node node, Phrase phrase) {
+        List<Phrase> top = node.top;
+        if (top.contains(phrase)) {
+            top.sort(BEST_FIRST);
+            return;
+        }
+        if (top.size() >= topK && BEST_FIRST.compare(phrase, top.get(top.size() - 1)) >= 0) {
+            return;
+        }
+        int pos = 0;
+        while (pos < top.size() && BEST_FIRST.compare(top.get(pos), phrase) < 0) {
+            pos++;
+        }
+        top.add(pos, phrase);
+        if (top.size() > topK) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    /**
+     * 由自身终止短语与各子节点的 Top-K 合并得到本节点的 Top-K（子节点须已是最新）
+     */
+    private void recompute(Node node) {
+        List<Phrase> candidates = new ArrayList<>();
+        if (node.terminal != null) {
+            candidates.add(node.terminal);
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+        }
+        candidates.sort(BEST_FIRST);
+        node.top = new ArrayList<>(candidates.subList(0, Math.min(topK, candidates.size())));
+    }
+
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.edge, i)) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+            i += child.edge.length();
+        }
+        return path;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int n = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String display(String text) {
+        if (text == null) {
+            return "";
+        }
+        String collapsed = text.trim().replaceAll("\\s+", " ");
+        return collapsed.length() > MAX_PHRASE_LENGTH ? collapsed.substring(0, MAX_PHRASE_LENGTH) : collapsed;
+    }
+
+    private static String normalize(String display) {
+        return display.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        String edge;
+        Map<Character, Node> children;
+        Phrase terminal;
+        List<Phrase> top = new ArrayList<>(0);
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+
+        Node child(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        void putChild(Node child) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            children.put(child.edge.charAt(0), child);
+        }
+
+        void removeChild(Node child) {
+            if (children != null) {
+                children.remove(child.edge.charAt(0));
+                if (children.isEmpty()) {
+                    children = null;
+                }
+            }
+        }
+
+        int childCount() {
+            return children == null ? 0 : children.size();
+        }
+
+        Node onlyChild() {
+            return children.values().iterator().next();
+        }
+    }
+
+    private static final class Phrase {
+        final String key;
+        final String text;
+        long weight;
+        int refs;
+
+        Phrase(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private static final class Contribution {
+        final List<String> keys;
+        long weight;
+
+        Contribution(List<String> keys, long weight) {
+            this.keys = keys;
+            this.weight = weight;
+        }
+    }
+}
@@ -4,12 +4,14 @@ import com.example.campussystem.dto.ProductResponse;
 import com.example.campussystem.dto.UserProfileResponse;
 import com.example.campussystem.entity.Product;
 import com.example.campussystem.entity.User;
+import com.example.campussystem.event.ProductChangedEvent;
 import com.example.campussystem.exception.BusinessException;
 import com.example.campussystem.repository.CategoryRepository;
 import com.example.campussystem.repository.OrderRepository;
 import com.example.campussystem.repository.ProductRepository;
 import com.example.campussystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -46,6 +48,9 @@ public class AdminService {
     @Autowired
     private SystemLogService systemLogService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 获取系统统计信息
      */
@@ -184,6 +189,7 @@ public class AdminService {
         
         product.setStatus(status);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
     }
 
     /**
@@ -200,6 +206,7 @@ public class AdminService {
         }
         
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
     }
 
     /**
@@ -340,6 +347,7 @@ public class AdminService {
         List<Product> products = productRepository.findAllById(productIds);
         products.forEach(product -> product.setStatus(status));
         productRepository.saveAll(products);
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
     }
 
     /**
@@ -19,6 +19,9 @@ public class CacheEvictionService {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private CacheWarmUpService cacheWarmUpService;
+
     /**
      * 定时清理过期缓存（每小时执行一次）
      */
@@ -48,19 +51,7 @@ public class CacheEvictionService {
     public void cleanProductCaches() {
         logger.debug("清理商品相关缓存");
         
-        // 清理热门商品缓存（每小时更新）
-        Set<String> popularKeys = cacheService.keys("popular_products:*");
-        if (popularKeys != null && !popularKeys.isEmpty()) {
-            cacheService.delete(popularKeys);
-            logger.debug("清理了 {} 个热门商品缓存", popularKeys.size());
-        }
-        
-        // 清理最新商品缓存（每小时更新）
-        Set<String> latestKeys = cacheService.keys("latest_products:*");
-        if (latestKeys != null && !latestKeys.isEmpty()) {
-            cacheService.delete(latestKeys);
-            logger.debug("清理了 {} 个最新商品缓存", latestKeys.size());
-        }
+        // 热门、最新商品由榜单和时间线随商品变更增量维护，无需定时清理
     }
 
     /**
@@ -91,11 +82,9 @@ public class CacheEvictionService {
         
         try {
             // 清理商品缓存
-            cacheService.deleteByPattern("popular_products:*");
-            cacheService.deleteByPattern("latest_products:*");
             cacheService.deleteByPattern("product_detail:*");
-            cacheService.deleteByPattern("category_products:*");
-            cacheService.deleteByPattern("user_products:*");
+            cacheService.deleteByPattern("category_product_ids:*");
+            cacheService.deleteByPattern("user_product_ids:*");
             
             // 清理用户缓存
             cacheService.deleteByPattern("user_profile:*");
@@ -130,19 +119,11 @@ public class CacheEvictionService {
     }
 
     /**
-     * 预热缓存
+     * 预热缓存：分类树、热门/最新/各分类列表的前几页和浏览量最高的商品详情，在时间预算内并行加载
      */
-    public void warmUpCache() {
+    public CacheWarmUpService.WarmUpReport warmUpCache() {
         logger.info("开始预热缓存...");
-        
-        try {
-            // 这里可以预加载一些常用的数据到缓存中
-            // 例如：热门商品、分类树等
-            
-            logger.info("缓存预热完成");
-        } catch (Exception e) {
-            logger.error("缓存预热失败", e);
-        }
+        return cacheWarmUpService.warmUp();
     }
 
     /**
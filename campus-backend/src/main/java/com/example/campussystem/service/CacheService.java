@@ -1,42 +1,316 @@
 package com.example.campussystem.service;
 
+import com.example.campussystem.cache.CircuitBreaker;
+import com.example.campussystem.cache.LocalCache;
+import com.example.campussystem.cache.RefreshableValue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * 缓存服务类
+ * 两级缓存：进程内L1（按key前缀配置容量与TTL）+ Redis L2，
+ * 删除操作通过Redis发布订阅通知其他节点淘汰各自的L1。
+ * Redis访问经过熔断器：Redis变慢或宕机时读取视为未命中（回源数据库并写入L1），写入暂存到有界队列，恢复后补写。
  */
 @Service
 public class CacheService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+
+    // 本地缓存失效通知频道
+    private static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    // 命名空间代数计数器的key前缀
+    private static final String GENERATION_KEY_PREFIX = "cache:gen:";
+
+    // 按SCAN删除时每批处理的key数量
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    // 跨节点加载锁的key前缀及等待结果时的轮询间隔
+    private static final String LOAD_LOCK_KEY_PREFIX = "cache:load-lock:";
+    private static final long LOAD_LOCK_POLL_MILLIS = 50;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.cache.local.enabled:true}")
+    private boolean localCacheEnabled;
+
+    // 格式：前缀=最大条目数:TTL秒，多个策略用逗号分隔
+    @Value("${app.cache.local.policies:}")
+    private String localCachePolicies;
+
+    // 本地持有的命名空间代数最长信任时间，兜底发布订阅消息丢失的情况
+    @Value("${app.cache.generation.refresh-millis:5000}")
+    private long generationRefreshMillis;
+
+    // 是否用Redis锁在节点之间合并同一key的加载，只对 lock-key-prefixes 中列出的key生效
+    @Value("${app.cache.single-flight.lock-enabled:false}")
+    private boolean singleFlightLockEnabled;
+
+    // 使用跨节点加载锁的key前缀，逗号分隔；为空时不对任何key加锁
+    @Value("${app.cache.single-flight.lock-key-prefixes:}")
+    private String singleFlightLockKeyPrefixes;
+
+    // 加载锁的过期时间，应大于一次加载的正常耗时
+    @Value("${app.cache.single-flight.lock-ttl-millis:3000}")
+    private long singleFlightLockTtlMillis;
+
+    // 未抢到加载锁时等待其他节点结果的最长时间
+    @Value("${app.cache.single-flight.lock-wait-millis:1000}")
+    private long singleFlightLockWaitMillis;
+
+    // 本节点内等待同一key加载结果的最长时间
+    @Value("${app.cache.single-flight.wait-millis:5000}")
+    private long singleFlightWaitMillis;
+
+    // 后台刷新线程数及排队上限，队列满时放弃刷新，继续返回旧值直到硬过期
+    @Value("${app.cache.refresh.threads:2}")
+    private int refreshThreads;
+
+    @Value("${app.cache.refresh.queue-size:100}")
+    private int refreshQueueSize;
+
+    // XFetch提前刷新系数，越大越早刷新，0 表示到达软过期时间才刷新
+    @Value("${app.cache.refresh.xfetch-beta:1.0}")
+    private double xfetchBeta;
+
+    // Redis熔断：连续失败次数阈值、慢调用阈值（计为失败）、熔断持续时间
+    @Value("${app.cache.breaker.enabled:true}")
+    private boolean breakerEnabled;
+
+    @Value("${app.cache.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${app.cache.breaker.slow-call-millis:500}")
+    private long breakerSlowCallMillis;
+
+    @Value("${app.cache.breaker.open-millis:5000}")
+    private long breakerOpenMillis;
+
+    // Redis不可用期间暂存写入的条目上限，超出时丢弃最早的条目
+    @Value("${app.cache.breaker.write-behind-size:1000}")
+    private int writeBehindSize;
+
+    // Redis不可用期间未能执行的删除/命名空间失效的记录上限，超出时丢弃最早的记录，恢复后改为整体失效
+    @Value("${app.cache.breaker.pending-invalidation-size:10000}")
+    private int pendingInvalidationSize;
+
+    // 失效记录丢失后整体失效时，除命名空间外还要SCAN删除的key模式，逗号分隔
+    @Value("${app.cache.breaker.lost-invalidation-patterns:product_detail:*}")
+    private String lostInvalidationPatterns;
+
+    // 当前节点标识，用于忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 按前缀长度倒序排列，保证最长前缀优先匹配
+    private final List<LocalCache> localCaches = new ArrayList<>();
+    private final List<String> localCachePrefixes = new ArrayList<>();
+    private final List<String> loadLockPrefixes = new ArrayList<>();
+
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+    // 本节点用过的命名空间，失效记录丢失时与Redis中的代数计数器一起整体递增
+    private final Set<String> knownNamespaces = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+
+    // 正在加载的key -> 加载结果，供并发未命中的请求共享
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final LongAdder loaderCalls = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    // 后台刷新：正在刷新的key，避免同一key重复提交
+    private ThreadPoolExecutor refreshExecutor;
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder refreshRejected = new LongAdder();
+
+    // Redis熔断器及不可用期间的待写队列（按key去重，保留最新值）
+    private CircuitBreaker redisBreaker;
+    private final LinkedHashMap<String, PendingWrite> writeBehind = new LinkedHashMap<>();
+    private final AtomicBoolean recoveryRunning = new AtomicBoolean(false);
+    private volatile boolean writeBehindPending;
+
+    // Redis不可用期间未能执行的失效操作（类型:内容，类型同失效通知），恢复后先于待写条目重放
+    private final LinkedHashSet<String> pendingInvalidations = new LinkedHashSet<>();
+    private volatile boolean invalidationsPending;
+    // 失效记录超出上限、最早的记录被丢弃过：恢复后无法逐条重放，改为整体失效
+    private boolean invalidationsLost;
+    private final LongAdder invalidationsDeferred = new LongAdder();
+    private final LongAdder invalidationsDropped = new LongAdder();
+    private final LongAdder invalidationsReplayed = new LongAdder();
+    private final LongAdder writeBehindQueued = new LongAdder();
+    private final LongAdder writeBehindDropped = new LongAdder();
+    private final LongAdder writeBehindFlushed = new LongAdder();
+    private final LongAdder writeBehindExpired = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (localCacheEnabled && localCachePolicies != null && !localCachePolicies.isBlank()) {
+            List<String[]> policies = new ArrayList<>();
+            for (String policy : localCachePolicies.split(",")) {
+                String[] prefixAndSpec = policy.trim().split("=");
+                if (prefixAndSpec.length != 2) {
+                    logger.warn("忽略无效的本地缓存策略: {}", policy);
+                    continue;
+                }
+                policies.add(new String[]{prefixAndSpec[0].trim(), prefixAndSpec[1].trim()});
+            }
+            policies.sort((a, b) -> b[0].length() - a[0].length());
+            for (String[] policy : policies) {
+                String[] spec = policy[1].split(":");
+                int maxSize = Integer.parseInt(spec[0].trim());
+                long ttlSeconds = spec.length > 1 ? Long.parseLong(spec[1].trim()) : 60;
+                localCachePrefixes.add(policy[0]);
+                localCaches.add(new LocalCache(policy[0], maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds)));
+            }
+            logger.info("本地缓存已启用，策略: {}", localCachePrefixes);
+        }
+
+        if (singleFlightLockEnabled && singleFlightLockKeyPrefixes != null) {
+            for (String prefix : singleFlightLockKeyPrefixes.split(",")) {
+                if (!prefix.isBlank()) {
+                    loadLockPrefixes.add(prefix.trim());
+                }
+            }
+            logger.info("跨节点加载锁已启用，key前缀: {}", loadLockPrefixes);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refreshQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        refreshExecutor.allowCoreThreadTimeOut(true);
+
+        redisBreaker = new CircuitBreaker("redis", breakerFailureThreshold, breakerSlowCallMillis,
+                breakerOpenMillis, this::onBreakerStateChange);
+
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
     /**
      * 设置缓存
      */
     public void set(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value);
+        try {
+            redisRun(() -> redisTemplate.opsForValue().set(key, value));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            enqueueWriteBehind(key, value, 0);
+        }
+        putLocal(key, value, 0);
     }
 
     /**
      * 设置缓存并指定过期时间
      */
     public void set(String key, Object value, long timeout, TimeUnit unit) {
-        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        try {
+            redisRun(() -> redisTemplate.opsForValue().set(key, value, timeout, unit));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            enqueueWriteBehind(key, value, unit.toMillis(timeout));
+        }
+        putLocal(key, value, unit.toMillis(timeout));
     }
 
     /**
-     * 获取缓存
+     * 获取缓存，Redis不可用（含熔断中）时视为未命中，由调用方回源数据库
      */
     public Object get(String key) {
-        return redisTemplate.opsForValue().get(key);
+        LocalCache localCache = localCacheFor(key);
+        if (localCache != null) {
+            Object value = localCache.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        Object value;
+        try {
+            value = redisCall(() -> redisTemplate.opsForValue().get(key));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            return null;
+        }
+        if (value != null) {
+            redisHits.increment();
+            if (localCache != null) {
+                localCache.put(key, value, 0);
+            }
+        } else {
+            redisMisses.increment();
+        }
+        return value;
     }
 
     /**
@@ -44,185 +318,1234 @@ public class CacheService {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(String key, Class<T> clazz) {
-        Object value = redisTemplate.opsForValue().get(key);
+        Object value = get(key);
         return value != null ? (T) value : null;
     }
 
+    /**
+     * 读取缓存，未命中时调用 loader 加载并写入缓存（loader 返回 null 时不缓存）
+     * 同一节点上同一key的并发未命中只由第一个请求执行 loader，其余请求等待同一个 CompletableFuture 的结果；
+     * 对开启了跨节点合并的key前缀，加载前先抢占一个短期Redis锁，没抢到的节点轮询等待持锁节点写入的结果，超时后自行加载；
+     * 调用方处于事务中时不轮询等待（避免睡眠期间占住数据库连接），没抢到锁也直接加载。
+     * loader 抛出的异常会同样抛给所有等待者。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        Object cached = getQuietly(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlightLoads.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return (T) awaitFlight(key, existing, loader);
+        }
+
+        try {
+            Object value = getQuietly(key);
+            if (value == null) {
+                value = loadWithLock(key, timeout, unit, loader);
+            }
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, flight);
+        }
+    }
+
+    /**
+     * 读取缓存，缓存值带软、硬两级过期时间（stale-while-revalidate）
+     * 硬过期（key已不存在）时与 {@link #getOrLoad} 相同，同步加载且合并并发未命中；
+     * 超过软过期时间后立即返回旧值，并在后台线程池中刷新一次；软过期前按XFetch概率提前刷新，
+     * 使大量同时写入的key不会在同一时刻集中重建。
+     * loader 可能在后台线程中执行，不能依赖调用方的事务或请求上下文。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrRefresh(String key, long softTimeout, long hardTimeout, TimeUnit unit, Supplier<T> loader) {
+        Object cached = getQuietly(key);
+        if (cached == null) {
+            cached = getOrLoad(key, hardTimeout, unit, () -> loadRefreshable(loader, softTimeout, unit));
+        } else if (cached instanceof RefreshableValue) {
+            RefreshableValue entry = (RefreshableValue) cached;
+            long now = System.currentTimeMillis();
+            if (entry.shouldRefresh(now, xfetchBeta, 1d - ThreadLocalRandom.current().nextDouble())) {
+                if (now >= entry.getSoftExpireAt()) {
+                    staleServed.increment();
+                } else {
+                    earlyRefreshes.increment();
+                }
+                scheduleRefresh(key, softTimeout, hardTimeout, unit, loader);
+            }
+        }
+        // 升级前按普通方式写入的值直接返回，到期后自然替换为新格式
+        return (T) (cached instanceof RefreshableValue ? ((RefreshableValue) cached).getValue() : cached);
+    }
+
+    private RefreshableValue loadRefreshable(Supplier<?> loader, long softTimeout, TimeUnit unit) {
+        long start = System.currentTimeMillis();
+        Object value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        long end = System.currentTimeMillis();
+        return new RefreshableValue(value, end + unit.toMillis(softTimeout), end - start);
+    }
+
+    /**
+     * 提交后台刷新；同一key在本节点同时只刷新一次，多节点之间用加载锁去重，抢不到锁说明其他节点正在刷新
+     */
+    private void scheduleRefresh(String key, long softTimeout, long hardTimeout, TimeUnit unit, Supplier<?> loader) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                String lockKey = LOAD_LOCK_KEY_PREFIX + key;
+                boolean locked = false;
+                try {
+                    locked = usesLoadLock(key) && Boolean.TRUE.equals(redisCall(() -> stringRedisTemplate
+                            .opsForValue().setIfAbsent(lockKey, nodeId, singleFlightLockTtlMillis, TimeUnit.MILLISECONDS)));
+                    if (usesLoadLock(key) && !locked) {
+                        return;
+                    }
+                    refreshes.increment();
+                    RefreshableValue value = loadRefreshable(loader, softTimeout, unit);
+                    if (value != null) {
+                        set(key, value, hardTimeout, unit);
+                    }
+                } catch (Exception e) {
+                    refreshFailures.increment();
+                    logger.warn("后台刷新缓存失败, key={}: {}", key, e.getMessage());
+                } finally {
+                    if (locked) {
+                        try {
+                            redisRun(() -> stringRedisTemplate.delete(lockKey));
+                        } catch (Exception e) {
+                            logger.debug("释放加载锁失败, key={}: {}", key, e.getMessage());
+                        }
+                    }
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+            refreshRejected.increment();
+        }
+    }
+
+    private Object loadWithLock(String key, long timeout, TimeUnit unit, Supplier<?> loader) {
+        String lockKey = LOAD_LOCK_KEY_PREFIX + key;
+        boolean locked = false;
+        if (usesLoadLock(key)) {
+            try {
+                locked = Boolean.TRUE.equals(redisCall(() -> stringRedisTemplate.opsForValue()
+                        .setIfAbsent(lockKey, nodeId, singleFlightLockTtlMillis, TimeUnit.MILLISECONDS)));
+                if (!locked && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                    // 其他节点正在加载：轮询等待其结果，超时后自行加载
+                    long deadline = System.currentTimeMillis() + singleFlightLockWaitMillis;
+                    while (System.currentTimeMillis() < deadline) {
+                        Thread.sleep(LOAD_LOCK_POLL_MILLIS);
+                        Object value = getQuietly(key);
+                        if (value != null) {
+                            coalescedLoads.increment();
+                            return value;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.debug("获取加载锁失败, key={}: {}", key, e.getMessage());
+            }
+        }
+
+        try {
+            loaderCalls.increment();
+            Object value = loader.get();
+            if (value != null) {
+                try {
+                    set(key, value, timeout, unit);
+                } catch (Exception e) {
+                    logger.warn("写入缓存失败, key={}: {}", key, e.getMessage());
+                }
+            }
+            return value;
+        } finally {
+            if (locked) {
+                try {
+                    redisRun(() -> stringRedisTemplate.delete(lockKey));
+                } catch (Exception e) {
+                    logger.debug("释放加载锁失败, key={}: {}", key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * key是否使用跨节点加载锁
+     */
+    private boolean usesLoadLock(String key) {
+        for (String prefix : loadLockPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object awaitFlight(String key, CompletableFuture<Object> flight, Supplier<?> loader) {
+        try {
+            return flight.get(singleFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            // 加载方长时间未返回，不再等待，自行加载
+            logger.warn("等待缓存加载超时，直接加载, key={}", key);
+            loaderCalls.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待缓存加载被中断", e);
+        }
+    }
+
+    /**
+     * 读取缓存，Redis不可用时视为未命中
+     */
+    private Object getQuietly(String key) {
+        try {
+            return get(key);
+        } catch (Exception e) {
+            logger.warn("读取缓存失败, key={}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 批量获取缓存，结果与keys一一对应，未命中的位置为null
+     * 先查本地缓存，剩余的key通过一次MGET从Redis读取；Redis不可用时只返回本地缓存命中的值
+     */
+    public List<Object> multiGet(List<String> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        List<Integer> missingIndexes = new ArrayList<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            LocalCache localCache = localCacheFor(key);
+            Object value = localCache != null ? localCache.get(key) : null;
+            values.add(value);
+            if (value == null) {
+                missingIndexes.add(i);
+                missingKeys.add(key);
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return values;
+        }
+
+        List<Object> loaded;
+        try {
+            loaded = redisBulkCall(() -> redisTemplate.opsForValue().multiGet(missingKeys));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            return values;
+        }
+        for (int i = 0; i < missingKeys.size(); i++) {
+            Object value = loaded != null && i < loaded.size() ? loaded.get(i) : null;
+            if (value != null) {
+                redisHits.increment();
+                values.set(missingIndexes.get(i), value);
+                LocalCache localCache = localCacheFor(missingKeys.get(i));
+                if (localCache != null) {
+                    localCache.put(missingKeys.get(i), value, 0);
+                }
+            } else {
+                redisMisses.increment();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 批量获取并按类型过滤，结果与keys一一对应，未命中或类型不符的位置为null
+     * 带软过期时间的值（见 {@link #getOrRefresh}）返回其中的数据
+     */
+    public <T> List<T> multiGet(List<String> keys, Class<T> type) {
+        List<Object> values = multiGet(keys);
+        List<T> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value instanceof RefreshableValue && !type.isInstance(value)) {
+                value = ((RefreshableValue) value).getValue();
+            }
+            result.add(type.isInstance(value) ? type.cast(value) : null);
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入，所有key使用相同的过期时间；在一次管道中发送全部 SET PX 命令
+     */
+    public void multiSet(Map<String, ?> entries, long timeout, TimeUnit unit) {
+        Map<String, Long> timeouts = new HashMap<>();
+        long millis = unit.toMillis(timeout);
+        for (String key : entries.keySet()) {
+            timeouts.put(key, millis);
+        }
+        multiSet(entries, timeouts);
+    }
+
+    /**
+     * 批量写入，每个key单独指定过期时间（毫秒，缺失或不大于 0 表示不过期）；在一次管道中发送全部 SET 命令，
+     * 本地缓存的失效通知合并为一条消息
+     */
+    @SuppressWarnings("unchecked")
+    public void multiSet(Map<String, ?> entries, Map<String, Long> timeoutMillis) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        // 先在调用线程完成序列化，管道内只发送命令
+        Map<String, byte[]> raw = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            raw.put(entry.getKey(), valueSerializer.serialize(entry.getValue()));
+        }
+        try {
+            redisBulkRun(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, byte[]> entry : raw.entrySet()) {
+                    Long ttl = timeoutMillis.get(entry.getKey());
+                    Expiration expiration = ttl != null && ttl > 0
+                            ? Expiration.milliseconds(ttl) : Expiration.persistent();
+                    connection.stringCommands().set(entry.getKey().getBytes(StandardCharsets.UTF_8),
+                            entry.getValue(), expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            for (Map.Entry<String, ?> entry : entries.entrySet()) {
+                Long ttl = timeoutMillis.get(entry.getKey());
+                enqueueWriteBehind(entry.getKey(), entry.getValue(), ttl != null && ttl > 0 ? ttl : 0);
+            }
+        }
+
+        List<String> localKeys = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            LocalCache localCache = localCacheFor(entry.getKey());
+            if (localCache != null && entry.getValue() != null) {
+                Long ttl = timeoutMillis.get(entry.getKey());
+                localCache.put(entry.getKey(), entry.getValue(), ttl != null && ttl > 0 ? ttl : 0);
+                localKeys.add(entry.getKey());
+            }
+        }
+        publishInvalidation(localKeys);
+    }
+
+    /**
+     * 批量删除：一条UNLINK命令删除全部key（在后台线程释放内存），本地缓存的失效通知合并为一条消息
+     */
+    public Long multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0L;
+        }
+        for (String key : keys) {
+            removeWriteBehind(key);
+        }
+        return unlinkKeys(keys);
+    }
+
     /**
      * 删除缓存
      */
     public Boolean delete(String key) {
-        return redisTemplate.delete(key);
+        removeWriteBehind(key);
+        return unlinkKeys(List.of(key)) > 0;
+    }
+
+    /**
+     * 淘汰L1并删除Redis中的key；Redis不可用时记录待重放，不向调用方抛出异常，
+     * 避免缓存故障导致业务写操作回滚
+     */
+    private long unlinkKeys(Collection<String> keys) {
+        List<String> localKeys = new ArrayList<>();
+        for (String key : keys) {
+            if (evictLocal(key)) {
+                localKeys.add(key);
+            }
+        }
+        publishInvalidation(localKeys);
+        try {
+            Long removed = keys.size() > 1
+                    ? redisBulkCall(() -> redisTemplate.unlink(keys))
+                    : redisCall(() -> redisTemplate.unlink(keys));
+            return removed != null ? removed : 0L;
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            for (String key : keys) {
+                deferInvalidation("K", key);
+            }
+            return 0L;
+        }
     }
 
     /**
      * 批量删除缓存
      */
     public Long delete(Collection<String> keys) {
-        return redisTemplate.delete(keys);
+        return multiDelete(keys);
+    }
+
+    /**
+     * 仅当key不存在时设置（SET NX），用于跨节点的简单互斥
+     */
+    public Boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        return redisCall(() -> redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit));
     }
 
     /**
      * 检查key是否存在
      */
     public Boolean hasKey(String key) {
-        return redisTemplate.hasKey(key);
+        return redisCall(() -> redisTemplate.hasKey(key));
     }
 
     /**
      * 设置过期时间
      */
     public Boolean expire(String key, long timeout, TimeUnit unit) {
-        return redisTemplate.expire(key, timeout, unit);
+        return redisCall(() -> redisTemplate.expire(key, timeout, unit));
     }
 
     /**
      * 获取过期时间
      */
     public Long getExpire(String key) {
-        return redisTemplate.getExpire(key);
+        return redisCall(() -> redisTemplate.getExpire(key));
     }
 
     /**
-     * 模糊查询key
+     * 模糊查询key（基于SCAN游标迭代，不会像KEYS一样阻塞Redis）
      */
     public Set<String> keys(String pattern) {
-        return redisTemplate.keys(pattern);
+        Set<String> keys = new HashSet<>();
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
+        redisBulkRun(() -> {
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+        });
+        return keys;
     }
 
     /**
      * 删除匹配的key
+     * 仅用于管理类的低频操作，业务代码的批量失效应使用 {@link #invalidateNamespace(String)}
      */
     public void deleteByPattern(String pattern) {
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
+        Predicate<String> matcher = globToPredicate(pattern);
+        synchronized (writeBehind) {
+            writeBehind.keySet().removeIf(matcher);
+        }
+        deletePattern(pattern);
+    }
+
+    private void deletePattern(String pattern) {
+        if (!localCaches.isEmpty()) {
+            evictLocalByPattern(pattern);
+            publishInvalidation("P", pattern);
+        }
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
+        try {
+            redisBulkRun(() -> {
+                List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+                try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() >= SCAN_BATCH_SIZE) {
+                            redisTemplate.delete(batch);
+                            batch.clear();
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    redisTemplate.delete(batch);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            deferInvalidation("P", pattern);
+        }
+    }
+
+    /**
+     * 生成带命名空间代数的缓存key：namespace + "v{代数}:" + suffix
+     * 命名空间失效后代数递增，旧key不再被读取，随TTL自然过期
+     */
+    public String versionedKey(String namespace, String suffix) {
+        knownNamespaces.add(namespace);
+        return namespace + "v" + currentGeneration(namespace) + ":" + suffix;
+    }
+
+    /**
+     * 使整个命名空间下的缓存失效，代价为一次INCR，与key数量无关
+     */
+    public void invalidateNamespace(String namespace) {
+        Long generation;
+        try {
+            generation = redisCall(() -> stringRedisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + namespace));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            // 代数无法递增：先淘汰本机L1中该命名空间的key，Redis恢复后再递增
+            evictLocalByPattern(namespace + "*");
+            deferInvalidation("G", namespace);
+            return;
+        }
+        if (generation != null) {
+            generations.put(namespace, new Generation(generation, System.currentTimeMillis()));
+        } else {
+            generations.remove(namespace);
         }
+        publishInvalidation("G", namespace);
+    }
+
+    /**
+     * 获取命名空间当前代数，优先使用本地值，过期后回源Redis
+     */
+    private long currentGeneration(String namespace) {
+        long now = System.currentTimeMillis();
+        Generation generation = generations.get(namespace);
+        if (generation != null && now - generation.loadedAt < generationRefreshMillis) {
+            return generation.value;
+        }
+        String value;
+        try {
+            value = redisCall(() -> stringRedisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + namespace));
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            // Redis不可用时沿用本地已知的代数，读写都会回源数据库，不影响正确性
+            return generation != null ? generation.value : 0L;
+        }
+        long current = value != null ? Long.parseLong(value) : 0L;
+        generations.put(namespace, new Generation(current, now));
+        return current;
     }
 
     /**
      * 列表操作 - 左推
      */
     public Long leftPush(String key, Object value) {
-        return redisTemplate.opsForList().leftPush(key, value);
+        return redisCall(() -> redisTemplate.opsForList().leftPush(key, value));
     }
 
     /**
      * 列表操作 - 右推
      */
     public Long rightPush(String key, Object value) {
-        return redisTemplate.opsForList().rightPush(key, value);
+        return redisCall(() -> redisTemplate.opsForList().rightPush(key, value));
     }
 
     /**
      * 列表操作 - 左弹
      */
     public Object leftPop(String key) {
-        return redisTemplate.opsForList().leftPop(key);
+        return redisCall(() -> redisTemplate.opsForList().leftPop(key));
     }
 
     /**
      * 列表操作 - 右弹
      */
     public Object rightPop(String key) {
-        return redisTemplate.opsForList().rightPop(key);
+        return redisCall(() -> redisTemplate.opsForList().rightPop(key));
     }
 
     /**
      * 列表操作 - 获取范围内的元素
      */
     public List<Object> range(String key, long start, long end) {
-        return redisTemplate.opsForList().range(key, start, end);
+        return redisCall(() -> redisTemplate.opsForList().range(key, start, end));
     }
 
     /**
      * 列表操作 - 获取列表长度
      */
     public Long listSize(String key) {
-        return redisTemplate.opsForList().size(key);
+        return redisCall(() -> redisTemplate.opsForList().size(key));
     }
 
     /**
      * 哈希操作 - 设置
      */
     public void hSet(String key, String hashKey, Object value) {
-        redisTemplate.opsForHash().put(key, hashKey, value);
+        redisRun(() -> redisTemplate.opsForHash().put(key, hashKey, value));
     }
 
     /**
      * 哈希操作 - 获取
      */
     public Object hGet(String key, String hashKey) {
-        return redisTemplate.opsForHash().get(key, hashKey);
+        return redisCall(() -> redisTemplate.opsForHash().get(key, hashKey));
+    }
+
+    /**
+     * 哈希操作 - 批量设置（一次HMSET）
+     */
+    public void hSetAll(String key, Map<String, Object> entries) {
+        redisBulkRun(() -> redisTemplate.opsForHash().putAll(key, entries));
     }
 
     /**
      * 哈希操作 - 删除
      */
     public Long hDelete(String key, Object... hashKeys) {
-        return redisTemplate.opsForHash().delete(key, hashKeys);
+        return redisCall(() -> redisTemplate.opsForHash().delete(key, hashKeys));
     }
 
     /**
      * 哈希操作 - 检查是否存在
      */
     public Boolean hHasKey(String key, String hashKey) {
-        return redisTemplate.opsForHash().hasKey(key, hashKey);
+        return redisCall(() -> redisTemplate.opsForHash().hasKey(key, hashKey));
     }
 
     /**
      * 集合操作 - 添加
      */
     public Long sAdd(String key, Object... values) {
-        return redisTemplate.opsForSet().add(key, values);
+        return redisCall(() -> redisTemplate.opsForSet().add(key, values));
     }
 
     /**
      * 集合操作 - 移除
      */
     public Long sRemove(String key, Object... values) {
-        return redisTemplate.opsForSet().remove(key, values);
+        return redisCall(() -> redisTemplate.opsForSet().remove(key, values));
     }
 
     /**
      * 集合操作 - 检查是否存在
      */
     public Boolean sIsMember(String key, Object value) {
-        return redisTemplate.opsForSet().isMember(key, value);
+        return redisCall(() -> redisTemplate.opsForSet().isMember(key, value));
     }
 
     /**
      * 集合操作 - 获取所有成员
      */
     public Set<Object> sMembers(String key) {
-        return redisTemplate.opsForSet().members(key);
+        return redisCall(() -> redisTemplate.opsForSet().members(key));
     }
 
     /**
      * 有序集合操作 - 添加
      */
     public Boolean zAdd(String key, Object value, double score) {
-        return redisTemplate.opsForZSet().add(key, value, score);
+        return redisCall(() -> redisTemplate.opsForZSet().add(key, value, score));
     }
 
     /**
      * 有序集合操作 - 移除
      */
     public Long zRemove(String key, Object... values) {
-        return redisTemplate.opsForZSet().remove(key, values);
+        return redisCall(() -> redisTemplate.opsForZSet().remove(key, values));
     }
 
     /**
      * 有序集合操作 - 获取范围内的元素
      */
     public Set<Object> zRange(String key, long start, long end) {
-        return redisTemplate.opsForZSet().range(key, start, end);
+        return redisCall(() -> redisTemplate.opsForZSet().range(key, start, end));
     }
 
     /**
      * 有序集合操作 - 获取倒序范围内的元素
      */
     public Set<Object> zReverseRange(String key, long start, long end) {
-        return redisTemplate.opsForZSet().reverseRange(key, start, end);
+        return redisCall(() -> redisTemplate.opsForZSet().reverseRange(key, start, end));
+    }
+
+    /**
+     * 有序集合操作 - 批量添加（member -> score）
+     */
+    public Long zAddAll(String key, Map<Object, Double> scores) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+        for (Map.Entry<Object, Double> entry : scores.entrySet()) {
+            tuples.add(ZSetOperations.TypedTuple.of(entry.getKey(), entry.getValue()));
+        }
+        return redisBulkCall(() -> redisTemplate.opsForZSet().add(key, tuples));
+    }
+
+    /**
+     * 有序集合操作 - 增加成员分数
+     */
+    public Double zIncrementScore(String key, Object value, double delta) {
+        return redisCall(() -> redisTemplate.opsForZSet().incrementScore(key, value, delta));
+    }
+
+    /**
+     * 有序集合操作 - 仅当成员已存在时增加分数（ZADD key XX INCR），一条命令完成判断与累加
+     *
+     * @return 累加后的分数；成员不存在时不新增，返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public Double zIncrementScoreIfPresent(String key, Object value, double delta) {
+        byte[] rawValue = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+        Object reply = redisCall(() -> redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("ZADD",
+                key.getBytes(StandardCharsets.UTF_8), "XX".getBytes(StandardCharsets.UTF_8),
+                "INCR".getBytes(StandardCharsets.UTF_8), String.valueOf(delta).getBytes(StandardCharsets.UTF_8), rawValue)));
+        return reply instanceof byte[] ? Double.valueOf(new String((byte[]) reply, StandardCharsets.UTF_8)) : null;
+    }
+
+    /**
+     * 有序集合操作 - 获取成员分数，成员不存在时返回null
+     */
+    public Double zScore(String key, Object value) {
+        return redisCall(() -> redisTemplate.opsForZSet().score(key, value));
+    }
+
+    /**
+     * 有序集合操作 - 获取成员数量
+     */
+    public Long zCard(String key) {
+        return redisCall(() -> redisTemplate.opsForZSet().zCard(key));
+    }
+
+    /**
+     * 重命名key（目标key已存在时被覆盖），用于先在临时key中构建再原子替换
+     */
+    public void rename(String oldKey, String newKey) {
+        redisRun(() -> redisTemplate.rename(oldKey, newKey));
+    }
+
+    /**
+     * 以原始字节写入（不经过值序列化），用于位图等需要Redis原生格式的数据
+     */
+    public void setBytes(String key, byte[] value) {
+        redisBulkRun(() -> stringRedisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), value)));
+    }
+
+    /**
+     * 以原始字节读取，key不存在时返回 null
+     */
+    public byte[] getBytes(String key) {
+        return redisBulkCall(() -> stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 在一次管道中把位图的多个偏移置为 1（SETBIT）
+     */
+    public void setBits(String key, long[] offsets) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        redisBulkRun(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.stringCommands().setBit(rawKey, offset, true);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * 经熔断器执行Redis操作：熔断中直接抛出 RedisConnectionFailureException，不再等待命令超时；
+     * 只有连接失败和超时计入失败，命令错误、序列化错误等照常抛出但不影响熔断状态。
+     * 其他直接使用 RedisTemplate 的组件（发布订阅中继、会话注册表等）也应通过它访问Redis，共享同一个熔断状态
+     */
+    public <T> T redisCall(Supplier<T> operation) {
+        return redisCall(operation, true);
+    }
+
+    public void redisRun(Runnable operation) {
+        redisCall(() -> {
+            operation.run();
+            return null;
+        }, true);
+    }
+
+    /**
+     * 批量操作（管道、SCAN、大值读写等）同样经过熔断器，但耗时与数据量相关，不按慢调用计为失败，
+     * 避免Redis健康时几次正常的大批量操作就打开熔断
+     */
+    private <T> T redisBulkCall(Supplier<T> operation) {
+        return redisCall(operation, false);
+    }
+
+    private void redisBulkRun(Runnable operation) {
+        redisCall(() -> {
+            operation.run();
+            return null;
+        }, false);
+    }
+
+    private <T> T redisCall(Supplier<T> operation, boolean countSlow) {
+        if (!breakerEnabled) {
+            return operation.get();
+        }
+        if (!redisBreaker.tryAcquire()) {
+            throw new RedisConnectionFailureException("Redis熔断中，暂停访问");
+        }
+        long start = System.nanoTime();
+        boolean healthy = false;
+        try {
+            T result = operation.get();
+            healthy = true;
+            return result;
+        } catch (RuntimeException e) {
+            healthy = !isRedisUnavailable(e);
+            throw e;
+        } finally {
+            redisBreaker.onResult(healthy, countSlow ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) : 0);
+            if (healthy && (invalidationsPending || writeBehindPending)
+                    && redisBreaker.getState() == CircuitBreaker.State.CLOSED) {
+                scheduleRecovery();
+            }
+        }
+    }
+
+
+    /**
+     * 异常是否表示Redis不可用（连接失败、命令超时或熔断中）
+     */
+    private static boolean isRedisUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onBreakerStateChange(CircuitBreaker.State from, CircuitBreaker.State to) {
+        if (to == CircuitBreaker.State.OPEN) {
+            logger.warn("Redis熔断已打开，{} ms 内的缓存访问直接回源数据库和本地缓存", breakerOpenMillis);
+        } else if (to == CircuitBreaker.State.CLOSED) {
+            // 熔断期间其他节点的失效通知可能丢失，本地缓存整体作废
+            clearLocal();
+            generations.clear();
+            logger.info("Redis已恢复，熔断关闭，待重放失效 {} 条，待写入 {} 条",
+                    pendingInvalidationCount(), writeBehindSize());
+            scheduleRecovery();
+        }
+    }
+
+    /**
+     * 记录Redis不可用时未能执行的失效操作，重复的记录只保留一条
+     */
+    private void deferInvalidation(String type, String keyOrPattern) {
+        synchronized (pendingInvalidations) {
+            if (pendingInvalidations.add(type + ":" + keyOrPattern)) {
+                invalidationsDeferred.increment();
+            }
+            if (pendingInvalidations.size() > pendingInvalidationSize) {
+                Iterator<String> eldest = pendingInvalidations.iterator();
+                eldest.next();
+                eldest.remove();
+                invalidationsDropped.increment();
+                if (!invalidationsLost) {
+                    invalidationsLost = true;
+                    logger.warn("待重放的缓存失效超过 {} 条，Redis恢复后将整体失效", pendingInvalidationSize);
+                }
+            }
+            invalidationsPending = true;
+        }
+    }
+
+    private int pendingInvalidationCount() {
+        synchronized (pendingInvalidations) {
+            return pendingInvalidations.size();
+        }
+    }
+
+    /**
+     * 重放失效记录：删除熔断期间未能删除的key、递增未能递增的命名空间代数。
+     * 重放中途Redis再次不可用时，未完成的操作会重新记录
+     */
+    private void replayInvalidations() {
+        List<String> pending;
+        boolean lost;
+        synchronized (pendingInvalidations) {
+            pending = new ArrayList<>(pendingInvalidations);
+            pendingInvalidations.clear();
+            invalidationsPending = false;
+            lost = invalidationsLost;
+            invalidationsLost = false;
+        }
+        if (lost) {
+            invalidateAfterLoss();
+        }
+        List<String> keys = new ArrayList<>();
+        for (String entry : pending) {
+            String value = entry.substring(2);
+            switch (entry.charAt(0)) {
+                case 'K' -> keys.add(value);
+                case 'G' -> invalidateNamespace(value);
+                case 'P' -> deletePattern(value);
+                default -> logger.warn("忽略无效的失效记录: {}", entry);
+            }
+        }
+        for (int i = 0; i < keys.size(); i += SCAN_BATCH_SIZE) {
+            unlinkKeys(keys.subList(i, Math.min(keys.size(), i + SCAN_BATCH_SIZE)));
+        }
+        invalidationsReplayed.add(pending.size());
+    }
+
+    /**
+     * 失效记录丢失后的整体失效：递增所有已知命名空间的代数（本节点用过的和Redis中已有计数器的），
+     * 并按配置的模式SCAN删除非命名空间的缓存（商品详情等）。中途Redis再次不可用时重新标记，下次恢复时重做
+     */
+    private void invalidateAfterLoss() {
+        Set<String> namespaces = new HashSet<>(knownNamespaces);
+        ScanOptions options = ScanOptions.scanOptions().match(GENERATION_KEY_PREFIX + "*").count(SCAN_BATCH_SIZE).build();
+        try {
+            redisBulkRun(() -> {
+                try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                    while (cursor.hasNext()) {
+                        namespaces.add(cursor.next().substring(GENERATION_KEY_PREFIX.length()));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!isRedisUnavailable(e)) {
+                throw e;
+            }
+            synchronized (pendingInvalidations) {
+                invalidationsLost = true;
+                invalidationsPending = true;
+            }
+            return;
+        }
+        logger.warn("缓存失效记录曾丢失，整体失效 {} 个命名空间及模式 {}", namespaces.size(), lostInvalidationPatterns);
+        for (String namespace : namespaces) {
+            invalidateNamespace(namespace);
+        }
+        for (String pattern : lostInvalidationPatterns.split(",")) {
+            if (!pattern.isBlank()) {
+                deletePattern(pattern.trim());
+            }
+        }
+    }
+
+    /**
+     * Redis不可用时暂存写入，恢复后补写；timeoutMillis 不大于 0 表示不过期
+     */
+    private void enqueueWriteBehind(String key, Object value, long timeoutMillis) {
+        if (value == null || writeBehindSize <= 0) {
+            return;
+        }
+        long expireAt = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+        synchronized (writeBehind) {
+            writeBehind.remove(key);
+            writeBehind.put(key, new PendingWrite(value, expireAt));
+            if (writeBehind.size() > writeBehindSize) {
+                Iterator<String> eldest = writeBehind.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                writeBehindDropped.increment();
+            }
+            writeBehindPending = true;
+        }
+        writeBehindQueued.increment();
+    }
+
+    /**
+     * 删除key时同时丢弃其待写条目，避免恢复后把已失效的值写回
+     */
+    private void removeWriteBehind(String key) {
+        synchronized (writeBehind) {
+            writeBehind.remove(key);
+        }
+    }
+
+    private int writeBehindSize() {
+        synchronized (writeBehind) {
+            return writeBehind.size();
+        }
+    }
+
+    /**
+     * Redis恢复后在后台先重放失效记录，再补写待写条目；待写条目使用 SET NX，
+     * 必须先删除熔断期间本应删除的旧值才能写入
+     */
+    private void scheduleRecovery() {
+        if (!recoveryRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    replayInvalidations();
+                    flushWriteBehind();
+                } catch (Exception e) {
+                    logger.warn("Redis恢复后重放缓存操作失败: {}", e.getMessage());
+                } finally {
+                    recoveryRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recoveryRunning.set(false);
+        }
+    }
+
+    /**
+     * 补写待写条目：用 SET NX 写入剩余的过期时间，恢复后其他节点已写入的新值不会被覆盖；
+     * 补写中途再次失败时未写入的条目放回队列
+     */
+    private void flushWriteBehind() {
+        while (true) {
+            String key;
+            PendingWrite pending;
+            synchronized (writeBehind) {
+                Iterator<Map.Entry<String, PendingWrite>> iterator = writeBehind.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    writeBehindPending = false;
+                    return;
+                }
+                Map.Entry<String, PendingWrite> eldest = iterator.next();
+                iterator.remove();
+                key = eldest.getKey();
+                pending = eldest.getValue();
+            }
+            long ttl = pending.expireAt > 0 ? pending.expireAt - System.currentTimeMillis() : 0;
+            if (pending.expireAt > 0 && ttl <= 0) {
+                writeBehindExpired.increment();
+                continue;
+            }
+            try {
+                redisRun(() -> {
+                    if (ttl > 0) {
+                        redisTemplate.opsForValue().setIfAbsent(key, pending.value, ttl, TimeUnit.MILLISECONDS);
+                    } else {
+                        redisTemplate.opsForValue().setIfAbsent(key, pending.value);
+                    }
+                });
+                writeBehindFlushed.increment();
+            } catch (Exception e) {
+                if (isRedisUnavailable(e)) {
+                    synchronized (writeBehind) {
+                        writeBehind.putIfAbsent(key, pending);
+                    }
+                    return;
+                }
+                logger.warn("补写缓存失败, key={}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取各级缓存的命中统计
+     */
+    public Map<String, Object> getTierStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Map<String, Object>> local = new ArrayList<>();
+        for (LocalCache localCache : localCaches) {
+            local.add(localCache.getStatistics());
+        }
+        stats.put("local", local);
+
+        Map<String, Object> redis = new HashMap<>();
+        redis.put("hits", redisHits.sum());
+        redis.put("misses", redisMisses.sum());
+        stats.put("redis", redis);
+
+        Map<String, Object> singleFlight = new HashMap<>();
+        singleFlight.put("loads", loaderCalls.sum());
+        singleFlight.put("coalesced", coalescedLoads.sum());
+        singleFlight.put("inFlight", inFlightLoads.size());
+        stats.put("singleFlight", singleFlight);
+
+        Map<String, Object> refresh = new HashMap<>();
+        refresh.put("staleServed", staleServed.sum());
+        refresh.put("earlyRefreshes", earlyRefreshes.sum());
+        refresh.put("refreshes", refreshes.sum());
+        refresh.put("failures", refreshFailures.sum());
+        refresh.put("rejected", refreshRejected.sum());
+        refresh.put("queued", refreshExecutor.getQueue().size());
+        stats.put("refresh", refresh);
+
+        Map<String, Object> breaker = redisBreaker.getStatistics();
+        breaker.put("enabled", breakerEnabled);
+        stats.put("breaker", breaker);
+
+        Map<String, Object> pendingWrites = new HashMap<>();
+        pendingWrites.put("pending", writeBehindSize());
+        pendingWrites.put("queued", writeBehindQueued.sum());
+        pendingWrites.put("dropped", writeBehindDropped.sum());
+        pendingWrites.put("flushed", writeBehindFlushed.sum());
+        pendingWrites.put("expired", writeBehindExpired.sum());
+        stats.put("writeBehind", pendingWrites);
+
+        Map<String, Object> invalidations = new HashMap<>();
+        invalidations.put("pending", pendingInvalidationCount());
+        invalidations.put("deferred", invalidationsDeferred.sum());
+        invalidations.put("dropped", invalidationsDropped.sum());
+        invalidations.put("replayed", invalidationsReplayed.sum());
+        stats.put("pendingInvalidations", invalidations);
+        synchronized (pendingInvalidations) {
+            stats.put("invalidationsLost", invalidationsLost);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 清空当前节点的本地缓存
+     */
+    public void clearLocal() {
+        for (LocalCache localCache : localCaches) {
+            localCache.clear();
+        }
+    }
+
+    /**
+     * 查找key对应的本地缓存区域，未配置策略的key不进入L1
+     */
+    private LocalCache localCacheFor(String key) {
+        for (int i = 0; i < localCachePrefixes.size(); i++) {
+            if (key.startsWith(localCachePrefixes.get(i))) {
+                return localCaches.get(i);
+            }
+        }
+        return null;
+    }
+
+    private void putLocal(String key, Object value, long timeoutMillis) {
+        LocalCache localCache = localCacheFor(key);
+        if (localCache != null) {
+            localCache.put(key, value, timeoutMillis);
+            // 其他节点的L1可能持有旧值
+            publishInvalidation("K", key);
+        }
+    }
+
+    /**
+     * 淘汰本地缓存中的key，返回该key是否受L1管理
+     */
+    private boolean evictLocal(String key) {
+        LocalCache localCache = localCacheFor(key);
+        if (localCache != null) {
+            localCache.invalidate(key);
+            return true;
+        }
+        return false;
+    }
+
+    private void evictLocalByPattern(String pattern) {
+        if (localCaches.isEmpty()) {
+            return;
+        }
+        Predicate<String> matcher = globToPredicate(pattern);
+        for (LocalCache localCache : localCaches) {
+            localCache.invalidateMatching(matcher);
+        }
+    }
+
+    /**
+     * 发布本地缓存失效通知，消息格式：节点ID|类型(K=key,P=pattern,G=命名空间代数)|内容
+     */
+    private void publishInvalidation(String type, String keyOrPattern) {
+        try {
+            redisRun(() -> stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    nodeId + "|" + type + "|" + keyOrPattern));
+        } catch (Exception e) {
+            if (isRedisUnavailable(e)) {
+                // Redis恢复后会清空本地缓存，见 onBreakerStateChange
+                logger.debug("Redis不可用，跳过缓存失效通知: {}", keyOrPattern);
+            } else {
+                logger.warn("发布缓存失效通知失败: {}", keyOrPattern, e);
+            }
+        }
+    }
+
+    /**
+     * 一条消息通知其他节点淘汰多个key
+     */
+    private void publishInvalidation(List<String> keys) {
+        if (keys.size() == 1) {
+            publishInvalidation("K", keys.get(0));
+        } else if (!keys.isEmpty()) {
+            publishInvalidation("M", String.join("\n", keys));
+        }
+    }
+
+    /**
+     * 处理其他节点发来的失效通知
+     */
+    private void onInvalidation(String body) {
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if ("G".equals(parts[1])) {
+            generations.remove(parts[2]);
+        } else if ("P".equals(parts[1])) {
+            evictLocalByPattern(parts[2]);
+        } else if ("M".equals(parts[1])) {
+            for (String key : parts[2].split("\n")) {
+                evictLocal(key);
+            }
+        } else {
+            evictLocal(parts[2]);
+        }
+    }
+
+    /**
+     * 将Redis的glob模式（支持*和?）转换为匹配器
+     */
+    private static Predicate<String> globToPredicate(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString()).asMatchPredicate();
+    }
+
+    private static final class PendingWrite {
+        private final Object value;
+        private final long expireAt;
+
+        private PendingWrite(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class Generation {
+        private final long value;
+        private final long loadedAt;
+
+        private Generation(long value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
     }
-}
\ No newline at end of file
+}
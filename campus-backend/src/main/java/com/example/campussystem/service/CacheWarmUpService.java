@@ -0,0 +1,230 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.entity.Category;
+import com.example.campussystem.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存预热服务
+ * 启动完成时（见 {@link com.example.campussystem.config.StartupListener}）和管理员手动触发时，
+ * 只预加载真正经过缓存的数据：分类树、热门榜单与最新时间线前几页的商品详情，以及各分类非时间线排序的商品ID页。
+ * 热门/最新列表本身由Redis榜单和内存时间线提供，不单独缓存；分类的默认排序（发布时间倒序）同样由时间线提供。
+ * 每一页作为一个任务在有界线程池中并行执行，整体受时间预算限制，超时未完成的任务被取消，不影响已写入的缓存。
+ */
+@Service
+public class CacheWarmUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmUpService.class);
+
+    /**
+     * 启动时加载热门榜单、最新时间线、搜索索引和存在性过滤器的就绪监听器的顺序，
+     * 启动预热的监听器排在其后，预热读取的是已就绪的榜单和时间线
+     */
+    public static final int STARTUP_LOAD_ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    /**
+     * 启动预热监听器的顺序
+     */
+    public static final int STARTUP_WARM_UP_ORDER = STARTUP_LOAD_ORDER + 100;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${app.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.warmup.threads:4}")
+    private int threads;
+
+    @Value("${app.cache.warmup.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${app.cache.warmup.pages:3}")
+    private int pages;
+
+    @Value("${app.cache.warmup.page-size:10}")
+    private int pageSize;
+
+    @Value("${app.cache.warmup.top-products:200}")
+    private int topProducts;
+
+    @Value("${app.cache.warmup.category-sorts:price:asc,price:desc,viewCount:desc}")
+    private List<String> categorySorts;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private volatile WarmUpReport lastReport;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 执行一次预热，在全部任务完成或时间预算用完后返回
+     */
+    public WarmUpReport warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("缓存预热正在进行中");
+        }
+        long start = System.currentTimeMillis();
+        WarmUpReport report = new WarmUpReport();
+        try {
+            Map<String, Runnable> tasks = planTasks();
+            report.setTotal(tasks.size());
+            runTasks(tasks, start + TimeUnit.SECONDS.toMillis(timeoutSeconds), report);
+        } finally {
+            report.setElapsedMillis(System.currentTimeMillis() - start);
+            lastReport = report;
+            running.set(false);
+        }
+        logger.info("缓存预热结束：共 {} 个任务，成功 {}，失败 {}，超时 {}，耗时 {} ms",
+                report.getTotal(), report.getSucceeded(), report.getFailed(), report.getTimedOut(),
+                report.getElapsedMillis());
+        return report;
+    }
+
+    /**
+     * 最近一次预热的结果，尚未预热过时返回 null
+     */
+    public WarmUpReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private Map<String, Runnable> planTasks() {
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("category_tree", () -> {
+            categoryService.getCategoryTree();
+            categoryService.getAllCategories();
+        });
+        tasks.put("popular_details", () -> productService.warmUpPopularProductDetails(topProducts));
+        tasks.put("latest_details", () -> productService.warmUpLatestProductDetails(pages * pageSize));
+
+        List<Category> categories;
+        try {
+            categories = categoryService.getAllActiveCategories();
+        } catch (Exception e) {
+            logger.warn("读取分类列表失败，跳过分类商品预热: {}", e.getMessage());
+            categories = new ArrayList<>();
+        }
+        for (Category category : categories) {
+            Long categoryId = category.getId();
+            for (String sort : categorySorts) {
+                int separator = sort.indexOf(':');
+                String sortBy = separator < 0 ? sort.trim() : sort.substring(0, separator).trim();
+                String sortDir = separator < 0 ? "desc" : sort.substring(separator + 1).trim();
+                for (int page = 0; page < pages; page++) {
+                    int current = page;
+                    tasks.put("category:" + categoryId + ":" + sortBy + ":" + sortDir + ":" + page, () ->
+                            productService.getProductsByCategory(categoryId, current, pageSize, sortBy, sortDir));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private void runTasks(Map<String, Runnable> tasks, long deadline, WarmUpReport report) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, tasks.size())), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-warmup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Runnable> task : tasks.entrySet()) {
+                futures.put(task.getKey(), executor.submit(task.getValue()));
+            }
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+                Future<?> future = entry.getValue();
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    report.succeeded++;
+                } catch (TimeoutException | CancellationException e) {
+                    future.cancel(true);
+                    report.timedOut++;
+                } catch (ExecutionException e) {
+                    report.failed++;
+                    logger.warn("缓存预热任务 {} 失败: {}", entry.getKey(), e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                    report.timedOut++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 预热结果
+     */
+    public static class WarmUpReport {
+        private int total;
+        private int succeeded;
+        private int failed;
+        private int timedOut;
+        private long elapsedMillis;
+
+        /**
+         * 是否所有任务都在时间预算内成功完成
+         */
+        public boolean isComplete() {
+            return succeeded == total;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public void setTotal(int total) {
+            this.total = total;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getTimedOut() {
+            return timedOut;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public void setElapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
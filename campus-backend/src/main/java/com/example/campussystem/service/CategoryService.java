@@ -123,21 +123,12 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public Category getCategoryById(Long id) {
-        String cacheKey = CACHE_KEY_CATEGORY_DETAIL + id;
+        String cacheKey = cacheService.versionedKey(CACHE_KEY_CATEGORY_DETAIL, String.valueOf(id));
         
-        // 先从缓存获取
-        Category cachedCategory = cacheService.get(cacheKey, Category.class);
-        if (cachedCategory != null) {
-            return cachedCategory;
-        }
-
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("分类不存在"));
-        
-        // 缓存分类详情，缓存60分钟
-        cacheService.set(cacheKey, category, 60, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return category;
+        // 缓存分类详情，缓存60分钟；并发未命中只查询一次数据库
+        return cacheService.getOrLoad(cacheKey, 60, java.util.concurrent.TimeUnit.MINUTES,
+                () -> categoryRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("分类不存在")));
     }
 
     /**
@@ -145,19 +136,9 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        List<Category> cachedCategories = cacheService.get(CACHE_KEY_ALL_CATEGORIES, List.class);
-        if (cachedCategories != null) {
-            return cachedCategories;
-        }
-
-        List<Category> categories = categoryRepository.findByStatusOrderBySortOrderAsc(1);
-        
         // 缓存所有分类，缓存60分钟
-        cacheService.set(CACHE_KEY_ALL_CATEGORIES, categories, 60, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return categories;
+        return cacheService.getOrLoad(CACHE_KEY_ALL_CATEGORIES, 60, java.util.concurrent.TimeUnit.MINUTES,
+                () -> categoryRepository.findByStatusOrderBySortOrderAsc(1));
     }
 
     /**
@@ -181,21 +162,11 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public List<Category> getCategoriesByParentId(Long parentId) {
-        String cacheKey = CACHE_KEY_CATEGORY_BY_PARENT + parentId;
-        
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        List<Category> cachedCategories = cacheService.get(cacheKey, List.class);
-        if (cachedCategories != null) {
-            return cachedCategories;
-        }
-
-        List<Category> categories = categoryRepository.findByParentIdAndStatusOrderBySortOrderAsc(parentId, 1);
+        String cacheKey = cacheService.versionedKey(CACHE_KEY_CATEGORY_BY_PARENT, String.valueOf(parentId));
         
         // 缓存子分类，缓存30分钟
-        cacheService.set(cacheKey, categories, 30, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return categories;
+        return cacheService.getOrLoad(cacheKey, 30, java.util.concurrent.TimeUnit.MINUTES,
+                () -> categoryRepository.findByParentIdAndStatusOrderBySortOrderAsc(parentId, 1));
     }
 
     /**
@@ -203,22 +174,14 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public List<Category> getCategoryTree() {
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        List<Category> cachedTree = cacheService.get(CACHE_KEY_CATEGORY_TREE, List.class);
-        if (cachedTree != null) {
-            return cachedTree;
-        }
-
-        List<Category> topCategories = getTopLevelCategories();
-        for (Category category : topCategories) {
-            loadChildren(category);
-        }
-        
         // 缓存分类树，缓存60分钟
-        cacheService.set(CACHE_KEY_CATEGORY_TREE, topCategories, 60, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return topCategories;
+        return cacheService.getOrLoad(CACHE_KEY_CATEGORY_TREE, 60, java.util.concurrent.TimeUnit.MINUTES, () -> {
+            List<Category> topCategories = getTopLevelCategories();
+            for (Category category : topCategories) {
+                loadChildren(category);
+            }
+            return topCategories;
+        });
     }
 
     /**
@@ -327,8 +290,8 @@ public class CategoryService {
         cacheService.delete(CACHE_KEY_ALL_CATEGORIES);
         cacheService.delete(CACHE_KEY_CATEGORY_TREE);
         
-        // 清除所有父分类缓存（这里简化处理，实际可以更精确地清除）
-        cacheService.deleteByPattern(CACHE_KEY_CATEGORY_BY_PARENT + "*");
-        cacheService.deleteByPattern(CACHE_KEY_CATEGORY_DETAIL + "*");
+        // 子分类和分类详情缓存按命名空间代数整体失效
+        cacheService.invalidateNamespace(CACHE_KEY_CATEGORY_BY_PARENT);
+        cacheService.invalidateNamespace(CACHE_KEY_CATEGORY_DETAIL);
     }
 }
\ No newline at end of file
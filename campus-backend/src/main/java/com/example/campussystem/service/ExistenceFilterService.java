@@ -0,0 +1,417 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.cache.BloomFilter;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.repository.ProductRepository;
+import com.example.campussystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 商品、用户ID存在性过滤服务（防缓存穿透）
+ * 按ID查询经过两道检查，任一判定不存在时直接拒绝，不访问数据库：
+ * 1. 布隆过滤器：包含全部已存在的ID，定时全量重建并以位图形式保存在Redis中供各节点加载，新增时增量写入；
+ *    每次查询前在内存中检查，不产生网络访问；
+ * 2. 否定缓存：数据库确认不存在的ID短期缓存，覆盖布隆过滤器误判和尚未纳入过滤器的新ID；
+ *    只在缓存未命中、即将查询数据库时检查，已存在的ID命中详情缓存时不会为它多读一次Redis。
+ * ID自增且记录不物理删除，所以过滤器只对"覆盖上界"以内的ID做否定判断；上界取重建时
+ * 一段时间之前创建的最大ID，避免把重建扫描时尚未提交的新记录误判为不存在。
+ */
+@Service
+public class ExistenceFilterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExistenceFilterService.class);
+
+    private static final String KEY_PREFIX = "bloom:";
+    private static final String NEGATIVE_KEY_PREFIX = "negative:";
+    private static final int SCAN_BATCH_SIZE = 5000;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.existence-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.existence-filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${app.existence-filter.fpp:0.01}")
+    private double fpp;
+
+    @Value("${app.existence-filter.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.existence-filter.coverage-lag-seconds:60}")
+    private long coverageLagSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final IdFilter products = new IdFilter("product",
+            (lastId, pageable) -> productRepository.findIdsAfter(lastId, pageable),
+            before -> productRepository.findMaxIdCreatedBefore(before));
+
+    private final IdFilter users = new IdFilter("user",
+            (lastId, pageable) -> userRepository.findIdsAfter(lastId, pageable),
+            before -> userRepository.findMaxIdCreatedBefore(before));
+
+    /**
+     * 启动时从Redis加载过滤器，Redis中没有时重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CacheWarmUpService.STARTUP_LOAD_ORDER)
+    public void loadOnStartup() {
+        if (enabled) {
+            sync();
+        }
+    }
+
+    /**
+     * 定时从Redis加载其他节点重建或增量写入的过滤器
+     */
+    @Scheduled(fixedDelayString = "${app.existence-filter.sync-interval:60000}",
+            initialDelayString = "${app.existence-filter.sync-interval:60000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        for (IdFilter filter : new IdFilter[]{products, users}) {
+            try {
+                if (!filter.load()) {
+                    filter.rebuild();
+                }
+            } catch (Exception e) {
+                logger.warn("加载{}存在性过滤器失败，暂不过滤: {}", filter.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定时全量重建，扩大覆盖上界并剔除误判率随新增上升的旧位图
+     */
+    @Scheduled(fixedDelayString = "${app.existence-filter.rebuild-interval:1800000}",
+            initialDelayString = "${app.existence-filter.rebuild-interval:1800000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 重建商品和用户过滤器
+     *
+     * @return 各过滤器纳入的ID数，其他节点正在重建时为 0，失败时为 -1
+     */
+    public Map<String, Object> rebuild() {
+        Map<String, Object> result = new HashMap<>();
+        result.put(products.name, products.rebuild());
+        result.put(users.name, users.rebuild());
+        return result;
+    }
+
+    /**
+     * 商品ID是否可能存在（只查内存中的布隆过滤器）；返回 false 时可直接判定商品不存在
+     */
+    public boolean productMayExist(Long productId) {
+        return products.mayExist(productId);
+    }
+
+    /**
+     * 商品ID是否已被数据库确认不存在（查否定缓存），在即将查询数据库前调用
+     */
+    public boolean productKnownMissing(Long productId) {
+        return products.knownMissing(productId);
+    }
+
+    /**
+     * 用户ID是否可能存在（只查内存中的布隆过滤器）；返回 false 时可直接判定用户不存在
+     */
+    public boolean userMayExist(Long userId) {
+        return users.mayExist(userId);
+    }
+
+    /**
+     * 用户ID是否已被数据库确认不存在（查否定缓存），在即将查询数据库前调用
+     */
+    public boolean userKnownMissing(Long userId) {
+        return users.knownMissing(userId);
+    }
+
+    /**
+     * 记录数据库确认不存在的商品ID
+     */
+    public void markProductMissing(Long productId) {
+        products.markMissing(productId);
+    }
+
+    /**
+     * 记录数据库确认不存在的用户ID
+     */
+    public void markUserMissing(Long userId) {
+        users.markMissing(userId);
+    }
+
+    /**
+     * 新用户注册：事务提交后加入过滤器并清除可能存在的否定缓存
+     */
+    public void userCreated(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.added(userId, true);
+                }
+            });
+        } else {
+            users.added(userId, true);
+        }
+    }
+
+    /**
+     * 商品变更提交后（含其他节点转发的变更）加入过滤器；
+     * Redis位图和否定缓存是共享的，只由发起变更的节点更新
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Long id : event.getProductIds()) {
+            products.added(id, !event.isRemote());
+        }
+    }
+
+    /**
+     * 过滤器统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put(products.name, products.getStatistics());
+        stats.put(users.name, users.getStatistics());
+        return stats;
+    }
+
+    /**
+     * 一类ID的布隆过滤器及其否定缓存
+     */
+    private final class IdFilter {
+        private final String name;
+        private final String bitmapKey;
+        private final String metaKey;
+        private final String rebuildKey;
+        private final String lockKey;
+        private final String negativePrefix;
+        private final BiFunction<Long, Pageable, List<Long>> idScanner;
+        private final Function<LocalDateTime, Long> maxIdBefore;
+
+        // 过滤器和覆盖上界一起替换，读取时保持一致
+        private volatile Snapshot snapshot;
+
+        private final LongAdder filterRejected = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder negativeWrites = new LongAdder();
+
+        IdFilter(String name, BiFunction<Long, Pageable, List<Long>> idScanner,
+                 Function<LocalDateTime, Long> maxIdBefore) {
+            this.name = name;
+            this.bitmapKey = KEY_PREFIX + name;
+            this.metaKey = bitmapKey + ":meta";
+            this.rebuildKey = bitmapKey + ":rebuilding";
+            this.lockKey = bitmapKey + ":lock";
+            this.negativePrefix = NEGATIVE_KEY_PREFIX + name + ":";
+            this.idScanner = idScanner;
+            this.maxIdBefore = maxIdBefore;
+        }
+
+        boolean mayExist(Long id) {
+            if (!enabled || id == null) {
+                return true;
+            }
+            Snapshot current = snapshot;
+            if (current != null && id <= current.coveredUpTo && !current.filter.mightContain(id)) {
+                filterRejected.increment();
+                return false;
+            }
+            return true;
+        }
+
+        boolean knownMissing(Long id) {
+            if (!enabled || id == null) {
+                return false;
+            }
+            try {
+                if (cacheService.get(negativePrefix + id) != null) {
+                    negativeHits.increment();
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.debug("读取否定缓存失败, key={}: {}", negativePrefix + id, e.getMessage());
+            }
+            return false;
+        }
+
+        void markMissing(Long id) {
+            if (!enabled || id == null) {
+                return;
+            }
+            try {
+                cacheService.set(negativePrefix + id, Boolean.TRUE, negativeTtlSeconds, TimeUnit.SECONDS);
+                negativeWrites.increment();
+            } catch (Exception e) {
+                logger.debug("写入否定缓存失败, key={}: {}", negativePrefix + id, e.getMessage());
+            }
+        }
+
+        void added(Long id, boolean shared) {
+            if (id == null) {
+                return;
+            }
+            Snapshot current = snapshot;
+            if (current != null) {
+                current.filter.put(id);
+            }
+            if (!shared) {
+                return;
+            }
+            try {
+                cacheService.delete(negativePrefix + id);
+                if (current != null) {
+                    cacheService.setBits(bitmapKey, current.filter.offsets(id));
+                }
+            } catch (Exception e) {
+                logger.warn("更新{}存在性过滤器失败, id={}: {}", name, id, e.getMessage());
+            }
+        }
+
+        /**
+         * 从Redis加载，没有可用的位图时返回 false
+         */
+        boolean load() {
+            // 先读元数据再读位图：重建时先替换位图再更新元数据，这样读到的覆盖上界不会超过位图的内容
+            Object value = cacheService.get(metaKey);
+            if (!(value instanceof Map)) {
+                return false;
+            }
+            Map<?, ?> meta = (Map<?, ?>) value;
+            long numBits = ((Number) meta.get("numBits")).longValue();
+            int numHashes = ((Number) meta.get("numHashes")).intValue();
+            long coveredUpTo = ((Number) meta.get("coveredUpTo")).longValue();
+            BloomFilter filter = BloomFilter.fromBytes(cacheService.getBytes(bitmapKey), numBits, numHashes);
+            if (filter == null) {
+                // 位图缺失或正在被替换为不同大小的位图，保留当前过滤器，下次再加载
+                return snapshot != null;
+            }
+            snapshot = new Snapshot(filter, coveredUpTo);
+            return true;
+        }
+
+        /**
+         * 全量扫描ID重建，写入Redis后替换本地过滤器；多节点时只由抢到锁的节点执行
+         */
+        synchronized long rebuild() {
+            if (!Boolean.TRUE.equals(cacheService.setIfAbsent(lockKey, nodeId, 10, TimeUnit.MINUTES))) {
+                logger.info("其他节点正在重建{}存在性过滤器，跳过本次重建", name);
+                return 0;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                // 覆盖上界在扫描前确定，只包含早已提交的记录
+                Long maxId = maxIdBefore.apply(LocalDateTime.now().minusSeconds(coverageLagSeconds));
+                long coveredUpTo = maxId != null ? maxId : 0L;
+
+                List<Long> ids = new ArrayList<>();
+                long lastId = 0;
+                while (true) {
+                    List<Long> batch = idScanner.apply(lastId, PageRequest.of(0, SCAN_BATCH_SIZE));
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    ids.addAll(batch);
+                    lastId = batch.get(batch.size() - 1);
+                }
+
+                // 按两倍现有数量预留增长空间，误判率在下次重建前保持在目标附近
+                BloomFilter filter = BloomFilter.create(Math.max(expectedInsertions, ids.size() * 2L), fpp);
+                for (Long id : ids) {
+                    filter.put(id);
+                }
+
+                cacheService.setBytes(rebuildKey, filter.toBytes());
+                cacheService.rename(rebuildKey, bitmapKey);
+                Map<String, Object> meta = new HashMap<>();
+                meta.put("numBits", filter.getNumBits());
+                meta.put("numHashes", filter.getNumHashes());
+                meta.put("coveredUpTo", coveredUpTo);
+                cacheService.set(metaKey, meta);
+
+                snapshot = new Snapshot(filter, coveredUpTo);
+                logger.info("{}存在性过滤器重建完成：{} 个ID，{} 位，{} 个哈希，覆盖到ID {}，耗时 {} ms",
+                        name, ids.size(), filter.getNumBits(), filter.getNumHashes(), coveredUpTo,
+                        System.currentTimeMillis() - start);
+                return ids.size();
+            } catch (Exception e) {
+                logger.error("重建{}存在性过滤器失败", name, e);
+                return -1;
+            } finally {
+                cacheService.delete(lockKey);
+            }
+        }
+
+        Map<String, Object> getStatistics() {
+            Map<String, Object> stats = new HashMap<>();
+            Snapshot current = snapshot;
+            stats.put("ready", current != null);
+            if (current != null) {
+                stats.put("numBits", current.filter.getNumBits());
+                stats.put("numHashes", current.filter.getNumHashes());
+                stats.put("coveredUpTo", current.coveredUpTo);
+            }
+            stats.put("filterRejected", filterRejected.sum());
+            stats.put("negativeHits", negativeHits.sum());
+            stats.put("negativeWrites", negativeWrites.sum());
+            return stats;
+        }
+    }
+
+    private static final class Snapshot {
+        private final BloomFilter filter;
+        private final long coveredUpTo;
+
+        Snapshot(BloomFilter filter, long coveredUpTo) {
+            this.filter = filter;
+            this.coveredUpTo = coveredUpTo;
+        }
+    }
+}
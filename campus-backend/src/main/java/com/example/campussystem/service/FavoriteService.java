@@ -3,10 +3,12 @@ package com.example.campussystem.service;
 import com.example.campussystem.dto.ProductResponse;
 import com.example.campussystem.entity.Favorite;
 import com.example.campussystem.entity.Product;
+import com.example.campussystem.event.ProductActivityEvent;
 import com.example.campussystem.exception.BusinessException;
 import com.example.campussystem.repository.FavoriteRepository;
 import com.example.campussystem.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +29,9 @@ public class FavoriteService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 添加收藏
      */
@@ -47,6 +52,8 @@ public class FavoriteService {
         favorite.setCreateTime(LocalDateTime.now());
 
         favoriteRepository.save(favorite);
+        // 事务提交后计入热度趋势，并转发给其他节点
+        eventPublisher.publishEvent(new ProductActivityEvent(productId, ProductActivityEvent.Type.FAVORITE));
     }
 
     /**
@@ -0,0 +1,317 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.entity.Product;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.ranking.ProductTimeline;
+import com.example.campussystem.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 最新商品时间线服务
+ * 在内存中维护全站及各分类最新在售商品的有界时间线（见 {@link ProductTimeline}），由商品变更事件增量更新，
+ * 前几页完全由内存提供；超出时间线覆盖范围的深分页从时间线末尾开始按 (status, create_time, id) 键集查询数据库。
+ * 按页码访问时，时间线之后的部分仍需 OFFSET 跳过前面的行；按游标访问（{@link #getIdsAfter}）每页都以上一页末尾为锚点，没有 OFFSET。
+ * 分类时间线在首次访问时加载，并与全站时间线一起定时与数据库重新对齐。
+ */
+@Service
+public class LatestProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestProductService.class);
+
+    private static final int STATUS_ON_SALE = 1;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.latest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.latest.capacity:1000}")
+    private int capacity;
+
+    @Value("${app.latest.category-capacity:200}")
+    private int categoryCapacity;
+
+    private ProductTimeline timeline;
+    private final Map<Long, ProductTimeline> categoryTimelines = new ConcurrentHashMap<>();
+
+    // 在售商品总数及各分类在售数，用于分页总数；GROUP BY 统计代价较高，只在定时重新对齐时刷新，
+    // 两次对齐之间总数可能略有偏差，商品变更时只补充新出现在售商品的分类，使其列表不被当作空分类
+    private volatile long onSaleTotal = 0;
+    private volatile Map<Long, Long> onSaleByCategory = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    private final LongAdder memoryPages = new LongAdder();
+    private final LongAdder keysetPages = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        timeline = new ProductTimeline(capacity);
+    }
+
+    /**
+     * 启动时加载全站时间线
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CacheWarmUpService.STARTUP_LOAD_ORDER)
+    public void loadOnStartup() {
+        if (enabled) {
+            resync();
+        }
+    }
+
+    /**
+     * 定时与数据库重新对齐，修正时间线在异常情况下（事件处理失败、并发重载）可能产生的偏差
+     */
+    @Scheduled(fixedDelayString = "${app.latest.resync-interval:600000}", initialDelayString = "${app.latest.resync-interval:600000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload(timeline, null, capacity);
+            for (Map.Entry<Long, ProductTimeline> entry : categoryTimelines.entrySet()) {
+                reload(entry.getValue(), entry.getKey(), categoryCapacity);
+            }
+            refreshCounts();
+            ready = true;
+        } catch (Exception e) {
+            logger.warn("加载最新商品时间线失败，最新商品将回退到数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按发布时间倒序分页获取在售商品ID，categoryId 为空时为全站。
+     * 时间线未就绪时返回空，调用方回退到数据库查询。
+     */
+    public Optional<Page<Long>> getPage(Long categoryId, int page, int size) {
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        if (categoryId != null && !onSaleByCategory.containsKey(categoryId)) {
+            // 没有在售商品的分类（含不存在的分类ID）不创建时间线
+            return Optional.of(new PageImpl<>(new ArrayList<>(), PageRequest.of(page, size), 0));
+        }
+        ProductTimeline target = categoryId == null ? timeline : categoryTimeline(categoryId);
+        if (target == null) {
+            return Optional.empty();
+        }
+
+        ProductTimeline.Snapshot snapshot = target.snapshot();
+        long offset = (long) page * size;
+        List<Long> ids = new ArrayList<>(snapshot.slice((int) Math.min(offset, Integer.MAX_VALUE), size));
+        if (ids.size() < size && !snapshot.isExhaustive()) {
+            long[] tail = snapshot.tail();
+            if (tail == null) {
+                return Optional.empty();
+            }
+            int skip = (int) Math.max(0, offset - snapshot.size());
+            int limit = size - ids.size();
+            ids.addAll(categoryId == null
+                    ? productRepository.findTimelineAfter(STATUS_ON_SALE, tail[0], skip, limit)
+                    : productRepository.findCategoryTimelineAfter(categoryId, STATUS_ON_SALE, tail[0], skip, limit));
+            keysetPages.increment();
+        } else {
+            memoryPages.increment();
+        }
+
+        long total;
+        if (snapshot.isExhaustive()) {
+            total = snapshot.size();
+        } else {
+            long counted = categoryId == null ? onSaleTotal : onSaleByCategory.getOrDefault(categoryId, 0L);
+            total = Math.max(counted, snapshot.size());
+        }
+        return Optional.of(new PageImpl<>(ids, PageRequest.of(page, size), total));
+    }
+
+    /**
+     * 按游标获取在售商品ID（发布时间倒序），categoryId 为空时为全站
+     * 锚点在时间线内时从内存返回其后的商品，不足的部分以及锚点已在时间线之外时，从锚点按键集查询数据库；
+     * 时间线未就绪时直接按键集查询数据库。
+     *
+     * @param afterId 上一页最后一个商品ID，为空时从最新商品开始
+     * @param limit   最多返回的数量
+     */
+    public List<Long> getIdsAfter(Long categoryId, Long afterId, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        Long anchor = afterId;
+        ProductTimeline target = null;
+        if (enabled && ready) {
+            if (categoryId != null && !onSaleByCategory.containsKey(categoryId)) {
+                return ids;
+            }
+            target = categoryId == null ? timeline : categoryTimeline(categoryId);
+        }
+        if (target != null) {
+            ProductTimeline.Snapshot snapshot = target.snapshot();
+            int start = afterId == null ? 0 : snapshot.indexOf(afterId) + 1;
+            if (start > 0 || afterId == null) {
+                ids.addAll(snapshot.slice(start, limit));
+                if (ids.size() == limit || snapshot.isExhaustive()) {
+                    memoryPages.increment();
+                    return ids;
+                }
+                long[] tail = snapshot.tail();
+                anchor = tail != null ? tail[0] : null;
+            }
+        }
+
+        int remaining = limit - ids.size();
+        if (anchor == null) {
+            PageRequest pageable = PageRequest.of(0, remaining);
+            List<Object[]> rows = categoryId == null
+                    ? productRepository.findTimeline(STATUS_ON_SALE, pageable)
+                    : productRepository.findCategoryTimeline(categoryId, STATUS_ON_SALE, pageable);
+            for (Object[] row : rows) {
+                ids.add(((Number) row[0]).longValue());
+            }
+        } else {
+            ids.addAll(categoryId == null
+                    ? productRepository.findTimelineAfter(STATUS_ON_SALE, anchor, 0, remaining)
+                    : productRepository.findCategoryTimelineAfter(categoryId, STATUS_ON_SALE, anchor, 0, remaining));
+        }
+        keysetPages.increment();
+        return ids;
+    }
+
+    /**
+     * 商品变更提交后（含其他节点转发的变更）更新时间线：在售的移动到发布时间对应位置，其余移出
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || !ready) {
+            return;
+        }
+        try {
+            Map<Long, Product> products = new HashMap<>();
+            for (Product product : productRepository.findAllById(event.getProductIds())) {
+                products.put(product.getId(), product);
+            }
+            for (Long id : event.getProductIds()) {
+                Product product = products.get(id);
+                // 分类可能被修改，先从所有分类时间线移出
+                for (ProductTimeline categoryTimeline : categoryTimelines.values()) {
+                    categoryTimeline.remove(id);
+                }
+                if (product != null && Integer.valueOf(STATUS_ON_SALE).equals(product.getStatus())
+                        && product.getCreateTime() != null) {
+                    long time = toMillis(product.getCreateTime());
+                    timeline.upsert(id, time);
+                    ProductTimeline categoryTimeline = categoryTimelines.get(product.getCategoryId());
+                    if (categoryTimeline != null) {
+                        categoryTimeline.upsert(id, time);
+                    }
+                    markCategoryOnSale(product.getCategoryId());
+                } else {
+                    timeline.remove(id);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("更新最新商品时间线失败, productIds={}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * 时间线统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        ProductTimeline.Snapshot snapshot = timeline.snapshot();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("size", snapshot.size());
+        stats.put("exhaustive", snapshot.isExhaustive());
+        stats.put("categories", categoryTimelines.size());
+        stats.put("onSaleTotal", onSaleTotal);
+        stats.put("memoryPages", memoryPages.sum());
+        stats.put("keysetPages", keysetPages.sum());
+        return stats;
+    }
+
+    /**
+     * 获取分类时间线，首次访问时从数据库加载
+     */
+    private ProductTimeline categoryTimeline(Long categoryId) {
+        try {
+            return categoryTimelines.computeIfAbsent(categoryId, id -> {
+                ProductTimeline created = new ProductTimeline(categoryCapacity);
+                reload(created, id, categoryCapacity);
+                return created;
+            });
+        } catch (Exception e) {
+            logger.warn("加载分类最新商品时间线失败, categoryId={}: {}", categoryId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 多取一条用于判断时间线是否已包含全部在售商品
+     */
+    private void reload(ProductTimeline target, Long categoryId, int limit) {
+        PageRequest pageable = PageRequest.of(0, limit + 1);
+        List<Object[]> rows = categoryId == null
+                ? productRepository.findTimeline(STATUS_ON_SALE, pageable)
+                : productRepository.findCategoryTimeline(categoryId, STATUS_ON_SALE, pageable);
+        int size = Math.min(rows.size(), limit);
+        long[] ids = new long[size];
+        long[] times = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            times[i] = rows.get(i)[1] != null ? toMillis((LocalDateTime) rows.get(i)[1]) : 0L;
+        }
+        target.reset(ids, times, rows.size() <= limit);
+    }
+
+    /**
+     * 分类首次出现在售商品时加入分类计数，准确的数量在下次重新对齐时刷新
+     */
+    private synchronized void markCategoryOnSale(Long categoryId) {
+        if (categoryId == null || onSaleByCategory.containsKey(categoryId)) {
+            return;
+        }
+        Map<Long, Long> byCategory = new HashMap<>(onSaleByCategory);
+        byCategory.put(categoryId, 1L);
+        onSaleByCategory = byCategory;
+    }
+
+    private void refreshCounts() {
+        Map<Long, Long> byCategory = new HashMap<>();
+        long total = 0;
+        for (Object[] row : productRepository.countByStatusGroupByCategory(STATUS_ON_SALE)) {
+            long count = ((Number) row[1]).longValue();
+            byCategory.put(((Number) row[0]).longValue(), count);
+            total += count;
+        }
+        onSaleByCategory = byCategory;
+        onSaleTotal = total;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
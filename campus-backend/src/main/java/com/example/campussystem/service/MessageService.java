@@ -1,25 +1,38 @@
 package com.example.campussystem.service;
 
 import com.example.campussystem.dto.ConversationResponse;
+import com.example.campussystem.dto.MessageCursorResponse;
 import com.example.campussystem.dto.MessageRequest;
 import com.example.campussystem.dto.MessageResponse;
+import com.example.campussystem.entity.Conversation;
 import com.example.campussystem.entity.Message;
 import com.example.campussystem.entity.Product;
 import com.example.campussystem.entity.User;
+import com.example.campussystem.event.ProductActivityEvent;
 import com.example.campussystem.exception.BusinessException;
+import com.example.campussystem.repository.ConversationRepository;
 import com.example.campussystem.repository.MessageRepository;
 import com.example.campussystem.repository.ProductRepository;
 import com.example.campussystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,8 +45,17 @@ import java.util.stream.Collectors;
 @Transactional
 public class MessageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
+    // 游标分页的单页上限与游标前缀
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String CURSOR_PREFIX = "m:";
+
     @Autowired
     private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
     
     @Autowired
     private WebSocketService webSocketService;
@@ -44,6 +66,12 @@ public class MessageService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     /**
      * 发送消息
      */
@@ -79,15 +107,28 @@ public class MessageService {
         message.setType(request.getType());
         message.setIsRead(0); // 未读
 
+        // 发送者第一次就该商品联系对方，计入商品热度
+        boolean chatStart = request.getProductId() != null
+                && !messageRepository.existsByFromUserIdAndToUserIdAndProductId(
+                        fromUserId, request.getToUserId(), request.getProductId());
+
         Message savedMessage = messageRepository.save(message);
+
+        // 维护双方的会话摘要：发送方只更新最后消息，接收方未读数加一
+        updateConversationSummaries(savedMessage);
+
         MessageResponse response = convertToResponse(savedMessage);
         
-        // 通过WebSocket发送实时通知
-        try {
-            webSocketService.sendNewMessageNotification(request.getToUserId(), response);
-        } catch (Exception e) {
-            // 记录错误但不影响消息发送的主流程
-            System.err.println("发送WebSocket通知失败: " + e.getMessage());
+        // 事务提交后再通过WebSocket推送新消息及未读数增量，避免客户端收到通知后查不到数据
+        Long toUserId = request.getToUserId();
+        afterCommit(() -> {
+            webSocketService.sendNewMessageNotification(toUserId, response);
+            webSocketService.sendUnreadDelta(toUserId, fromUserId, 1);
+        });
+        if (chatStart) {
+            // 事务提交后计入热度趋势，并转发给其他节点
+            eventPublisher.publishEvent(new ProductActivityEvent(request.getProductId(),
+                    ProductActivityEvent.Type.CHAT_START));
         }
         
         return response;
@@ -99,8 +140,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public List<MessageResponse> getConversationMessages(Long userId, Long contactUserId) {
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
 
         List<Message> messages = messageRepository.findConversationMessages(userId, contactUserId);
         return messages.stream().map(this::convertToResponse).collect(Collectors.toList());
@@ -112,8 +152,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public Page<MessageResponse> getConversationMessagesPage(Long userId, Long contactUserId, int page, int size) {
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
 
         Sort sort = Sort.by(Sort.Direction.DESC, "createTime");
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -122,43 +161,82 @@ public class MessageService {
         return messagePage.map(this::convertToResponse);
     }
 
+    /**
+     * 按游标获取对话消息（从新到旧）
+     *
+     * @param cursor 上一页返回的游标，为空时从最新消息开始
+     * @param limit  每页数量
+     */
+    @Transactional(readOnly = true)
+    public MessageCursorResponse getConversationMessagesBefore(Long userId, Long contactUserId, String cursor, int limit) {
+        // 验证联系人是否存在
+        requireContact(contactUserId);
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+        long beforeId = decodeMessageCursor(cursor);
+
+        // 两个方向各按索引取 pageSize + 1 条后按id合并，多取的一条用于判断是否还有更早的消息
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Message> messages = mergeByIdDesc(
+                messageRepository.findDirectedMessagesBefore(userId, contactUserId, beforeId, page),
+                messageRepository.findDirectedMessagesBefore(contactUserId, userId, beforeId, page),
+                pageSize + 1);
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = messages.subList(0, pageSize);
+        }
+
+        List<MessageResponse> responses = messages.stream().map(this::convertToResponse).collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeMessageCursor(messages.get(messages.size() - 1).getId()) : null;
+        return new MessageCursorResponse(responses, nextCursor, hasMore);
+    }
+
+    /**
+     * 合并两个按id倒序的消息列表，最多保留 limit 条
+     */
+    private static List<Message> mergeByIdDesc(List<Message> first, List<Message> second, int limit) {
+        List<Message> merged = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j >= second.size() || (i < first.size() && first.get(i).getId() > second.get(j).getId())) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
     /**
      * 获取用户的对话列表
+     * 直接读取会话摘要表，联系人和商品信息在同一条查询中关联带出
      */
     @Transactional(readOnly = true)
     public List<ConversationResponse> getConversationList(Long userId) {
-        List<Message> latestMessages = messageRepository.findLatestMessagesWithContacts(userId);
-        List<ConversationResponse> conversations = new ArrayList<>();
-
-        for (Message message : latestMessages) {
-            Long contactUserId = message.getFromUserId().equals(userId) ? 
-                                message.getToUserId() : message.getFromUserId();
-            
-            // 获取联系人信息
-            User contact = userRepository.findById(contactUserId).orElse(null);
-            if (contact == null) continue;
+        List<Object[]> rows = conversationRepository.findInbox(userId);
+        List<ConversationResponse> conversations = new ArrayList<>(rows.size());
 
-            // 统计与该联系人的未读消息数量
-            long unreadCount = messageRepository.countByFromUserIdAndToUserIdAndIsRead(contactUserId, userId, 0);
+        for (Object[] row : rows) {
+            Conversation summary = (Conversation) row[0];
+            User contact = (User) row[1];
+            Product product = (Product) row[2];
 
             ConversationResponse conversation = new ConversationResponse();
-            conversation.setContactUserId(contactUserId);
+            conversation.setContactUserId(summary.getContactUserId());
             conversation.setContactUsername(contact.getUsername());
             conversation.setContactNickname(contact.getRealName());
             conversation.setContactAvatar(contact.getAvatar());
-            conversation.setLastMessageContent(message.getContent());
-            conversation.setLastMessageType(message.getType());
-            conversation.setLastMessageTime(message.getCreateTime());
-            conversation.setUnreadCount(unreadCount);
-
-            // 如果消息关联商品，设置商品信息
-            if (message.getProductId() != null) {
-                Product product = productRepository.findById(message.getProductId()).orElse(null);
-                if (product != null) {
-                    conversation.setProductId(product.getId());
-                    conversation.setProductTitle(product.getTitle());
-                    conversation.setProductImage(product.getImages());
-                }
+            conversation.setLastMessageContent(summary.getLastMessageContent());
+            conversation.setLastMessageType(summary.getLastMessageType());
+            conversation.setLastMessageTime(summary.getLastMessageTime());
+            conversation.setUnreadCount(summary.getUnreadCount().longValue());
+
+            // 如果最后一条消息关联商品，设置商品信息
+            if (product != null) {
+                conversation.setProductId(product.getId());
+                conversation.setProductTitle(product.getTitle());
+                conversation.setProductImage(product.getImages());
             }
 
             conversations.add(conversation);
@@ -188,8 +266,18 @@ public class MessageService {
             throw new BusinessException("无权限操作此消息");
         }
 
+        boolean wasUnread = message.getIsRead() != null && message.getIsRead() == 0;
         message.markAsRead(); // 使用实体的方法，会同时设置isRead=1和readTime
         messageRepository.save(message);
+
+        if (wasUnread) {
+            Long fromUserId = message.getFromUserId();
+            conversationRepository.decrementUnreadCount(userId, fromUserId);
+            afterCommit(() -> {
+                webSocketService.sendUnreadDelta(userId, fromUserId, -1);
+                webSocketService.sendReadReceipt(fromUserId, userId, messageId, 1);
+            });
+        }
     }
 
     /**
@@ -197,10 +285,27 @@ public class MessageService {
      */
     public void markConversationAsRead(Long userId, Long contactUserId) {
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
+
+        int updated = messageRepository.markMessagesAsRead(userId, contactUserId);
+        conversationRepository.resetUnreadCount(userId, contactUserId);
+
+        if (updated > 0) {
+            afterCommit(() -> {
+                webSocketService.sendUnreadDelta(userId, contactUserId, -updated);
+                webSocketService.sendReadReceipt(contactUserId, userId, null, updated);
+            });
+        }
+    }
 
-        messageRepository.markMessagesAsRead(userId, contactUserId);
+    /**
+     * 转发“正在输入”状态给对方，仅做实时推送
+     */
+    public void notifyTyping(Long fromUserId, Long toUserId, boolean typing) {
+        if (fromUserId == null || toUserId == null || fromUserId.equals(toUserId)) {
+            return;
+        }
+        webSocketService.sendTyping(toUserId, fromUserId, typing);
     }
 
     /**
@@ -256,8 +361,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public List<MessageResponse> getProductMessages(Long productId) {
         // 验证商品是否存在
-        productRepository.findById(productId)
-                .orElseThrow(() -> new BusinessException("商品不存在"));
+        requireProduct(productId);
 
         List<Message> messages = messageRepository.findByProductIdOrderByCreateTimeDesc(productId);
         return messages.stream().map(this::convertToResponse).collect(Collectors.toList());
@@ -269,12 +373,10 @@ public class MessageService {
     @Transactional(readOnly = true)
     public List<MessageResponse> getProductConversationMessages(Long productId, Long userId, Long contactUserId) {
         // 验证商品是否存在
-        productRepository.findById(productId)
-                .orElseThrow(() -> new BusinessException("商品不存在"));
+        requireProduct(productId);
 
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
 
         List<Message> messages = messageRepository.findProductConversationMessages(productId, userId, contactUserId);
         return messages.stream().map(this::convertToResponse).collect(Collectors.toList());
@@ -304,8 +406,7 @@ public class MessageService {
     @Transactional(readOnly = true)
     public List<MessageResponse> searchConversationMessages(Long userId, Long contactUserId, String keyword) {
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
 
         List<Message> messages = messageRepository.findConversationMessagesByKeyword(userId, contactUserId, keyword);
         return messages.stream().map(this::convertToResponse).collect(Collectors.toList());
@@ -316,10 +417,37 @@ public class MessageService {
      */
     public void deleteConversation(Long userId, Long contactUserId) {
         // 验证联系人是否存在
-        userRepository.findById(contactUserId)
-                .orElseThrow(() -> new BusinessException("联系人不存在"));
+        requireContact(contactUserId);
 
         messageRepository.deleteConversationMessages(userId, contactUserId);
+        conversationRepository.deleteBetween(userId, contactUserId);
+    }
+
+    /**
+     * 从消息表重建全部会话摘要（一次性回填或数据修复时使用）
+     *
+     * @return 写入的会话摘要行数
+     */
+    public int rebuildConversationSummaries() {
+        int rows = conversationRepository.backfillSummaries();
+        conversationRepository.backfillLastMessageFields();
+        logger.info("会话摘要重建完成, 影响行数: {}", rows);
+        return rows;
+    }
+
+    /**
+     * 启动时如果会话摘要表为空而消息表有数据，自动回填一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillConversationSummariesIfEmpty() {
+        try {
+            if (conversationRepository.count() == 0 && messageRepository.count() > 0) {
+                logger.info("会话摘要表为空，开始从消息表回填");
+                rebuildConversationSummaries();
+            }
+        } catch (Exception e) {
+            logger.error("回填会话摘要失败", e);
+        }
     }
 
     /**
@@ -334,6 +462,30 @@ public class MessageService {
         return stats;
     }
 
+    /**
+     * 新消息写入双方的会话摘要
+     * 总是先写 user_id 较小一方的行：A→B 与 B→A 同时发送时两个事务按相同顺序加行锁，不会互相死锁
+     */
+    private void updateConversationSummaries(Message message) {
+        LocalDateTime messageTime = message.getCreateTime() != null ? message.getCreateTime() : LocalDateTime.now();
+        boolean senderFirst = message.getFromUserId() < message.getToUserId();
+        upsertConversation(message, senderFirst, messageTime);
+        upsertConversation(message, !senderFirst, messageTime);
+    }
+
+    /**
+     * 写入发送方（unread 不变）或接收方（unread 加一）的会话摘要
+     */
+    private void upsertConversation(Message message, boolean sender, LocalDateTime messageTime) {
+        if (sender) {
+            conversationRepository.upsertLastMessage(message.getFromUserId(), message.getToUserId(), message.getId(),
+                    message.getContent(), message.getType(), message.getProductId(), messageTime, 0);
+        } else {
+            conversationRepository.upsertLastMessage(message.getToUserId(), message.getFromUserId(), message.getId(),
+                    message.getContent(), message.getType(), message.getProductId(), messageTime, 1);
+        }
+    }
+
     /**
      * 转换为响应DTO
      */
@@ -396,6 +548,32 @@ public class MessageService {
         return response;
     }
 
+    /**
+     * 生成不透明的消息游标
+     */
+    private String encodeMessageCursor(Long messageId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + messageId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析消息游标，为空时返回最大值表示从最新消息开始
+     */
+    private long decodeMessageCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BusinessException("无效的消息游标");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的消息游标");
+        }
+    }
+
     /**
      * 获取消息类型文本
      */
@@ -422,4 +600,53 @@ public class MessageService {
             return "已发送";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 在当前事务提交后执行实时推送；推送失败只记录日志，不影响业务主流程
+     */
+    private void afterCommit(Runnable push) {
+        Runnable safePush = () -> {
+            try {
+                push.run();
+            } catch (Exception e) {
+                logger.warn("发送WebSocket通知失败: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safePush.run();
+                }
+            });
+        } else {
+            safePush.run();
+        }
+    }
+
+    /**
+     * 校验联系人存在，不存在的ID先由存在性过滤器在内存中拒绝，再查否定缓存，最后才查数据库
+     */
+    private void requireContact(Long contactUserId) {
+        if (!existenceFilterService.userMayExist(contactUserId) || existenceFilterService.userKnownMissing(contactUserId)) {
+            throw new BusinessException("联系人不存在");
+        }
+        if (!userRepository.existsById(contactUserId)) {
+            existenceFilterService.markUserMissing(contactUserId);
+            throw new BusinessException("联系人不存在");
+        }
+    }
+
+    /**
+     * 校验商品存在，不存在的ID先由存在性过滤器在内存中拒绝，再查否定缓存，最后才查数据库
+     */
+    private void requireProduct(Long productId) {
+        if (!existenceFilterService.productMayExist(productId) || existenceFilterService.productKnownMissing(productId)) {
+            throw new BusinessException("商品不存在");
+        }
+        if (!productRepository.existsById(productId)) {
+            existenceFilterService.markProductMissing(productId);
+            throw new BusinessException("商品不存在");
+        }
+    }
+}
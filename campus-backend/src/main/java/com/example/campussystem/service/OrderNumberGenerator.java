@@ -0,0 +1,13 @@
+package com.example.campussystem.service;
+
+/**
+ * 订单号生成器
+ * 实现必须线程安全，并保证跨节点唯一
+ */
+public interface OrderNumberGenerator {
+
+    /**
+     * 生成下一个订单号
+     */
+    String nextOrderNo();
+}
@@ -5,11 +5,13 @@ import com.example.campussystem.dto.OrderResponse;
 import com.example.campussystem.entity.Order;
 import com.example.campussystem.entity.Product;
 import com.example.campussystem.entity.User;
+import com.example.campussystem.event.ProductChangedEvent;
 import com.example.campussystem.exception.BusinessException;
 import com.example.campussystem.repository.OrderRepository;
 import com.example.campussystem.repository.ProductRepository;
 import com.example.campussystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -18,8 +20,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +41,12 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 创建订单
      */
@@ -63,8 +69,14 @@ public class OrderService {
         User buyer = userRepository.findById(buyerId)
                 .orElseThrow(() -> new BusinessException("买家不存在"));
 
+        // 原子预订商品：仅当商品仍为上架状态时置为已预订，并发下单只有一个能成功
+        if (productRepository.updateStatusIfMatch(product.getId(), 1, 2) == 0) {
+            throw new BusinessException("商品已被其他买家预订");
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+
         // 生成订单号
-        String orderNo = generateOrderNo();
+        String orderNo = orderNumberGenerator.nextOrderNo();
 
         // 创建订单
         Order order = new Order();
@@ -80,10 +92,6 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
 
-        // 更新商品状态为已预订
-        product.setStatus(2);
-        productRepository.save(product);
-
         return convertToResponse(savedOrder);
     }
 
@@ -140,11 +148,9 @@ public class OrderService {
         order.setStatus(4); // 已取消
         orderRepository.save(order);
 
-        // 恢复商品状态
-        Product product = productRepository.findById(order.getProductId()).orElse(null);
-        if (product != null) {
-            product.setStatus(1); // 可售
-            productRepository.save(product);
+        // 恢复商品状态：仅将已预订的商品恢复为可售，避免覆盖卖家的其他状态变更
+        if (productRepository.updateStatusIfMatch(order.getProductId(), 2, 1) > 0) {
+            eventPublisher.publishEvent(new ProductChangedEvent(order.getProductId()));
         }
     }
 
@@ -171,13 +177,7 @@ public class OrderService {
         // 检查是否双方都已确认
         if (order.getSellerConfirm() == 1) {
             order.setStatus(3); // 已完成
-            
-            // 更新商品状态为已售出
-            Product product = productRepository.findById(order.getProductId()).orElse(null);
-            if (product != null) {
-                product.setStatus(3); // 已售出
-                productRepository.save(product);
-            }
+            markProductSold(order.getProductId());
         } else {
             order.setStatus(2); // 进行中
         }
@@ -208,13 +208,7 @@ public class OrderService {
         // 检查是否双方都已确认
         if (order.getBuyerConfirm() == 1) {
             order.setStatus(3); // 已完成
-            
-            // 更新商品状态为已售出
-            Product product = productRepository.findById(order.getProductId()).orElse(null);
-            if (product != null) {
-                product.setStatus(3); // 已售出
-                productRepository.save(product);
-            }
+            markProductSold(order.getProductId());
         } else {
             order.setStatus(2); // 进行中
         }
@@ -222,6 +216,16 @@ public class OrderService {
         orderRepository.save(order);
     }
 
+    /**
+     * 双方确认后把商品从已预订置为已售出；条件更新与取消订单的恢复互斥，取消在先时商品已不是预订状态，确认失败
+     */
+    private void markProductSold(Long productId) {
+        if (productRepository.updateStatusIfMatch(productId, 2, 3) == 0) {
+            throw new BusinessException("商品已不是预订状态，无法完成订单");
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+    }
+
     /**
      * 获取用户的买家订单列表
      */
@@ -363,15 +367,6 @@ public class OrderService {
         }
     }
 
-    /**
-     * 生成订单号
-     */
-    private String generateOrderNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.valueOf((int) (Math.random() * 10000));
-        return "ORD" + timestamp + String.format("%04d", Integer.parseInt(random));
-    }
-
     /**
      * 转换为响应DTO
      */
@@ -0,0 +1,235 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.entity.Product;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热门商品榜单服务
+ * 在Redis有序集合中维护上架商品的浏览量排名（成员为商品ID，分数为浏览量），
+ * 浏览量写回时增量累加，商品上下架时增删成员，分页读取只需一次ZREVRANGE，无需查询数据库或整体失效。
+ */
+@Service
+public class PopularProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PopularProductService.class);
+
+    private static final String LEADERBOARD_KEY_PREFIX = "leaderboard:popular_products:";
+    private static final int STATUS_ON_SALE = 1;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.popular.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.popular.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    // 有序集合按序列化后的字节比较成员，不同编码格式写入的同一商品ID是不同成员，因此每种格式使用独立的榜单
+    @Value("${app.redis.codec.format:binary}")
+    private String codecFormat;
+
+    private String leaderboardKey;
+    private String rebuildKey;
+
+    @PostConstruct
+    public void init() {
+        leaderboardKey = LEADERBOARD_KEY_PREFIX + codecFormat.toLowerCase();
+        rebuildKey = leaderboardKey + ":rebuilding";
+    }
+
+    /**
+     * 启动时若榜单为空（首次部署或Redis数据丢失）则从数据库初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CacheWarmUpService.STARTUP_LOAD_ORDER)
+    public void seedOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long size = cacheService.zCard(leaderboardKey);
+            if (size == null || size == 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.warn("检查热门商品榜单失败，热门商品将回退到数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建：按ID游标分批扫描上架商品写入临时key，完成后用RENAME整体替换
+     *
+     * @return 榜单中的商品数，失败时返回 -1 并保留原榜单
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            cacheService.delete(rebuildKey);
+            long lastId = 0;
+            while (true) {
+                List<Product> batch = productRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                        STATUS_ON_SALE, lastId, PageRequest.of(0, rebuildBatchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                Map<Object, Double> scores = new HashMap<>();
+                for (Product product : batch) {
+                    scores.put(product.getId(), score(product));
+                }
+                cacheService.zAddAll(rebuildKey, scores);
+                count += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (count > 0) {
+                cacheService.rename(rebuildKey, leaderboardKey);
+            } else {
+                cacheService.delete(leaderboardKey);
+            }
+        } catch (Exception e) {
+            logger.error("重建热门商品榜单失败", e);
+            return -1;
+        }
+        logger.info("热门商品榜单重建完成，共 {} 件商品，耗时 {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * 按浏览量倒序分页获取商品ID。
+     * 榜单未启用、为空或Redis不可用时返回空，调用方回退到数据库查询。
+     */
+    public Optional<Page<Long>> getPage(int page, int size) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            Long total = cacheService.zCard(leaderboardKey);
+            if (total == null || total == 0) {
+                return Optional.empty();
+            }
+            long start = (long) page * size;
+            List<Long> ids = new ArrayList<>(size);
+            if (start < total) {
+                Set<Object> members = cacheService.zReverseRange(leaderboardKey, start, start + size - 1);
+                if (members != null) {
+                    for (Object member : members) {
+                        ids.add(((Number) member).longValue());
+                    }
+                }
+            }
+            return Optional.of(new PageImpl<>(ids, PageRequest.of(page, size), total));
+        } catch (Exception e) {
+            logger.warn("读取热门商品榜单失败，回退到数据库查询: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 浏览量写回数据库后同步累加榜单分数，只对已在榜单中的商品生效
+     */
+    public void recordViews(Long productId, long delta) {
+        if (!enabled || productId == null || delta == 0) {
+            return;
+        }
+        try {
+            // ZINCRBY 对不存在的成员会新增，已下架商品不应因迟到的浏览重新上榜；
+            // 用 ZADD XX INCR 原子地只累加已在榜单中的成员，不会与其他节点的移出交错
+            cacheService.zIncrementScoreIfPresent(leaderboardKey, productId, delta);
+        } catch (Exception e) {
+            logger.warn("更新热门商品榜单分数失败, productId={}: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * 将已不在售的商品移出榜单（读取时发现榜单数据过期后调用）
+     */
+    public void evict(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        try {
+            cacheService.zRemove(leaderboardKey, productIds.toArray());
+        } catch (Exception e) {
+            logger.warn("移出热门商品榜单失败, productIds={}: {}", productIds, e.getMessage());
+        }
+    }
+
+    /**
+     * 商品变更提交后重新加载：上架的按当前浏览量写入，其余（含已删除）移出
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // 榜单在Redis中共享，只需由发生变更的节点更新
+        if (!enabled || event.isRemote()) {
+            return;
+        }
+        try {
+            Map<Long, Product> products = productRepository.findAllById(event.getProductIds()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            Map<Object, Double> onSale = new HashMap<>();
+            List<Object> removed = new ArrayList<>();
+            for (Long id : new HashSet<>(event.getProductIds())) {
+                Product product = products.get(id);
+                if (product != null && Integer.valueOf(STATUS_ON_SALE).equals(product.getStatus())) {
+                    onSale.put(id, score(product));
+                } else {
+                    removed.add(id);
+                }
+            }
+            if (!onSale.isEmpty()) {
+                cacheService.zAddAll(leaderboardKey, onSale);
+            }
+            if (!removed.isEmpty()) {
+                cacheService.zRemove(leaderboardKey, removed.toArray());
+            }
+        } catch (Exception e) {
+            logger.warn("更新热门商品榜单失败, productIds={}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * 榜单统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        try {
+            stats.put("size", cacheService.zCard(leaderboardKey));
+        } catch (Exception e) {
+            stats.put("error", e.getMessage());
+        }
+        return stats;
+    }
+
+    private double score(Product product) {
+        return product.getViewCount() != null ? product.getViewCount() : 0;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.entity.Category;
+import com.example.campussystem.entity.Product;
+import com.example.campussystem.event.ProductChangeRelay;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.repository.ProductRepository;
+import com.example.campussystem.search.BigramTokenizer;
+import com.example.campussystem.search.InvertedIndex;
+import com.example.campussystem.search.SuggestionIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 商品全文检索服务
+ * 在进程内维护标题、描述、品牌、标签的倒排索引（只收录上架商品），启动时分批扫描重建，
+ * 商品变更在事务提交后增量更新，其他节点的变更经 {@link ProductChangeRelay} 转发后同样重新加载。
+ * 同一次检索可同时返回分类、价格区间、成色、是否可议价的分面计数。
+ * 另维护一棵由标题、品牌、分类名构成的联想前缀树，按浏览量给出输入补全。
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private static final int STATUS_ON_SALE = 1;
+
+    // 字段权重：标题命中比描述命中更相关
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float TAGS_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    @Value("${app.search.price-buckets:50,100,200,500,1000}")
+    private BigDecimal[] priceBuckets;
+
+    @Value("${app.search.suggest.top-k:10}")
+    private int suggestTopK;
+
+    private volatile InvertedIndex index;
+    private volatile SuggestionIndex suggestions;
+    private volatile boolean ready = false;
+
+    // 重建期间发生变更的商品，重建完成后补做
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding = false;
+
+    @PostConstruct
+    public void init() {
+        index = new InvertedIndex(priceBuckets);
+        suggestions = new SuggestionIndex(suggestTopK);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(CacheWarmUpService.STARTUP_LOAD_ORDER)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量重建：按ID游标分批扫描上架商品构建新索引，完成后整体替换
+     *
+     * @return 索引中的商品数，失败时返回 -1 并保留原索引
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            InvertedIndex fresh = new InvertedIndex(priceBuckets);
+            SuggestionIndex freshSuggestions = new SuggestionIndex(suggestTopK);
+            Map<Long, String> categoryNames = loadCategoryNames();
+            long lastId = 0;
+            while (true) {
+                List<Product> batch = productRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                        STATUS_ON_SALE, lastId, PageRequest.of(0, rebuildBatchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Product product : batch) {
+                    addToIndex(fresh, freshSuggestions, product, categoryNames);
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            index = fresh;
+            suggestions = freshSuggestions;
+            ready = true;
+        } catch (Exception e) {
+            logger.error("重建商品搜索索引失败，搜索将回退到数据库查询", e);
+            return -1;
+        } finally {
+            rebuilding = false;
+        }
+        if (!changedDuringRebuild.isEmpty()) {
+            reload(new ArrayList<>(changedDuringRebuild));
+            changedDuringRebuild.clear();
+        }
+        int size = index.size();
+        logger.info("商品搜索索引重建完成，共 {} 件商品，耗时 {} ms", size, System.currentTimeMillis() - start);
+        return size;
+    }
+
+    /**
+     * 索引是否可用；不可用时调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 关键词检索上架商品，返回按 BM25 相关度排序的商品ID分页。
+     * 索引未就绪或关键词无有效词项时返回空，调用方回退到数据库查询。
+     */
+    public Optional<Page<Long>> search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                       int page, int size) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+        List<String> terms = BigramTokenizer.tokenizeQuery(keyword);
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+        PageRequest pageable = PageRequest.of(page, size);
+        InvertedIndex.SearchResult result = index.search(new InvertedIndex.SearchQuery()
+                .terms(terms)
+                .category(categoryId)
+                .price(minPrice, maxPrice)
+                .page((int) pageable.getOffset(), size));
+        return Optional.of(new PageImpl<>(result.getProductIds(), pageable, result.getTotal()));
+    }
+
+    /**
+     * 分面检索：一次遍历同时返回当前页商品ID与各分面计数，关键词可为空（此时在全部上架商品上聚合）。
+     * 索引未就绪时返回空，调用方回退到数据库查询。
+     */
+    public Optional<InvertedIndex.SearchResult> facetedSearch(String keyword, Long categoryId,
+                                                              BigDecimal minPrice, BigDecimal maxPrice,
+                                                              String condition, Boolean negotiable,
+                                                              int offset, int limit) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+        List<String> terms = BigramTokenizer.tokenizeQuery(keyword);
+        if (keyword != null && !keyword.isBlank() && terms.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(index.search(new InvertedIndex.SearchQuery()
+                .terms(terms)
+                .category(categoryId)
+                .price(minPrice, maxPrice)
+                .condition(condition == null || condition.isBlank() ? null : condition.trim())
+                .negotiable(negotiable)
+                .page(offset, limit)
+                .withFacets(true)));
+    }
+
+    /**
+     * 输入联想：返回以 prefix 开头、浏览量最高的商品标题/品牌/分类名，只读内存不访问数据库
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (!isReady()) {
+            return new ArrayList<>();
+        }
+        return suggestions.suggest(prefix, Math.min(limit, suggestTopK));
+    }
+
+    /**
+     * 浏览量写回数据库后同步提升联想权重
+     */
+    public void onViewsFlushed(Long productId, long delta) {
+        if (isReady() && productId != null) {
+            suggestions.addWeight(productId, delta);
+        }
+    }
+
+    /**
+     * 商品变更提交后（含其他节点转发的变更）从数据库重新加载并更新索引
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || event.getProductIds().isEmpty()) {
+            return;
+        }
+        reload(new ArrayList<>(event.getProductIds()));
+    }
+
+    /**
+     * 索引统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("documents", index.size());
+        stats.put("suggestions", suggestions.size());
+        return stats;
+    }
+
+    /**
+     * 从数据库加载商品并更新当前索引：上架的写入，其余（含已删除）移出
+     */
+    private void reload(List<Long> productIds) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(productIds);
+        }
+        try {
+            Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                    .collect(Collectors.toMap(Product::getId, p -> p));
+            InvertedIndex current = index;
+            SuggestionIndex currentSuggestions = suggestions;
+            Map<Long, String> categoryNames = loadCategoryNames();
+            for (Long id : new HashSet<>(productIds)) {
+                Product product = products.get(id);
+                if (product != null && Integer.valueOf(STATUS_ON_SALE).equals(product.getStatus())) {
+                    addToIndex(current, currentSuggestions, product, categoryNames);
+                } else {
+                    current.remove(id);
+                    currentSuggestions.remove(id);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("更新商品搜索索引失败, productIds={}: {}", productIds, e.getMessage());
+        }
+    }
+
+    private void addToIndex(InvertedIndex target, SuggestionIndex suggestTarget, Product product,
+                            Map<Long, String> categoryNames) {
+        Map<String, Float> terms = new HashMap<>();
+        accumulate(terms, product.getTitle(), TITLE_WEIGHT);
+        accumulate(terms, product.getBrand(), BRAND_WEIGHT);
+        accumulate(terms, product.getTags(), TAGS_WEIGHT);
+        accumulate(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        String condition = product.getCondition() == null || product.getCondition().isBlank()
+                ? null : product.getCondition().trim();
+        long createTime = product.getCreateTime() != null
+                ? product.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+        target.put(new InvertedIndex.Document(product.getId(), createTime, product.getCategoryId(), product.getPrice(),
+                condition, Boolean.TRUE.equals(product.getIsNegotiable()), terms));
+
+        List<String> phrases = new ArrayList<>(3);
+        phrases.add(product.getTitle());
+        phrases.add(product.getBrand());
+        phrases.add(categoryNames.get(product.getCategoryId()));
+        long views = product.getViewCount() != null ? product.getViewCount() : 0;
+        suggestTarget.put(product.getId(), phrases, views);
+    }
+
+    private Map<Long, String> loadCategoryNames() {
+        Map<Long, String> names = new HashMap<>();
+        try {
+            for (Category category : categoryService.getAllCategories()) {
+                names.put(category.getId(), category.getName());
+            }
+        } catch (Exception e) {
+            logger.warn("加载分类名称失败，联想将不含分类名: {}", e.getMessage());
+        }
+        return names;
+    }
+
+    private void accumulate(Map<String, Float> terms, String text, float weight) {
+        for (String token : BigramTokenizer.tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -1,27 +1,48 @@
 package com.example.campussystem.service;
 
+import com.example.campussystem.dto.FacetCount;
+import com.example.campussystem.dto.ProductCursorResponse;
 import com.example.campussystem.dto.ProductRequest;
 import com.example.campussystem.dto.ProductResponse;
+import com.example.campussystem.dto.ProductSearchResponse;
 import com.example.campussystem.entity.Category;
 import com.example.campussystem.entity.Product;
 import com.example.campussystem.entity.User;
+import com.example.campussystem.event.ProductChangedEvent;
 import com.example.campussystem.exception.BusinessException;
 import com.example.campussystem.repository.CategoryRepository;
 import com.example.campussystem.repository.ProductRepository;
 import com.example.campussystem.repository.UserRepository;
+import com.example.campussystem.search.InvertedIndex;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +52,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -46,12 +69,42 @@ public class ProductService {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private PopularProductService popularProductService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private LatestProductService latestProductService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     // 缓存键常量
-    private static final String CACHE_KEY_POPULAR_PRODUCTS = "popular_products:";
-    private static final String CACHE_KEY_LATEST_PRODUCTS = "latest_products:";
     private static final String CACHE_KEY_PRODUCT_DETAIL = "product_detail:";
-    private static final String CACHE_KEY_CATEGORY_PRODUCTS = "category_products:";
-    private static final String CACHE_KEY_USER_PRODUCTS = "user_products:";
+
+    // 最新商品游标分页
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String CURSOR_PREFIX = "p:";
+    // 列表缓存只保存有序的商品ID和总数，商品详情从详情缓存批量读取
+    private static final String CACHE_KEY_CATEGORY_PRODUCTS = "category_product_ids:";
+    private static final String CACHE_KEY_USER_PRODUCTS = "user_product_ids:";
 
     /**
      * 发布商品
@@ -106,6 +159,7 @@ public class ProductService {
 
         // 清除相关缓存
         clearProductCaches(savedProduct.getCategoryId(), userId);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId()));
 
         // 设置关联信息并返回
         savedProduct.setUser(user);
@@ -188,6 +242,7 @@ public class ProductService {
         }
 
         Long oldCategoryId = product.getCategoryId();
+        BigDecimal oldPrice = product.getPrice();
 
         // 更新商品信息
         product.setCategoryId(request.getCategoryId());
@@ -223,13 +278,16 @@ public class ProductService {
         // 保存更新
         Product updatedProduct = productRepository.save(product);
         
-        // 清除相关缓存
-        clearProductCaches(oldCategoryId, userId);
+        // 列表缓存只保存ID：只有分类变化或价格（可作为排序字段）变化时才影响列表
         if (!oldCategoryId.equals(request.getCategoryId())) {
+            clearProductCaches(oldCategoryId, userId);
             clearProductCaches(request.getCategoryId(), userId);
+        } else if (oldPrice == null || request.getPrice() == null || oldPrice.compareTo(request.getPrice()) != 0) {
+            cacheService.invalidateNamespace(CACHE_KEY_CATEGORY_PRODUCTS + oldCategoryId + ":");
         }
         // 清除商品详情缓存
         cacheService.delete(CACHE_KEY_PRODUCT_DETAIL + productId);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
         
         return new ProductResponse(updatedProduct);
     }
@@ -239,82 +297,64 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public ProductResponse getProductDetail(Long productId) {
-        // 先从缓存获取
-        String cacheKey = CACHE_KEY_PRODUCT_DETAIL + productId;
-        ProductResponse cachedProduct = cacheService.get(cacheKey, ProductResponse.class);
-        if (cachedProduct != null) {
-            // 异步增加浏览次数
-            incrementViewCountAsync(productId);
-            return cachedProduct;
+        // 不存在的商品ID在内存中直接拒绝
+        if (!existenceFilterService.productMayExist(productId)) {
+            throw new BusinessException("商品不存在");
         }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new BusinessException("商品不存在"));
+        // 缓存商品详情，缓存30分钟；热门商品缓存失效时并发请求只查询一次数据库
+        String cacheKey = CACHE_KEY_PRODUCT_DETAIL + productId;
+        ProductResponse response = cacheService.getOrLoad(cacheKey, 30, java.util.concurrent.TimeUnit.MINUTES, () -> {
+            // 缓存未命中才检查否定缓存，已存在的商品命中详情缓存时不多读一次Redis
+            if (existenceFilterService.productKnownMissing(productId)) {
+                throw new BusinessException("商品不存在");
+            }
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> {
+                        existenceFilterService.markProductMissing(productId);
+                        return new BusinessException("商品不存在");
+                    });
 
-        // 加载关联的用户信息
-        User user = userRepository.findById(product.getUserId())
-                .orElse(null);
-        if (user != null) {
-            product.setUser(user);
-        }
+            // 加载关联的用户信息
+            User user = userRepository.findById(product.getUserId())
+                    .orElse(null);
+            if (user != null) {
+                product.setUser(user);
+            }
 
-        // 加载关联的分类信息
-        Category category = categoryRepository.findById(product.getCategoryId())
-                .orElse(null);
-        if (category != null) {
-            product.setCategory(category);
-        }
+            // 加载关联的分类信息
+            Category category = categoryRepository.findById(product.getCategoryId())
+                    .orElse(null);
+            if (category != null) {
+                product.setCategory(category);
+            }
 
-        // 增加浏览次数
-        product.incrementViewCount();
-        productRepository.save(product);
+            return new ProductResponse(product);
+        });
+
+        // 浏览次数先在内存中累加，定时批量写回
+        viewCountService.recordView(productId);
 
-        ProductResponse response = new ProductResponse(product);
-        
-        // 缓存商品详情，缓存30分钟
-        cacheService.set(cacheKey, response, 30, java.util.concurrent.TimeUnit.MINUTES);
-        
         return response;
     }
 
     /**
      * 清除商品相关缓存
+     * 列表缓存按命名空间代数失效，无需扫描keyspace
      */
     private void clearProductCaches(Long categoryId, Long userId) {
         // 清除分类商品缓存
-        cacheService.deleteByPattern(CACHE_KEY_CATEGORY_PRODUCTS + categoryId + ":*");
+        cacheService.invalidateNamespace(CACHE_KEY_CATEGORY_PRODUCTS + categoryId + ":");
         // 清除用户商品缓存
         cacheService.delete(CACHE_KEY_USER_PRODUCTS + userId);
-        // 清除热门商品缓存
-        cacheService.deleteByPattern(CACHE_KEY_POPULAR_PRODUCTS + "*");
-        // 清除最新商品缓存
-        cacheService.deleteByPattern(CACHE_KEY_LATEST_PRODUCTS + "*");
     }
 
     /**
      * 增加商品浏览次数
+     * 只写入内存缓冲，不失效详情缓存，详情中的浏览量随缓存过期刷新
      */
     public void incrementViewCount(Long productId) {
-        productRepository.findById(productId).ifPresent(product -> {
-            product.incrementViewCount();
-            productRepository.save(product);
-            // 清除缓存，下次查询时重新缓存
-            cacheService.delete(CACHE_KEY_PRODUCT_DETAIL + productId);
-        });
-    }
-
-    /**
-     * 异步增加浏览次数
-     */
-    private void incrementViewCountAsync(Long productId) {
-        // 这里可以使用异步方式更新浏览次数，避免影响查询性能
-        // 简单实现：直接更新数据库
-        productRepository.findById(productId).ifPresent(product -> {
-            product.incrementViewCount();
-            productRepository.save(product);
-            // 清除缓存，下次查询时重新缓存
-            cacheService.delete(CACHE_KEY_PRODUCT_DETAIL + productId);
-        });
+        viewCountService.recordView(productId);
     }
 
     /**
@@ -330,6 +370,7 @@ public class ProductService {
         // 清除相关缓存
         clearProductCaches(product.getCategoryId(), userId);
         cacheService.delete(CACHE_KEY_PRODUCT_DETAIL + productId);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
     }
 
     /**
@@ -349,6 +390,7 @@ public class ProductService {
         // 清除相关缓存
         clearProductCaches(product.getCategoryId(), userId);
         cacheService.delete(CACHE_KEY_PRODUCT_DETAIL + productId);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
     }
 
     /**
@@ -360,21 +402,97 @@ public class ProductService {
         Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<Product> products = productRepository.findByStatus(1, pageable); // 只查询上架商品
-        return products.map(ProductResponse::new);
+        return toProductResponsePage(products);
     }
 
     /**
      * 搜索商品
+     * 有关键词时走内存倒排索引并按相关度排序（忽略 sortBy/sortDir），索引不可用时回退到数据库查询
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProducts(String keyword, Long categoryId, 
                                               BigDecimal minPrice, BigDecimal maxPrice,
                                               int page, int size, String sortBy, String sortDir) {
+        if (keyword != null && !keyword.isBlank()) {
+            Optional<Page<Long>> hits = productSearchService.search(keyword, categoryId, minPrice, maxPrice, page, size);
+            if (hits.isPresent()) {
+                Page<Long> ids = hits.get();
+                return new PageImpl<>(toProductResponses(findProductsInOrder(ids.getContent())),
+                        ids.getPageable(), ids.getTotalElements());
+            }
+        }
+
         Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<Product> products = productRepository.searchProducts(keyword, categoryId, minPrice, maxPrice, 1, pageable);
-        return products.map(ProductResponse::new);
+        return toProductResponsePage(products);
+    }
+
+    /**
+     * 搜索框输入联想，直接读取内存前缀树，不开启事务也不访问数据库
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> suggest(String prefix, int limit) {
+        return productSearchService.suggest(prefix, limit);
+    }
+
+    /**
+     * 分面搜索：一次调用返回当前页商品和分类、价格区间、成色、是否可议价的计数，计数全部来自内存索引。
+     * 索引不可用时回退到数据库搜索，此时不返回分面。
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResponse facetedSearch(String keyword, Long categoryId,
+                                               BigDecimal minPrice, BigDecimal maxPrice,
+                                               String condition, Boolean negotiable,
+                                               int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        Optional<InvertedIndex.SearchResult> result = productSearchService.facetedSearch(
+                keyword, categoryId, minPrice, maxPrice, condition, negotiable, (int) pageable.getOffset(), size);
+        if (result.isEmpty()) {
+            Page<ProductResponse> products = searchProducts(keyword, categoryId, minPrice, maxPrice,
+                    page, size, "createTime", "desc");
+            return new ProductSearchResponse(products, new LinkedHashMap<>());
+        }
+
+        InvertedIndex.SearchResult hits = result.get();
+        Page<ProductResponse> products = new PageImpl<>(toProductResponses(findProductsInOrder(hits.getProductIds())),
+                pageable, hits.getTotal());
+        return new ProductSearchResponse(products, toFacetCounts(hits.getFacets()));
+    }
+
+    /**
+     * 为分面取值补充展示文本，分类按名称显示，其余分面按计数降序排列（价格区间保持区间顺序）
+     */
+    private Map<String, List<FacetCount>> toFacetCounts(Map<String, Map<String, Integer>> facets) {
+        Map<Long, String> categoryNames = categoryService.getAllCategories().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName, (a, b) -> a));
+        Map<String, List<FacetCount>> response = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> facet : facets.entrySet()) {
+            List<FacetCount> counts = new ArrayList<>();
+            for (Map.Entry<String, Integer> value : facet.getValue().entrySet()) {
+                counts.add(new FacetCount(value.getKey(),
+                        facetLabel(facet.getKey(), value.getKey(), categoryNames), value.getValue()));
+            }
+            if (!InvertedIndex.FACET_PRICE.equals(facet.getKey())) {
+                counts.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+            }
+            response.put(facet.getKey(), counts);
+        }
+        return response;
+    }
+
+    private String facetLabel(String facet, String value, Map<Long, String> categoryNames) {
+        switch (facet) {
+            case InvertedIndex.FACET_CATEGORY:
+                return categoryNames.getOrDefault(Long.valueOf(value), value);
+            case InvertedIndex.FACET_PRICE:
+                return value.endsWith("-") ? "¥" + value.substring(0, value.length() - 1) + "以上" : "¥" + value;
+            case InvertedIndex.FACET_NEGOTIABLE:
+                return "true".equals(value) ? "可议价" : "不可议价";
+            default:
+                return value;
+        }
     }
 
     /**
@@ -382,41 +500,27 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByCategory(Long categoryId, int page, int size, String sortBy, String sortDir) {
-        String cacheKey = CACHE_KEY_CATEGORY_PRODUCTS + categoryId + ":" + page + ":" + size + ":" + sortBy + ":" + sortDir;
-        
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        Page<ProductResponse> cachedProducts = cacheService.get(cacheKey, Page.class);
-        if (cachedProducts != null) {
-            return cachedProducts;
+        // 默认的按发布时间倒序由分类时间线提供
+        if ("createTime".equals(sortBy) && "desc".equalsIgnoreCase(sortDir)) {
+            Optional<Page<Long>> latest = latestProductService.getPage(categoryId, page, size);
+            if (latest.isPresent()) {
+                Page<Long> ids = latest.get();
+                return new PageImpl<>(loadProductDetails(ids.getContent(), stale -> { }),
+                        ids.getPageable(), ids.getTotalElements());
+            }
         }
 
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        
-        Page<Product> products = productRepository.findByCategoryIdAndStatus(categoryId, 1, pageable);
+        String cacheKey = cacheService.versionedKey(CACHE_KEY_CATEGORY_PRODUCTS + categoryId + ":",
+                page + ":" + size + ":" + sortBy + ":" + sortDir);
         
-        // 为每个商品加载用户信息
-        Page<ProductResponse> result = products.map(product -> {
-            // 加载关联的用户信息
-            User user = userRepository.findById(product.getUserId()).orElse(null);
-            if (user != null) {
-                product.setUser(user);
-            }
-            
-            // 加载关联的分类信息
-            Category category = categoryRepository.findById(product.getCategoryId()).orElse(null);
-            if (category != null) {
-                product.setCategory(category);
-            }
-            
-            return new ProductResponse(product);
+        // 缓存分类商品ID页，缓存20分钟；10分钟后先返回旧数据并在后台刷新，热门分类的缓存不会整体过期
+        Page<Long> ids = cacheService.getOrRefresh(cacheKey, 10, 20, java.util.concurrent.TimeUnit.MINUTES, () -> {
+            Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
+            Pageable pageable = PageRequest.of(page, size, sort);
+            return productRepository.findIdPageByCategoryIdAndStatus(categoryId, 1, pageable);
         });
-        
-        // 缓存分类商品，缓存20分钟
-        cacheService.set(cacheKey, result, 20, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return result;
+        return new PageImpl<>(loadProductDetails(ids.getContent(), stale -> { }),
+                ids.getPageable(), ids.getTotalElements());
     }
 
     /**
@@ -441,22 +545,8 @@ public class ProductService {
             products = productRepository.findByUserIdAndStatusNot(userId, 0, pageable);
         }
         
-        // 转换为响应对象
-        return products.map(product -> {
-            // 加载关联的用户信息
-            User user = userRepository.findById(product.getUserId()).orElse(null);
-            if (user != null) {
-                product.setUser(user);
-            }
-            
-            // 加载关联的分类信息
-            Category category = categoryRepository.findById(product.getCategoryId()).orElse(null);
-            if (category != null) {
-                product.setCategory(category);
-            }
-            
-            return new ProductResponse(product);
-        });
+        // 批量加载用户和分类信息并转换为响应对象
+        return toProductResponsePage(products);
     }
 
     /**
@@ -466,119 +556,335 @@ public class ProductService {
     public List<ProductResponse> getUserProducts(Long userId) {
         String cacheKey = CACHE_KEY_USER_PRODUCTS + userId;
         
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        List<ProductResponse> cachedProducts = cacheService.get(cacheKey, List.class);
-        if (cachedProducts != null) {
-            return cachedProducts;
+        // 缓存用户商品ID，缓存10分钟
+        List<Long> ids = cacheService.getOrLoad(cacheKey, 10, java.util.concurrent.TimeUnit.MINUTES,
+                () -> productRepository.findIdsByUserIdAndStatusNot(userId, 0)); // 排除已删除的商品
+
+        Map<Long, ProductResponse> details = hydrateProducts(ids);
+        List<ProductResponse> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductResponse response = details.get(id);
+            if (response != null && !Integer.valueOf(0).equals(response.getStatus())) {
+                result.add(response);
+            }
         }
-
-        List<Product> products = productRepository.findByUserIdAndStatusNot(userId, 0); // 排除已删除的商品
-        
-        // 为每个商品加载用户信息
-        List<ProductResponse> result = products.stream()
-                .map(product -> {
-                    // 加载关联的用户信息
-                    User user = userRepository.findById(product.getUserId()).orElse(null);
-                    if (user != null) {
-                        product.setUser(user);
-                    }
-                    
-                    // 加载关联的分类信息
-                    Category category = categoryRepository.findById(product.getCategoryId()).orElse(null);
-                    if (category != null) {
-                        product.setCategory(category);
-                    }
-                    
-                    return new ProductResponse(product);
-                })
-                .collect(Collectors.toList());
-        
-        // 缓存用户商品，缓存10分钟
-        cacheService.set(cacheKey, result, 10, java.util.concurrent.TimeUnit.MINUTES);
-        
         return result;
     }
 
     /**
      * 获取热门商品
+     * 排名来自Redis有序集合榜单，商品详情批量读取详情缓存，只有缓存未命中的商品才回源数据库；
+     * 榜单不可用时回退到按浏览量排序的数据库查询
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<ProductResponse> getPopularProducts(int page, int size) {
-        String cacheKey = CACHE_KEY_POPULAR_PRODUCTS + page + ":" + size;
-        
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        Page<ProductResponse> cachedProducts = cacheService.get(cacheKey, Page.class);
-        if (cachedProducts != null) {
-            return cachedProducts;
+        Optional<Page<Long>> ranked = popularProductService.getPage(page, size);
+        if (ranked.isPresent()) {
+            Page<Long> ids = ranked.get();
+            return new PageImpl<>(loadProductDetails(ids.getContent(), popularProductService::evict),
+                    ids.getPageable(), ids.getTotalElements());
         }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Product> products = productRepository.findPopularProducts(1, pageable);
-        Page<ProductResponse> result = products.map(ProductResponse::new);
-        
-        // 缓存热门商品，缓存15分钟
-        cacheService.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
-        
+        return toProductResponsePage(products);
+    }
+
+    /**
+     * 获取热度趋势商品
+     * 排名来自内存中按时间衰减的热度快照，窗口内暂无事件时回退到热门商品
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<ProductResponse> getTrendingProducts(int page, int size) {
+        Optional<Page<Long>> ranked = trendingService.getPage(page, size);
+        if (ranked.isEmpty()) {
+            return getPopularProducts(page, size);
+        }
+        Page<Long> ids = ranked.get();
+        return new PageImpl<>(loadProductDetails(ids.getContent(), stale -> { }),
+                ids.getPageable(), ids.getTotalElements());
+    }
+
+    /**
+     * 预热浏览量最高的前 limit 件在售商品的详情缓存，排名取自热门榜单，榜单不可用时取自数据库
+     *
+     * @return 已写入或已在缓存中的商品数
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int warmUpPopularProductDetails(int limit) {
+        List<Long> ids = popularProductService.getPage(0, limit)
+                .map(Page::getContent)
+                .orElseGet(() -> productRepository.findPopularProducts(1, PageRequest.of(0, limit))
+                        .map(Product::getId)
+                        .getContent());
+        return hydrateProducts(ids).size();
+    }
+
+    /**
+     * 预热全站最新时间线前 limit 件商品的详情缓存，时间线未就绪时跳过
+     *
+     * @return 已写入或已在缓存中的商品数
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int warmUpLatestProductDetails(int limit) {
+        return latestProductService.getPage(null, 0, limit)
+                .map(ids -> hydrateProducts(ids.getContent()).size())
+                .orElse(0);
+    }
+
+    private String encodeProductCursor(Long productId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + productId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析商品游标，为空时返回 null 表示从最新商品开始
+     */
+    private Long decodeProductCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BusinessException("无效的商品游标");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的商品游标");
+        }
+    }
+
+    /**
+     * 按给定ID顺序批量获取在售商品详情：先批量读取详情缓存，未命中的一次性从数据库加载并回填缓存。
+     * 已不在售的商品被跳过，并交给 onStale 从对应排名中移除
+     */
+    private List<ProductResponse> loadProductDetails(List<Long> productIds, Consumer<List<Long>> onStale) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductResponse> details = hydrateProducts(productIds);
+
+        List<ProductResponse> result = new ArrayList<>(productIds.size());
+        List<Long> stale = new ArrayList<>();
+        for (Long id : productIds) {
+            ProductResponse response = details.get(id);
+            if (response != null && Integer.valueOf(1).equals(response.getStatus())) {
+                result.add(response);
+            } else {
+                stale.add(id);
+            }
+        }
+        if (!stale.isEmpty()) {
+            onStale.accept(stale);
+        }
         return result;
     }
 
+    /**
+     * 批量读取商品详情：一次MGET读取详情缓存，未命中的一次性从数据库加载并回填缓存；已不存在的商品不在结果中
+     */
+    private Map<Long, ProductResponse> hydrateProducts(List<Long> productIds) {
+        Map<Long, ProductResponse> details = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return details;
+        }
+        List<String> keys = productIds.stream()
+                .map(id -> CACHE_KEY_PRODUCT_DETAIL + id)
+                .collect(Collectors.toList());
+        List<ProductResponse> cached;
+        try {
+            cached = cacheService.multiGet(keys, ProductResponse.class);
+        } catch (Exception e) {
+            cached = new ArrayList<>();
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            ProductResponse value = i < cached.size() ? cached.get(i) : null;
+            if (value != null) {
+                details.put(productIds.get(i), value);
+            } else {
+                missing.add(productIds.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Object> backfill = new HashMap<>();
+            for (ProductResponse response : toProductResponses(findProductsInOrder(missing))) {
+                details.put(response.getId(), response);
+                backfill.put(CACHE_KEY_PRODUCT_DETAIL + response.getId(), response);
+            }
+            try {
+                cacheService.multiSet(backfill, 30, java.util.concurrent.TimeUnit.MINUTES);
+            } catch (Exception e) {
+                logger.warn("回填商品详情缓存失败: {}", e.getMessage());
+            }
+        }
+        return details;
+    }
+
+    /**
+     * 商品变更提交后删除详情缓存（含管理员、订单等其他入口的状态变更），列表缓存只保存ID，随之读到最新详情；
+     * 事务内删除后、提交前可能被并发读取回填旧数据，提交后再删除一次即可避免。
+     * 详情缓存在Redis中共享，只由发起变更的节点删除
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        List<String> keys = event.getProductIds().stream()
+                .map(id -> CACHE_KEY_PRODUCT_DETAIL + id)
+                .collect(Collectors.toList());
+        try {
+            cacheService.multiDelete(keys);
+        } catch (Exception e) {
+            logger.warn("删除商品详情缓存失败，将在过期后刷新, productIds={}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
     /**
      * 获取最新商品
+     * 前几页由内存时间线提供，深分页按键集查询；时间线未就绪时回退到数据库排序查询
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<ProductResponse> getLatestProducts(int page, int size) {
-        String cacheKey = CACHE_KEY_LATEST_PRODUCTS + page + ":" + size;
-        
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        Page<ProductResponse> cachedProducts = cacheService.get(cacheKey, Page.class);
-        if (cachedProducts != null) {
-            return cachedProducts;
+        Optional<Page<Long>> latest = latestProductService.getPage(null, page, size);
+        if (latest.isPresent()) {
+            Page<Long> ids = latest.get();
+            return new PageImpl<>(loadProductDetails(ids.getContent(), stale -> { }),
+                    ids.getPageable(), ids.getTotalElements());
         }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Product> products = productRepository.findLatestProducts(1, pageable);
-        
-        // 为每个商品加载用户信息
-        Page<ProductResponse> result = products.map(product -> {
-            // 加载关联的用户信息
-            User user = userRepository.findById(product.getUserId()).orElse(null);
+        return toProductResponsePage(products);
+    }
+
+    /**
+     * 按游标获取最新商品（发布时间倒序），categoryId 为空时为全站
+     * 每页以上一页最后一个商品为锚点按键集查询，翻到多深都不需要 OFFSET，适合无限滚动
+     *
+     * @param cursor 上一页返回的游标，为空时从最新商品开始
+     * @param limit  每页数量
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductCursorResponse getLatestProductsAfter(Long categoryId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+        // 多取一条用于判断是否还有更早的商品
+        List<Long> ids = latestProductService.getIdsAfter(categoryId, decodeProductCursor(cursor), pageSize + 1);
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        // 详情加载会跳过刚下架的商品，游标仍取ID列表的最后一个，保证下一页衔接
+        List<ProductResponse> products = loadProductDetails(ids, stale -> { });
+        String nextCursor = hasMore ? encodeProductCursor(ids.get(ids.size() - 1)) : null;
+        return new ProductCursorResponse(products, nextCursor, hasMore);
+    }
+
+    /**
+     * 获取推荐商品
+     * 优先使用收藏/购买共现计算出的相似商品（只读Redis和详情缓存），不足时用同分类浏览量最高的商品补足
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductResponse> getRecommendedProducts(Long productId, int limit) {
+        List<ProductResponse> result = new ArrayList<>(
+                loadProductDetails(recommendationService.getNeighbours(productId, limit), stale -> { }));
+        if (result.size() >= limit) {
+            return result.subList(0, limit);
+        }
+
+        if (!existenceFilterService.productMayExist(productId)
+                || existenceFilterService.productKnownMissing(productId)) {
+            throw new BusinessException("商品不存在");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> {
+                    existenceFilterService.markProductMissing(productId);
+                    return new BusinessException("商品不存在");
+                });
+
+        Set<Long> seen = new HashSet<>();
+        for (ProductResponse response : result) {
+            seen.add(response.getId());
+        }
+        Pageable pageable = PageRequest.of(0, limit + seen.size());
+        List<Product> sameCategory = new ArrayList<>();
+        for (Product candidate : productRepository.findRecommendedProducts(
+                product.getCategoryId(), productId, 1, pageable)) {
+            if (sameCategory.size() + result.size() >= limit) {
+                break;
+            }
+            if (!seen.contains(candidate.getId())) {
+                sameCategory.add(candidate);
+            }
+        }
+        result.addAll(toProductResponses(sameCategory));
+        return result;
+    }
+
+    /**
+     * 批量加载商品关联的用户和分类信息，并转换为响应对象
+     * 每页只对用户表和分类表各发起一次 IN 查询，避免逐行 findById
+     */
+    private List<ProductResponse> toProductResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Product product : products) {
+            userIds.add(product.getUserId());
+            categoryIds.add(product.getCategoryId());
+        }
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<ProductResponse> responses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            User user = users.get(product.getUserId());
             if (user != null) {
                 product.setUser(user);
             }
-            
-            // 加载关联的分类信息
-            Category category = categoryRepository.findById(product.getCategoryId()).orElse(null);
+            Category category = categories.get(product.getCategoryId());
             if (category != null) {
                 product.setCategory(category);
             }
-            
-            return new ProductResponse(product);
-        });
-        
-        // 缓存最新商品，缓存10分钟
-        cacheService.set(cacheKey, result, 10, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return result;
+            responses.add(new ProductResponse(product));
+        }
+        return responses;
     }
 
     /**
-     * 获取推荐商品
+     * 按给定ID顺序批量加载商品，已不存在的ID被跳过
      */
-    @Transactional(readOnly = true)
-    public List<ProductResponse> getRecommendedProducts(Long productId, int limit) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new BusinessException("商品不存在"));
+    private List<Product> findProductsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ordered = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            Product product = products.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
 
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Product> products = productRepository.findRecommendedProducts(
-                product.getCategoryId(), productId, 1, pageable);
-        
-        return products.stream()
-                .map(ProductResponse::new)
-                .collect(Collectors.toList());
+    /**
+     * 分页版本的批量转换
+     */
+    private Page<ProductResponse> toProductResponsePage(Page<Product> products) {
+        return new PageImpl<>(toProductResponses(products.getContent()),
+                products.getPageable(), products.getTotalElements());
     }
 
     /**
@@ -0,0 +1,184 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.ranking.CooccurrenceModel;
+import com.example.campussystem.repository.FavoriteRepository;
+import com.example.campussystem.repository.OrderRepository;
+import com.example.campussystem.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品推荐服务（物品-物品协同过滤）
+ * 定时从收藏和订单计算商品共现模型（见 {@link CooccurrenceModel}），把每件商品最相似的前 N 件在售商品
+ * 写入Redis哈希表（字段为商品ID），详情页推荐只需一次HGET。多节点部署时由抢到锁的节点计算，结果共享。
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+
+    private static final String NEIGHBOURS_KEY = "recommend:neighbours";
+    private static final String REBUILD_KEY = NEIGHBOURS_KEY + ":rebuilding";
+    private static final String LOCK_KEY = NEIGHBOURS_KEY + ":lock";
+    private static final int STATUS_ON_SALE = 1;
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.recommend.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.recommend.top-n:20}")
+    private int topN;
+
+    @Value("${app.recommend.max-basket-size:200}")
+    private int maxBasketSize;
+
+    @Value("${app.recommend.weights.favorite:1}")
+    private double favoriteWeight;
+
+    @Value("${app.recommend.weights.order:2}")
+    private double orderWeight;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 启动时若还没有推荐结果则计算一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!Boolean.TRUE.equals(cacheService.hasKey(NEIGHBOURS_KEY))) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.warn("检查商品推荐结果失败，推荐将回退到同分类商品: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时重新计算（默认每天凌晨）
+     */
+    @Scheduled(cron = "${app.recommend.cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量计算并整体替换推荐结果
+     *
+     * @return 有推荐结果的商品数；其他节点正在计算时返回 0，失败时返回 -1
+     */
+    public synchronized int rebuild() {
+        if (!Boolean.TRUE.equals(cacheService.setIfAbsent(LOCK_KEY, nodeId, 30, TimeUnit.MINUTES))) {
+            logger.info("其他节点正在计算商品推荐，跳过本次计算");
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            CooccurrenceModel model = new CooccurrenceModel(maxBasketSize);
+            for (Object[] row : favoriteRepository.findUserProductPairs()) {
+                model.add(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), favoriteWeight, epochMillis(row[2]));
+            }
+            for (Object[] row : orderRepository.findBuyerProductPairs()) {
+                model.add(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), orderWeight, epochMillis(row[2]));
+            }
+            Set<Long> onSale = new HashSet<>(productRepository.findIdsByStatus(STATUS_ON_SALE));
+            Map<Long, long[]> neighbours = model.topNeighbours(topN, onSale::contains);
+
+            cacheService.delete(REBUILD_KEY);
+            Map<String, Object> batch = new HashMap<>();
+            for (Map.Entry<Long, long[]> entry : neighbours.entrySet()) {
+                List<Long> ids = new ArrayList<>(entry.getValue().length);
+                for (long id : entry.getValue()) {
+                    ids.add(id);
+                }
+                batch.put(String.valueOf(entry.getKey()), ids);
+                if (batch.size() >= WRITE_BATCH_SIZE) {
+                    cacheService.hSetAll(REBUILD_KEY, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                cacheService.hSetAll(REBUILD_KEY, batch);
+            }
+            if (neighbours.isEmpty()) {
+                cacheService.delete(NEIGHBOURS_KEY);
+            } else {
+                cacheService.rename(REBUILD_KEY, NEIGHBOURS_KEY);
+            }
+            logger.info("商品推荐计算完成：{} 个用户，{} 件商品有推荐，耗时 {} ms",
+                    model.basketCount(), neighbours.size(), System.currentTimeMillis() - start);
+            return neighbours.size();
+        } catch (Exception e) {
+            logger.error("计算商品推荐失败", e);
+            return -1;
+        } finally {
+            cacheService.delete(LOCK_KEY);
+        }
+    }
+
+    /**
+     * 获取与商品最相似的商品ID（按相似度从高到低），没有结果或Redis不可用时返回空列表
+     */
+    public List<Long> getNeighbours(Long productId, int limit) {
+        if (!enabled) {
+            return new ArrayList<>();
+        }
+        try {
+            Object value = cacheService.hGet(NEIGHBOURS_KEY, String.valueOf(productId));
+            if (!(value instanceof List)) {
+                return new ArrayList<>();
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Object id : (List<?>) value) {
+                if (ids.size() >= limit) {
+                    break;
+                }
+                ids.add(((Number) id).longValue());
+            }
+            return ids;
+        } catch (Exception e) {
+            logger.warn("读取商品推荐失败, productId={}: {}", productId, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static long epochMillis(Object time) {
+        return time instanceof LocalDateTime
+                ? ((LocalDateTime) time).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+    }
+}
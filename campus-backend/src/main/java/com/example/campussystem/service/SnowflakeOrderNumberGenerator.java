@@ -0,0 +1,201 @@
+package com.example.campussystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Snowflake算法的订单号生成器
+ * ID结构：41位毫秒时间戳 + 10位节点ID + 12位序列号，订单号为 "ORD" + 19位补零的十进制ID，
+ * 同一节点内单调递增，不同节点间依靠节点ID保证唯一；热路径只有一次CAS，不加锁。
+ * 节点ID优先使用配置值；未配置时从Redis租用（SET NX order:node:{id}，带过期时间并定期续租），
+ * 租不到（Redis不可用或1024个ID全部被占用）时启动失败，不会退回到可能与其他节点冲突的推导值。
+ * 租用的ID只在租约有效期内使用：距上次确认租约超过租约时长（Redis长时间不可达，ID可能已被其他节点租走）时
+ * 拒绝生成，直到续租成功。
+ */
+@Service
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeOrderNumberGenerator.class);
+
+    private static final String PREFIX = "ORD";
+    private static final String LEASE_KEY_PREFIX = "order:node:";
+
+    // 起始时间 2024-01-01 00:00:00 UTC
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    @Autowired
+    private CacheService cacheService;
+
+    // 未配置（小于0）时从Redis租用
+    @Value("${app.order.node-id:-1}")
+    private long configuredNodeId;
+
+    @Value("${app.order.node-lease-millis:60000}")
+    private long leaseMillis;
+
+    // 租约持有者标识，区分同一主机上的多个进程以及同一进程的重启
+    private final String owner = identity() + "#" + UUID.randomUUID();
+
+    private volatile long nodeId;
+
+    // 最近一次确认持有租约的时间（System.nanoTime），取发起命令前的时间，不晚于Redis中租约的实际起点
+    private volatile long leaseConfirmedAt;
+
+    // 高位为上次使用的时间戳，低12位为该毫秒内的序列号
+    private final AtomicLong state = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("app.order.node-id 必须在 0-" + MAX_NODE_ID + " 之间: " + configuredNodeId);
+        }
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId;
+            logger.info("订单号生成器节点ID: {}（配置）", nodeId);
+            return;
+        }
+        long start = System.nanoTime();
+        nodeId = leaseNodeId((identity().hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1));
+        leaseConfirmedAt = start;
+        logger.info("订单号生成器节点ID: {}（租约 {} ms）", nodeId, leaseMillis);
+    }
+
+    /**
+     * 续租节点ID，间隔应明显小于租约时长
+     * 租约已过期被其他节点占用时改租新的ID；时间戳状态不变，换ID后生成的ID仍然单调且唯一。
+     * Redis暂时不可用时在租约有效期内继续使用当前ID，超过租约时长仍未续租成功则停止生成，恢复后再续租
+     */
+    @Scheduled(fixedDelayString = "${app.order.node-lease-renew-interval:20000}")
+    public void renewLease() {
+        if (configuredNodeId >= 0) {
+            return;
+        }
+        long current = nodeId;
+        long start = System.nanoTime();
+        try {
+            String key = LEASE_KEY_PREFIX + current;
+            if (owner.equals(cacheService.get(key))
+                    && Boolean.TRUE.equals(cacheService.expire(key, leaseMillis, TimeUnit.MILLISECONDS))) {
+                leaseConfirmedAt = start;
+                return;
+            }
+            long leased = leaseNodeId(current);
+            nodeId = leased;
+            leaseConfirmedAt = start;
+            if (leased != current) {
+                logger.warn("订单号生成器节点ID {} 的租约已被其他节点占用，改用 {}", current, leased);
+            }
+        } catch (Exception e) {
+            logger.warn("续租订单号生成器节点ID {} 失败，租约到期前继续使用当前ID: {}", current, e.getMessage());
+        }
+    }
+
+    /**
+     * 停止时释放租约，节点ID可以立即被新实例使用
+     */
+    @PreDestroy
+    public void releaseLease() {
+        if (configuredNodeId >= 0) {
+            return;
+        }
+        try {
+            String key = LEASE_KEY_PREFIX + nodeId;
+            if (owner.equals(cacheService.get(key))) {
+                cacheService.delete(key);
+            }
+        } catch (Exception e) {
+            logger.warn("释放订单号生成器节点ID {} 的租约失败: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public String nextOrderNo() {
+        String digits = Long.toString(nextId());
+        StringBuilder orderNo = new StringBuilder(PREFIX.length() + 19).append(PREFIX);
+        for (int i = digits.length(); i < 19; i++) {
+            orderNo.append('0');
+        }
+        return orderNo.append(digits).toString();
+    }
+
+    /**
+     * 生成下一个ID
+     * 同一毫秒内序列号耗尽或系统时钟回拨时，借用下一毫秒继续分配，保证单调且不阻塞；
+     * 租用的节点ID租约已过期时抛出 IllegalStateException，避免与接手该ID的节点生成重复订单号
+     */
+    public long nextId() {
+        if (configuredNodeId < 0
+                && System.nanoTime() - leaseConfirmedAt >= TimeUnit.MILLISECONDS.toNanos(leaseMillis)) {
+            throw new IllegalStateException("订单号生成器节点ID " + nodeId + " 的租约已过期且无法续租，暂停生成订单号");
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 从 start 开始依次尝试租用节点ID，主机名和进程号的散列作为起点，多数情况下第一次就能租到
+     */
+    private long leaseNodeId(long start) {
+        try {
+            for (long i = 0; i <= MAX_NODE_ID; i++) {
+                long candidate = (start + i) & MAX_NODE_ID;
+                if (Boolean.TRUE.equals(cacheService.setIfAbsent(LEASE_KEY_PREFIX + candidate, owner,
+                        leaseMillis, TimeUnit.MILLISECONDS))) {
+                    return candidate;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("无法从Redis租用订单号生成器节点ID，请通过 app.order.node-id 为每个实例配置不同的值", e);
+        }
+        throw new IllegalStateException("订单号生成器的 " + (MAX_NODE_ID + 1) + " 个节点ID已全部被占用");
+    }
+
+    private static String identity() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "@" + ManagementFactory.getRuntimeMXBean().getName();
+    }
+}
@@ -80,19 +80,9 @@ public class SystemLogService {
     public List<Map<String, Object>> getSystemLogs(int page, int size, String level, String keyword) {
         String cacheKey = CACHE_KEY_SYSTEM_LOGS + page + ":" + size + ":" + level + ":" + keyword;
         
-        // 先从缓存获取
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> cachedLogs = cacheService.get(cacheKey, List.class);
-        if (cachedLogs != null) {
-            return cachedLogs;
-        }
-
-        List<Map<String, Object>> logs = readLogsFromFile(page, size, level, keyword);
-        
-        // 缓存日志数据，缓存5分钟
-        cacheService.set(cacheKey, logs, 5, java.util.concurrent.TimeUnit.MINUTES);
-        
-        return logs;
+        // 缓存日志数据，缓存5分钟；并发请求只读取一次日志文件
+        return cacheService.getOrLoad(cacheKey, 5, java.util.concurrent.TimeUnit.MINUTES,
+                () -> readLogsFromFile(page, size, level, keyword));
     }
 
     /**
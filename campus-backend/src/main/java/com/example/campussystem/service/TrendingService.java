@@ -0,0 +1,232 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.entity.Product;
+import com.example.campussystem.event.ProductActivityEvent;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.ranking.TrendingWindow;
+import com.example.campussystem.repository.FavoriteRepository;
+import com.example.campussystem.repository.MessageRepository;
+import com.example.campussystem.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热度趋势服务
+ * 浏览、收藏、围绕商品发起会话三类事件按权重累加到带时间衰减的滑动窗口中（见 {@link TrendingWindow}），
+ * 定时计算一次排名快照；请求只对快照做切片，代价与事件数量无关。
+ * 收藏和会话事件在事务提交后计入，并经 {@link com.example.campussystem.event.ProductChangeRelay} 在各节点间同步；
+ * 启动时从数据库回放窗口内的收藏和会话事件，浏览事件只统计本节点启动以来的部分。
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final int STATUS_ON_SALE = 1;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.trending.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.trending.bucket-minutes:60}")
+    private long bucketMinutes;
+
+    @Value("${app.trending.window-hours:72}")
+    private long windowHours;
+
+    @Value("${app.trending.half-life-hours:24}")
+    private long halfLifeHours;
+
+    @Value("${app.trending.snapshot-size:200}")
+    private int snapshotSize;
+
+    @Value("${app.trending.weights.view:1}")
+    private double viewWeight;
+
+    @Value("${app.trending.weights.favorite:5}")
+    private double favoriteWeight;
+
+    @Value("${app.trending.weights.chat:8}")
+    private double chatWeight;
+
+    private TrendingWindow window;
+
+    // 最近一次计算出的排名快照（不可变），请求只读取它
+    private volatile List<TrendingWindow.Score> snapshot = Collections.emptyList();
+    private volatile long snapshotTime = 0;
+
+    @PostConstruct
+    public void init() {
+        long bucketMillis = TimeUnit.MINUTES.toMillis(bucketMinutes);
+        int bucketCount = (int) Math.max(1, TimeUnit.HOURS.toMillis(windowHours) / bucketMillis);
+        window = new TrendingWindow(bucketMillis, bucketCount, TimeUnit.HOURS.toMillis(halfLifeHours));
+    }
+
+    /**
+     * 启动时从数据库回放窗口内的收藏与会话事件，并生成第一份快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(windowHours);
+        try {
+            int favorites = replay(favoriteRepository.findProductFavoriteTimesSince(since), favoriteWeight);
+            int chats = replay(messageRepository.findProductChatStartsSince(since), chatWeight);
+            logger.info("热度趋势窗口初始化完成，回放收藏 {} 条、会话 {} 条", favorites, chats);
+        } catch (Exception e) {
+            logger.warn("回放热度趋势事件失败，将只统计启动后的事件: {}", e.getMessage());
+        }
+        refresh();
+    }
+
+    /**
+     * 定时重新计算排名快照
+     */
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        snapshot = Collections.unmodifiableList(window.top(snapshotSize, now));
+        snapshotTime = now;
+    }
+
+    /**
+     * 记录一次浏览
+     */
+    public void recordView(Long productId) {
+        record(productId, viewWeight);
+    }
+
+    /**
+     * 收藏、发起会话的事务提交后计入热度，本节点和其他节点转发来的事件都要处理
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        switch (event.getType()) {
+            case FAVORITE:
+                record(event.getProductId(), favoriteWeight);
+                break;
+            case CHAT_START:
+                record(event.getProductId(), chatWeight);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 按热度分页获取商品ID，只切片快照。快照为空（未启用或暂无事件）时返回空，调用方回退到其他排序
+     */
+    public Optional<Page<Long>> getPage(int page, int size) {
+        List<TrendingWindow.Score> current = snapshot;
+        if (!enabled || current.isEmpty()) {
+            return Optional.empty();
+        }
+        int from = (int) Math.min((long) page * size, current.size());
+        int to = Math.min(from + size, current.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (TrendingWindow.Score score : current.subList(from, to)) {
+            ids.add(score.getProductId());
+        }
+        return Optional.of(new PageImpl<>(ids, PageRequest.of(page, size), current.size()));
+    }
+
+    /**
+     * 商品不再在售时移出窗口和当前快照
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<Long> onSale = new HashSet<>();
+            for (Product product : productRepository.findAllById(event.getProductIds())) {
+                if (Integer.valueOf(STATUS_ON_SALE).equals(product.getStatus())) {
+                    onSale.add(product.getId());
+                }
+            }
+            Set<Long> removed = new HashSet<>();
+            for (Long id : event.getProductIds()) {
+                if (!onSale.contains(id)) {
+                    window.remove(id);
+                    removed.add(id);
+                }
+            }
+            if (!removed.isEmpty()) {
+                List<TrendingWindow.Score> filtered = new ArrayList<>(snapshot);
+                filtered.removeIf(score -> removed.contains(score.getProductId()));
+                snapshot = Collections.unmodifiableList(filtered);
+            }
+        } catch (Exception e) {
+            logger.warn("更新热度趋势窗口失败, productIds={}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * 热度趋势统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowEntries", window.entryCount());
+        stats.put("snapshotSize", snapshot.size());
+        stats.put("snapshotTime", snapshotTime);
+        return stats;
+    }
+
+    private void record(Long productId, double weight) {
+        if (enabled && productId != null) {
+            window.record(productId, weight, System.currentTimeMillis());
+        }
+    }
+
+    private int replay(List<Object[]> rows, double weight) {
+        ZoneId zone = ZoneId.systemDefault();
+        int count = 0;
+        for (Object[] row : rows) {
+            if (row[0] == null || row[1] == null) {
+                continue;
+            }
+            long time = ((LocalDateTime) row[1]).atZone(zone).toInstant().toEpochMilli();
+            window.record(((Number) row[0]).longValue(), weight, time);
+            count++;
+        }
+        return count;
+    }
+}
@@ -52,6 +52,9 @@ public class UserService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     // 缓存键常量
     private static final String CACHE_KEY_USER_PROFILE = "user_profile:";
     private static final String CACHE_KEY_USER_BY_STUDENT_ID = "user_by_student_id:";
@@ -142,6 +145,7 @@ public class UserService {
 
         // 6. 保存用户
         User savedUser = userRepository.save(user);
+        existenceFilterService.userCreated(savedUser.getId());
 
         // 清除相关缓存
         clearUserCaches(savedUser.getStudentId());
@@ -233,7 +237,7 @@ public class UserService {
      */
     @Transactional(readOnly = true)
     public UserProfileResponse getUserProfile(Long userId) {
-        String cacheKey = CACHE_KEY_USER_PROFILE + userId;
+        String cacheKey = cacheService.versionedKey(CACHE_KEY_USER_PROFILE, String.valueOf(userId));
         
         // 先从缓存获取
         UserProfileResponse cachedProfile = cacheService.get(cacheKey, UserProfileResponse.class);
@@ -241,8 +245,14 @@ public class UserService {
             return cachedProfile;
         }
 
+        if (!existenceFilterService.userMayExist(userId) || existenceFilterService.userKnownMissing(userId)) {
+            throw new BusinessException("用户不存在");
+        }
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException("用户不存在"));
+                .orElseThrow(() -> {
+                    existenceFilterService.markUserMissing(userId);
+                    return new BusinessException("用户不存在");
+                });
 
         UserProfileResponse response = new UserProfileResponse();
         response.setId(user.getId());
@@ -395,7 +405,7 @@ public class UserService {
     private void clearUserCaches(String studentId) {
         // 清除学号缓存
         cacheService.delete(CACHE_KEY_USER_BY_STUDENT_ID + studentId);
-        // 清除用户资料缓存（需要根据用户ID，这里简化处理）
-        cacheService.deleteByPattern(CACHE_KEY_USER_PROFILE + "*");
+        // 清除用户资料缓存（需要根据用户ID，这里按命名空间代数整体失效）
+        cacheService.invalidateNamespace(CACHE_KEY_USER_PROFILE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商品浏览次数缓冲服务
+ * 浏览只在内存中累加，由定时任务按商品合并后批量写回数据库，
+ * 避免每次浏览都整行更新商品并失效详情缓存
+ */
+@Service
+public class ViewCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private PopularProductService popularProductService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    // 商品ID -> 待写回的浏览增量
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次浏览
+     */
+    public void recordView(Long productId) {
+        if (productId != null) {
+            pendingViews.merge(productId, 1L, Long::sum);
+            trendingService.recordView(productId);
+        }
+    }
+
+    /**
+     * 获取尚未写回数据库的浏览增量
+     */
+    public long getPendingViews(Long productId) {
+        Long pending = pendingViews.get(productId);
+        return pending != null ? pending : 0L;
+    }
+
+    /**
+     * 定时将缓冲的浏览次数写回数据库
+     * 不在外层开启事务：每个商品的UPDATE单独提交，一条失败不会回滚其他已摘除增量的写入，
+     * 也不会在Redis往返期间持有所有商品的行锁；榜单和搜索索引只在该行提交后更新
+     */
+    @Scheduled(fixedDelayString = "${app.view-count.flush-interval:5000}")
+    public void flush() {
+        if (pendingViews.isEmpty()) {
+            return;
+        }
+
+        // 逐个摘除，摘除后的新浏览会进入新的计数项，不会丢失
+        List<Long> productIds = new ArrayList<>(pendingViews.keySet());
+        int flushed = 0;
+        for (Long productId : productIds) {
+            Long delta = pendingViews.remove(productId);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            int updated;
+            try {
+                updated = productRepository.incrementViewCount(productId, delta.intValue());
+            } catch (Exception e) {
+                // 写回失败时放回缓冲区，等待下次重试
+                pendingViews.merge(productId, delta, Long::sum);
+                logger.warn("写回商品浏览次数失败, productId={}", productId, e);
+                continue;
+            }
+            if (updated == 0) {
+                continue;
+            }
+            flushed++;
+            try {
+                productSearchService.onViewsFlushed(productId, delta);
+                popularProductService.recordViews(productId, delta);
+            } catch (Exception e) {
+                // 数据库已提交，排名更新失败不回滚也不重试
+                logger.warn("更新商品浏览排名失败, productId={}: {}", productId, e.getMessage());
+            }
+        }
+        logger.debug("写回 {} 个商品的浏览次数", flushed);
+    }
+
+    /**
+     * 应用关闭前写回剩余的浏览次数
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("关闭时写回浏览次数失败", e);
+        }
+    }
+}
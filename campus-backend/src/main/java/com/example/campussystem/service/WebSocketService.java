@@ -1,15 +1,22 @@
 package com.example.campussystem.service;
 
 import com.example.campussystem.dto.MessageResponse;
+import com.example.campussystem.websocket.RedisUserRelay;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 基于 STOMP 的 WebSocket 推送服务。
  * 说明：后端已移除原生 WebSocket，统一通过 STOMP 进行消息推送。
+ * 多实例部署时经 {@link RedisUserRelay} 发布到目标用户的频道，由持有其会话的节点投递。
  */
 @Service
 public class WebSocketService {
@@ -19,9 +26,24 @@ public class WebSocketService {
     // 用户队列目的地（前端应订阅 /user/queue/new-message）
     public static final String USER_NEW_MESSAGE_QUEUE = "/queue/new-message";
 
+    // 未读数增量（前端订阅 /user/queue/unread，按 delta 累加本地计数，无需轮询）
+    public static final String USER_UNREAD_QUEUE = "/queue/unread";
+
+    // 对方正在输入（前端订阅 /user/queue/typing）
+    public static final String USER_TYPING_QUEUE = "/queue/typing";
+
+    // 已读回执（前端订阅 /user/queue/read-receipt）
+    public static final String USER_READ_RECEIPT_QUEUE = "/queue/read-receipt";
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private RedisUserRelay redisUserRelay;
+
+    @Value("${websocket.relay.enabled:true}")
+    private boolean relayEnabled;
+
     /**
      * 向指定用户发送“新消息”通知。
      * 前端应通过 STOMP 订阅 /user/queue/new-message 接收。
@@ -34,25 +56,71 @@ public class WebSocketService {
             logger.warn("sendNewMessageNotification skipped: userId is null");
             return;
         }
-        try {
-            messagingTemplate.convertAndSendToUser(String.valueOf(userId), USER_NEW_MESSAGE_QUEUE, payload);
-        } catch (Exception e) {
-            logger.error("发送 STOMP 用户消息失败, userId={}", userId, e);
-        }
+        sendToUser(userId, USER_NEW_MESSAGE_QUEUE, payload);
     }
 
     /**
      * 通用方法：向指定用户发送任意目的地的消息。
+     * 启用中继时只发布到该用户的 Redis 频道；发布失败则退回本机投递。
      */
     public void sendToUser(Long userId, String destination, Object payload) {
         if (userId == null) {
             logger.warn("sendToUser skipped: userId is null");
             return;
         }
+        if (relayEnabled && redisUserRelay.publish(userId, destination, payload)) {
+            return;
+        }
         try {
             messagingTemplate.convertAndSendToUser(String.valueOf(userId), destination, payload);
         } catch (Exception e) {
             logger.error("发送 STOMP 用户消息失败, userId={}, destination={}", userId, destination, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 推送未读数增量。
+     *
+     * @param userId 未读数发生变化的用户
+     * @param contactUserId 对应会话的联系人
+     * @param delta 变化量，新消息为正数，标记已读为负数
+     */
+    public void sendUnreadDelta(Long userId, Long contactUserId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("contactUserId", contactUserId);
+        payload.put("delta", delta);
+        sendToUser(userId, USER_UNREAD_QUEUE, payload);
+    }
+
+    /**
+     * 推送“正在输入”状态，仅转发不落库。
+     */
+    public void sendTyping(Long toUserId, Long fromUserId, boolean typing) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("fromUserId", fromUserId);
+        payload.put("conversationId", fromUserId);
+        payload.put("isTyping", typing);
+        sendToUser(toUserId, USER_TYPING_QUEUE, payload);
+    }
+
+    /**
+     * 向消息发送方推送已读回执。
+     *
+     * @param senderId 消息发送方（接收回执的一方）
+     * @param readerId 阅读消息的用户
+     * @param messageId 单条已读时的消息ID，整段会话已读时为 null
+     * @param count 本次被标记为已读的消息数
+     */
+    public void sendReadReceipt(Long senderId, Long readerId, Long messageId, int count) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("readerId", readerId);
+        payload.put("conversationId", readerId);
+        payload.put("messageId", messageId);
+        payload.put("count", count);
+        payload.put("readTime", LocalDateTime.now().toString());
+        sendToUser(senderId, USER_READ_RECEIPT_QUEUE, payload);
+    }
+}
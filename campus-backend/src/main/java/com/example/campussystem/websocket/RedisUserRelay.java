@@ -0,0 +1,117 @@
+package com.example.campussystem.websocket;
+
+import com.example.campussystem.service.CacheService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于 Redis 发布/订阅的用户目的地中继
+ * 每个节点只订阅本机持有会话的用户频道（ws:user:{userId}），
+ * 推送时发布到目标用户的频道，由持有该用户会话的节点投递到本机的简单代理。
+ */
+@Component
+public class RedisUserRelay implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisUserRelay.class);
+
+    private static final String USER_CHANNEL_PREFIX = "ws:user:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 本机出现该用户的第一个会话时订阅其频道；会阻塞到订阅注册完成，经过熔断器，不应在请求或事件线程中调用
+     *
+     * @return 是否订阅成功
+     */
+    public boolean subscribe(Long userId) {
+        try {
+            cacheService.redisRun(() -> redisMessageListenerContainer.addMessageListener(this, topicOf(userId)));
+            return true;
+        } catch (Exception e) {
+            logger.warn("订阅用户频道失败, userId={}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 本机该用户的最后一个会话断开后取消订阅
+     *
+     * @return 是否取消成功
+     */
+    public boolean unsubscribe(Long userId) {
+        try {
+            cacheService.redisRun(() -> redisMessageListenerContainer.removeMessageListener(this, topicOf(userId)));
+            return true;
+        } catch (Exception e) {
+            logger.warn("取消订阅用户频道失败, userId={}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 发布到目标用户的频道，消息格式：{"d": 目的地, "p": 载荷}
+     *
+     * @return 是否发布成功；失败时调用方应退回本机投递
+     */
+    public boolean publish(Long userId, String destination, Object payload) {
+        try {
+            ObjectNode envelope = objectMapper.createObjectNode();
+            envelope.put("d", destination);
+            envelope.set("p", objectMapper.valueToTree(payload));
+            String body = objectMapper.writeValueAsString(envelope);
+            cacheService.redisRun(() -> stringRedisTemplate.convertAndSend(topicOf(userId).getTopic(), body));
+            return true;
+        } catch (Exception e) {
+            logger.warn("发布用户消息到Redis失败, userId={}, destination={}: {}", userId, destination, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 收到中继消息后投递给本机该用户的会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (!channel.startsWith(USER_CHANNEL_PREFIX)) {
+            return;
+        }
+        String user = channel.substring(USER_CHANNEL_PREFIX.length());
+        try {
+            JsonNode envelope = objectMapper.readTree(message.getBody());
+            messagingTemplate.convertAndSendToUser(user, envelope.path("d").asText(), envelope.path("p"));
+        } catch (Exception e) {
+            logger.error("投递中继消息失败, userId={}", user, e);
+        }
+    }
+
+    private ChannelTopic topicOf(Long userId) {
+        return new ChannelTopic(USER_CHANNEL_PREFIX + userId);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.campussystem.websocket;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * STOMP握手处理器
+ * 使用 {@link WebSocketAuthInterceptor} 写入的 userId 作为会话 Principal，
+ * 使 convertAndSendToUser(userId, ...) 能定位到该用户的所有会话。
+ */
+public class UserHandshakeHandler extends DefaultHandshakeHandler {
+
+    @Override
+    protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                      Map<String, Object> attributes) {
+        Object userId = attributes.get("userId");
+        if (userId != null) {
+            String name = String.valueOf(userId);
+            return () -> name;
+        }
+        return super.determineUser(request, wsHandler, attributes);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.campussystem.websocket;
+
+import com.example.campussystem.service.CacheService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 会话注册表
+ * 记录本机每个用户的 STOMP 会话，本机出现用户的第一个会话时订阅其中继频道，最后一个会话断开后取消订阅。
+ * 订阅变更涉及Redis网络I/O，由单个后台线程按顺序执行，不占用STOMP事件线程；
+ * 定时心跳刷新 ws:node:{nodeId}（节点存活及会话数），并补做Redis不可用期间未完成的订阅变更。
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionRegistry.class);
+
+    private static final String NODE_KEY_PREFIX = "ws:node:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisUserRelay redisUserRelay;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Value("${websocket.relay.enabled:true}")
+    private boolean relayEnabled;
+
+    @Value("${websocket.registry.heartbeat-interval:10000}")
+    private long heartbeatInterval;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 本机 userId -> 会话ID集合
+    private final Map<Long, Set<String>> userSessions = new ConcurrentHashMap<>();
+
+    // 本机 会话ID -> userId，用于断开事件中定位用户
+    private final Map<String, Long> sessionUsers = new ConcurrentHashMap<>();
+
+    // 已订阅中继频道的用户，只在订阅线程中修改
+    private final Set<Long> subscribedUsers = ConcurrentHashMap.newKeySet();
+
+    // 订阅变更按提交顺序在单个线程中执行，同一用户的订阅与取消订阅不会交错
+    private final ExecutorService subscriptionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-relay-subscription");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Long userId = toUserId(event.getUser());
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (userId == null || sessionId == null) {
+            return;
+        }
+        sessionUsers.put(sessionId, userId);
+        // compute 只判断是否为第一个会话，订阅在锁外由订阅线程完成
+        boolean[] first = new boolean[1];
+        userSessions.compute(userId, (id, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+        if (first[0]) {
+            scheduleSync(userId);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        Long userId = sessionUsers.remove(event.getSessionId());
+        if (userId == null) {
+            return;
+        }
+        boolean[] last = new boolean[1];
+        userSessions.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(event.getSessionId());
+            if (sessions.isEmpty()) {
+                last[0] = true;
+                return null;
+            }
+            return sessions;
+        });
+        if (last[0]) {
+            scheduleSync(userId);
+        }
+    }
+
+    /**
+     * 本机是否持有该用户的会话
+     */
+    public boolean hasLocalSession(Long userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    /**
+     * 注册表统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("localUsers", userSessions.size());
+        stats.put("localSessions", sessionUsers.size());
+        stats.put("relayEnabled", relayEnabled);
+        stats.put("subscribedUsers", subscribedUsers.size());
+        return stats;
+    }
+
+    /**
+     * 定时心跳：刷新节点存活键，并补做此前因Redis不可用而失败的订阅变更
+     */
+    @Scheduled(fixedDelayString = "${websocket.registry.heartbeat-interval:10000}")
+    public void heartbeat() {
+        try {
+            cacheService.redisRun(() -> stringRedisTemplate.opsForValue().set(NODE_KEY_PREFIX + nodeId,
+                    String.valueOf(sessionUsers.size()), nodeTtlMillis(), TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            logger.warn("WebSocket会话心跳上报失败: {}", e.getMessage());
+        }
+        if (relayEnabled) {
+            submit(this::syncAll);
+        }
+    }
+
+    /**
+     * 节点下线时停止订阅线程并清理节点存活键
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscriptionExecutor.shutdownNow();
+        try {
+            cacheService.redisRun(() -> stringRedisTemplate.delete(NODE_KEY_PREFIX + nodeId));
+        } catch (Exception e) {
+            logger.warn("清理WebSocket会话注册信息失败: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleSync(Long userId) {
+        if (relayEnabled) {
+            submit(() -> sync(userId));
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            subscriptionExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 节点正在关闭
+        }
+    }
+
+    /**
+     * 使用户的订阅状态与本机是否持有其会话一致；按当前状态而不是事件类型处理，
+     * 连接、断开快速交替时多次提交也只会得到最终正确的结果。只在订阅线程中调用
+     */
+    private void sync(Long userId) {
+        boolean connected = userSessions.containsKey(userId);
+        if (connected && !subscribedUsers.contains(userId)) {
+            if (redisUserRelay.subscribe(userId)) {
+                subscribedUsers.add(userId);
+            }
+        } else if (!connected && subscribedUsers.contains(userId)) {
+            if (redisUserRelay.unsubscribe(userId)) {
+                subscribedUsers.remove(userId);
+            }
+        }
+    }
+
+    private void syncAll() {
+        Set<Long> userIds = new HashSet<>(userSessions.keySet());
+        userIds.addAll(subscribedUsers);
+        for (Long userId : userIds) {
+            sync(userId);
+        }
+    }
+
+    /**
+     * 节点存活键的有效期为三个心跳周期，允许偶发的一次心跳丢失
+     */
+    private long nodeTtlMillis() {
+        return heartbeatInterval * 3;
+    }
+
+    private Long toUserId(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(principal.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
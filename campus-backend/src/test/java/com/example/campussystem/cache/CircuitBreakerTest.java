@@ -0,0 +1,90 @@
+package com.example.campussystem.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private final List<String> transitions = new ArrayList<>();
+
+    private CircuitBreaker newBreaker(int threshold, long slowCallMillis, long openMillis) {
+        return new CircuitBreaker("test", threshold, slowCallMillis, openMillis,
+                (from, to) -> transitions.add(from + "->" + to));
+    }
+
+    private static void fail(CircuitBreaker breaker, int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(false, 1);
+        }
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsFast() {
+        CircuitBreaker breaker = newBreaker(3, 0, 60_000);
+        fail(breaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(breaker, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2L, breaker.getStatistics().get("rejected"));
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = newBreaker(3, 0, 60_000);
+        fail(breaker, 2);
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(true, 1);
+        fail(breaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbeAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = newBreaker(1, 0, 50);
+        fail(breaker, 1);
+        Thread.sleep(80);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "只放行一个探测调用");
+
+        breaker.onResult(true, 1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = newBreaker(1, 0, 50);
+        fail(breaker, 1);
+        Thread.sleep(80);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(false, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2L, breaker.getStatistics().get("opened"));
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        CircuitBreaker breaker = newBreaker(2, 100, 60_000);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(true, 150);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.getStatistics().get("slowCalls"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.campussystem.cache;
+
+import com.example.campussystem.config.RedisConfig;
+import com.example.campussystem.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 值序列化器基准：旧的JSON格式、紧凑二进制格式、紧凑格式加Deflate，在真实的 ProductResponse 列表上比较字节数和编解码耗时。
+ * 不随单元测试运行，在 campus-backend 目录下手动执行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.campussystem.cache.CompactRedisSerializerBenchmark
+ * 旧的JSON序列化器无法反序列化 PageImpl，因此统一使用分页内容列表作为负载。
+ */
+public class CompactRedisSerializerBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 10_000;
+    private static final int MEASURE_ITERATIONS = 20_000;
+
+    public static void main(String[] args) {
+        RedisSerializer<Object> json = RedisConfig.legacyValueSerializer();
+        RedisSerializer<Object> compact = new CompactRedisSerializer(json, true, 0);
+        RedisSerializer<Object> deflate = new CompactRedisSerializer(json, true, 1024);
+
+        System.out.printf("%-6s %-8s %10s %14s %14s%n", "size", "codec", "bytes", "encode ns/op", "decode ns/op");
+        for (int size : new int[]{1, 10, 20, 50}) {
+            Page<ProductResponse> page = CompactRedisSerializerTest.productPage(size);
+            Object payload = size == 1 ? page.getContent().get(0) : new ArrayList<>(page.getContent());
+            run(size, "json", json, payload);
+            run(size, "compact", compact, payload);
+            run(size, "deflate", deflate, payload);
+        }
+    }
+
+    private static void run(int size, String name, RedisSerializer<Object> serializer, Object payload) {
+        byte[] bytes = serializer.serialize(payload);
+        measure(serializer, payload, bytes, WARMUP_ITERATIONS);
+        long[] nanos = measure(serializer, payload, bytes, MEASURE_ITERATIONS);
+        System.out.printf("%-6d %-8s %10d %14d %14d%n", size, name, bytes.length,
+                nanos[0] / MEASURE_ITERATIONS, nanos[1] / MEASURE_ITERATIONS);
+    }
+
+    private static long[] measure(RedisSerializer<Object> serializer, Object payload, byte[] bytes, int iterations) {
+        List<Object> sink = new ArrayList<>(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink.add(serializer.serialize(payload));
+            sink.clear();
+        }
+        long encode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink.add(serializer.deserialize(bytes));
+            sink.clear();
+        }
+        long decode = System.nanoTime() - start;
+        return new long[]{encode, decode};
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.campussystem.cache;
+
+import com.example.campussystem.config.RedisConfig;
+import com.example.campussystem.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactRedisSerializerTest {
+
+    private final RedisSerializer<Object> legacy = RedisConfig.legacyValueSerializer();
+
+    /**
+     * 与线上列表接口一致的商品分页，基准测试同样使用
+     */
+    static Page<ProductResponse> productPage(int size) {
+        List<ProductResponse> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add(product(1000L + i));
+        }
+        return new PageImpl<>(content, PageRequest.of(2, size, Sort.by(Sort.Direction.DESC, "createTime")), 500);
+    }
+
+    static ProductResponse product(long id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setUserId(id % 37);
+        product.setUsername("user" + (id % 37));
+        product.setUserAvatar("/uploads/avatar/" + (id % 37) + ".png");
+        product.setCategoryId(id % 5);
+        product.setCategoryName("分类" + (id % 5));
+        product.setTitle("九成新二手教材 高等数学 第" + id + "册");
+        product.setDescription("课程结束后闲置，书内少量笔记，无缺页，可在图书馆门口当面交易。");
+        product.setPrice(new BigDecimal("25.50"));
+        product.setOriginalPrice(new BigDecimal("59.00"));
+        product.setImages(List.of("/uploads/products/" + id + "-1.jpg", "/uploads/products/" + id + "-2.jpg"));
+        product.setViewCount((int) (id * 7 % 1000));
+        product.setStatus(1);
+        product.setStatusText("在售");
+        product.setCreateTime(LocalDateTime.of(2024, 3, 1, 12, 30, 15).plusMinutes(id));
+        product.setUpdateTime(LocalDateTime.of(2024, 3, 2, 8, 0, 0).plusMinutes(id));
+        product.setCondition("九成新");
+        product.setIsNegotiable(Boolean.TRUE);
+        product.setIncludeInvoice(Boolean.FALSE);
+        product.setTags(List.of("教材", "数学"));
+        return product;
+    }
+
+    private static void assertSameProduct(ProductResponse expected, ProductResponse actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getCategoryName(), actual.getCategoryName());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(0, expected.getPrice().compareTo(actual.getPrice()));
+        assertEquals(expected.getImages(), actual.getImages());
+        assertEquals(expected.getViewCount(), actual.getViewCount());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+        assertEquals(expected.getIsNegotiable(), actual.getIsNegotiable());
+        assertEquals(expected.getIncludeInvoice(), actual.getIncludeInvoice());
+        assertNull(actual.getIncludeWarranty());
+        assertEquals(expected.getTags(), actual.getTags());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertSamePage(Page<ProductResponse> expected, Object actual) {
+        Page<ProductResponse> page = assertInstanceOf(Page.class, actual);
+        assertEquals(expected.getTotalElements(), page.getTotalElements());
+        assertEquals(expected.getPageable(), page.getPageable());
+        assertEquals(expected.getContent().size(), page.getContent().size());
+        for (int i = 0; i < expected.getContent().size(); i++) {
+            assertSameProduct(expected.getContent().get(i), page.getContent().get(i));
+        }
+    }
+
+    @Test
+    void roundTripsProductPage() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, true, 0);
+        Page<ProductResponse> page = productPage(20);
+
+        byte[] bytes = serializer.serialize(page);
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(CompactRedisSerializer.VERSION, bytes[1]);
+        assertEquals(0, bytes[2], "未开启压缩");
+        assertSamePage(page, serializer.deserialize(bytes));
+        assertTrue(bytes.length < legacy.serialize(page).length, "紧凑格式应小于JSON");
+    }
+
+    @Test
+    void roundTripsScalarsCollectionsAndRefreshableValue() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, true, 0);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", 3);
+        map.put("ids", List.of(1L, 2L, Long.MAX_VALUE));
+        map.put("ratio", 0.25d);
+        map.put("missing", null);
+
+        assertEquals(map, serializer.deserialize(serializer.serialize(map)));
+        assertEquals("分类", serializer.deserialize(serializer.serialize("分类")));
+        assertNull(serializer.deserialize(serializer.serialize(null)));
+
+        RefreshableValue value = new RefreshableValue(List.of(7L, 8L), 123456789L, 42L);
+        RefreshableValue copy = assertInstanceOf(RefreshableValue.class,
+                serializer.deserialize(serializer.serialize(value)));
+        assertEquals(value.getValue(), copy.getValue());
+        assertEquals(value.getSoftExpireAt(), copy.getSoftExpireAt());
+        assertEquals(value.getLoadMillis(), copy.getLoadMillis());
+    }
+
+    @Test
+    void readsValuesWrittenByLegacyJsonSerializer() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, true, 1024);
+        List<ProductResponse> products = productPage(5).getContent();
+
+        List<?> copy = assertInstanceOf(List.class, serializer.deserialize(legacy.serialize(new ArrayList<>(products))));
+        assertEquals(products.size(), copy.size());
+        for (int i = 0; i < products.size(); i++) {
+            assertSameProduct(products.get(i), assertInstanceOf(ProductResponse.class, copy.get(i)));
+        }
+        assertEquals(List.of(1L, 2L, 3L), serializer.deserialize(legacy.serialize(new ArrayList<>(List.of(1L, 2L, 3L)))));
+    }
+
+    @Test
+    void jsonFormatWritesExactlyWhatLegacySerializerWrites() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, false, 1024);
+        ProductResponse product = product(1L);
+
+        assertArrayEquals(legacy.serialize(product), serializer.serialize(product));
+    }
+
+    @Test
+    void deflatesBodiesAboveThresholdOnly() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, true, 256);
+        Page<ProductResponse> large = productPage(50);
+        List<Long> small = List.of(1L, 2L, 3L);
+
+        byte[] compressed = serializer.serialize(large);
+        assertEquals(1, compressed[2], "超过阈值的正文应压缩");
+        assertTrue(compressed.length < new CompactRedisSerializer(legacy, true, 0).serialize(large).length);
+        assertSamePage(large, serializer.deserialize(compressed));
+
+        byte[] plain = serializer.serialize(small);
+        assertTrue(plain.length - 3 <= 256);
+        assertEquals(0, plain[2], "未超过阈值的正文不压缩");
+    }
+
+    @Test
+    void rejectsNewerFormatVersionAndTruncatedData() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(legacy, true, 0);
+        byte[] bytes = serializer.serialize(product(1L));
+
+        byte[] newer = Arrays.copyOf(bytes, bytes.length);
+        newer[1] = (byte) (CompactRedisSerializer.VERSION + 1);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(newer));
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize(new byte[]{CompactRedisSerializer.MAGIC, CompactRedisSerializer.VERSION}));
+    }
+}
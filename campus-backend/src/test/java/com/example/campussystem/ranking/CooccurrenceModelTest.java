@@ -0,0 +1,59 @@
+package com.example.campussystem.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CooccurrenceModelTest {
+
+    @Test
+    void ranksNeighboursBySimilarity() {
+        CooccurrenceModel model = new CooccurrenceModel(100);
+        for (long user = 1; user <= 3; user++) {
+            model.add(user, 10, 1, 0);
+            model.add(user, 20, 1, 0);
+        }
+        model.add(4, 10, 1, 0);
+        model.add(4, 30, 1, 0);
+
+        Map<Long, long[]> neighbours = model.topNeighbours(5, id -> true);
+        assertArrayEquals(new long[]{20, 30}, neighbours.get(10L));
+        assertArrayEquals(new long[]{10}, neighbours.get(30L));
+    }
+
+    @Test
+    void oversizedBasketKeepsHeaviestThenMostRecentItems() {
+        CooccurrenceModel model = new CooccurrenceModel(3);
+        // 一个用户的篮子有 5 件物品，上限 3：保留购买过的 1，以及收藏中最近的 4、5
+        model.add(1, 1, 2, 100);
+        model.add(1, 2, 1, 200);
+        model.add(1, 3, 1, 300);
+        model.add(1, 4, 1, 400);
+        model.add(1, 5, 1, 500);
+
+        Map<Long, long[]> neighbours = model.topNeighbours(10, id -> true);
+        assertTrue(neighbours.containsKey(1L));
+        assertTrue(neighbours.containsKey(4L));
+        assertTrue(neighbours.containsKey(5L));
+        assertFalse(neighbours.containsKey(2L), "较早且权重低的物品被截掉");
+        assertFalse(neighbours.containsKey(3L));
+    }
+
+    @Test
+    void repeatedActionsKeepMaximumWeightAndLatestTime() {
+        CooccurrenceModel model = new CooccurrenceModel(2);
+        model.add(1, 1, 1, 100);
+        model.add(1, 2, 1, 200);
+        model.add(1, 3, 1, 300);
+        // 再次收藏物品 1，时间更新为最近
+        model.add(1, 1, 1, 900);
+
+        Map<Long, long[]> neighbours = model.topNeighbours(10, id -> true);
+        assertArrayEquals(new long[]{3}, neighbours.get(1L));
+        assertFalse(neighbours.containsKey(2L));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.campussystem.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 倒排索引无关键词浏览的排序测试：按发布时间倒序，不受商品更新后重新分配文档号的影响
+ */
+class InvertedIndexTest {
+
+    private static InvertedIndex.Document doc(long productId, long createTime) {
+        return new InvertedIndex.Document(productId, createTime, 7L, new BigDecimal("50.00"), null, false,
+                Map.of("自行车", 1f));
+    }
+
+    @Test
+    void browsingOrdersByCreateTimeAfterUpdates() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(doc(1L, 1_000L));
+        index.put(doc(2L, 3_000L));
+        index.put(doc(3L, 2_000L));
+        // 商品 1 被编辑或预订后重新写入，获得最大的文档号
+        index.put(doc(1L, 1_000L));
+
+        InvertedIndex.SearchResult result = index.search(new InvertedIndex.SearchQuery().category(7L).page(0, 10));
+        assertEquals(List.of(2L, 3L, 1L), result.getProductIds());
+    }
+
+    @Test
+    void browsingPagesWithOffset() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(doc(id, id * 1_000L));
+        }
+        index.put(doc(6L, 3_000L));
+
+        assertEquals(List.of(6L, 3L, 2L), index.search(new InvertedIndex.SearchQuery().page(2, 3)).getProductIds());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.campussystem.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量接口的往返次数基准：在每次往返带 200µs 模拟延迟的Redis替身上，
+ * 对比逐个 get/set/delete 与 multiGet/multiSet/multiDelete 在 10、100、1000 个key时的往返次数和耗时。
+ * 替身中管道内的每条SET经过Mockito分派和Java序列化，multiSet的耗时主要是替身自身开销，应以往返次数为准。
+ * 不随单元测试运行，在 campus-backend 目录下手动执行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.campussystem.service.CacheServiceBatchBenchmark
+ */
+public class CacheServiceBatchBenchmark {
+
+    private static final long LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        RedisStandIn redis = new RedisStandIn();
+        // 不启用本地缓存，所有读取都落到Redis替身
+        CacheService cacheService = redis.newCacheService("", 100, 60_000);
+        redis.latencyNanos = LATENCY_NANOS;
+        try {
+            System.out.printf("%-6s %-8s %14s %14s %14s %14s%n",
+                    "batch", "op", "single trips", "single ms", "batch trips", "batch ms");
+            for (int size : new int[]{10, 100, 1000}) {
+                List<String> keys = new ArrayList<>(size);
+                Map<String, Object> entries = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    keys.add("user_profile:" + i);
+                    entries.put("user_profile:" + i, "value-" + i);
+                }
+
+                report(size, "set", redis,
+                        () -> entries.forEach((key, value) -> cacheService.set(key, value, 10, TimeUnit.MINUTES)),
+                        () -> cacheService.multiSet(entries, 10, TimeUnit.MINUTES));
+                report(size, "get", redis,
+                        () -> keys.forEach(cacheService::get),
+                        () -> cacheService.multiGet(keys));
+                report(size, "delete", redis,
+                        () -> keys.forEach(cacheService::delete),
+                        () -> cacheService.multiDelete(keys));
+            }
+        } finally {
+            cacheService.shutdown();
+        }
+    }
+
+    private static void report(int size, String op, RedisStandIn redis, Runnable single, Runnable batch) {
+        long[] singleResult = measure(redis, single);
+        long[] batchResult = measure(redis, batch);
+        System.out.printf("%-6d %-8s %14d %14.2f %14d %14.2f%n", size, op,
+                singleResult[0], singleResult[1] / 1e6, batchResult[0], batchResult[1] / 1e6);
+    }
+
+    /**
+     * @return {每轮往返次数, 每轮平均耗时纳秒}
+     */
+    private static long[] measure(RedisStandIn redis, Runnable action) {
+        action.run();
+        redis.roundTrips.set(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new long[]{redis.roundTrips.get() / ROUNDS, elapsed / ROUNDS};
+    }
+}
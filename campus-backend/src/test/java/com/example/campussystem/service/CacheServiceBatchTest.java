@@ -0,0 +1,123 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.cache.RefreshableValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CacheService 的批量接口：结果顺序、按key的过期时间以及每批只有一次Redis往返
+ */
+class CacheServiceBatchTest {
+
+    private final RedisStandIn redis = new RedisStandIn();
+    private final CacheService cacheService = redis.newCacheService("product_detail:=100:60", 100, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        cacheService.shutdown();
+    }
+
+    @Test
+    void multiGetReturnsValuesInInputOrderWithNullsForMisses() {
+        redis.values.put("user_profile:3", "c");
+        redis.values.put("user_profile:1", "a");
+
+        redis.roundTrips.set(0);
+        List<Object> values = cacheService.multiGet(
+                List.of("user_profile:1", "user_profile:2", "user_profile:3", "user_profile:1"));
+
+        assertEquals(Arrays.asList("a", null, "c", "a"), values);
+        assertEquals(1, redis.roundTrips.get(), "全部key一次MGET读取");
+    }
+
+    @Test
+    void multiGetOnlyFetchesKeysMissingFromLocalCache() {
+        redis.values.put("product_detail:1", "one");
+        redis.values.put("product_detail:2", "two");
+        cacheService.get("product_detail:1");
+
+        redis.values.put("product_detail:1", "changed-in-redis");
+        redis.roundTrips.set(0);
+        List<Object> values = cacheService.multiGet(List.of("product_detail:2", "product_detail:1"));
+
+        assertEquals(List.of("two", "one"), values, "product_detail:1 来自本地缓存");
+        assertEquals(1, redis.roundTrips.get());
+
+        redis.roundTrips.set(0);
+        assertEquals(List.of("one", "two"), cacheService.multiGet(List.of("product_detail:1", "product_detail:2")));
+        assertEquals(0, redis.roundTrips.get(), "全部命中本地缓存时不访问Redis");
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void typedMultiGetUnwrapsRefreshableValuesAndDropsOtherTypes() {
+        redis.values.put("category_product_ids:1", new RefreshableValue(new ArrayList<>(List.of(5L, 6L)), 0, 0));
+        redis.values.put("user_profile:1", 7L);
+        redis.values.put("user_profile:2", "not a list");
+
+        List<List> values = cacheService.multiGet(
+                List.of("user_profile:2", "category_product_ids:1", "user_profile:1"), List.class);
+
+        assertEquals(Arrays.asList(null, List.of(5L, 6L), null), values);
+    }
+
+    @Test
+    void multiSetWritesPerKeyTtlsInOnePipeline() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("user_profile:1", "a");
+        entries.put("user_profile:2", "b");
+        entries.put("user_profile:3", "c");
+        Map<String, Long> ttl = new HashMap<>();
+        ttl.put("user_profile:1", 1_000L);
+        ttl.put("user_profile:2", 0L);
+
+        redis.roundTrips.set(0);
+        cacheService.multiSet(entries, ttl);
+
+        assertEquals(1, redis.roundTrips.get(), "全部SET在一次管道中发送");
+        assertEquals(List.of("a", "b", "c"),
+                cacheService.multiGet(List.of("user_profile:1", "user_profile:2", "user_profile:3")));
+        assertEquals(1_000L, redis.ttlMillis.get("user_profile:1"));
+        assertFalse(redis.ttlMillis.containsKey("user_profile:2"), "不大于0表示不过期");
+        assertFalse(redis.ttlMillis.containsKey("user_profile:3"), "缺失表示不过期");
+    }
+
+    @Test
+    void multiSetWithSharedTimeoutAppliesItToEveryKeyAndFillsLocalCache() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("product_detail:1", "one");
+        entries.put("product_detail:2", "two");
+
+        cacheService.multiSet(entries, 30, TimeUnit.MINUTES);
+
+        assertEquals(TimeUnit.MINUTES.toMillis(30), redis.ttlMillis.get("product_detail:1"));
+        assertEquals(TimeUnit.MINUTES.toMillis(30), redis.ttlMillis.get("product_detail:2"));
+        redis.values.clear();
+        assertEquals(List.of("two", "one"), cacheService.multiGet(List.of("product_detail:2", "product_detail:1")));
+    }
+
+    @Test
+    void multiDeleteRemovesAllKeysWithOneCommand() {
+        redis.values.put("user_profile:1", "a");
+        redis.values.put("user_profile:2", "b");
+        redis.values.put("user_profile:3", "c");
+
+        redis.roundTrips.set(0);
+        assertEquals(2L, cacheService.multiDelete(List.of("user_profile:1", "user_profile:2", "user_profile:9")));
+        assertEquals(1, redis.roundTrips.get());
+        assertTrue(redis.values.containsKey("user_profile:3"));
+        assertFalse(redis.values.containsKey("user_profile:1"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.campussystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CacheService 在Redis故障时的降级行为：熔断、快速失败、待写队列与失效重放
+ */
+class CacheServiceBreakerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private final RedisStandIn redis = new RedisStandIn();
+    private final CacheService cacheService = redis.newCacheService("product_detail:=100:60", 2, OPEN_MILLIS);
+
+    @AfterEach
+    void tearDown() {
+        cacheService.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String breakerState() {
+        return (String) ((Map<String, Object>) cacheService.getTierStatistics().get("breaker")).get("state");
+    }
+
+    /**
+     * 熔断打开后等待探测窗口，恢复Redis并发起一次调用使熔断关闭
+     */
+    private void recover() throws InterruptedException {
+        redis.down.set(false);
+        Thread.sleep(OPEN_MILLIS + 50);
+        cacheService.get("probe");
+        assertEquals("CLOSED", breakerState());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void opensAfterFailuresAndThenFailsFastWithoutTouchingRedis() {
+        redis.down.set(true);
+        assertNull(cacheService.get("user_profile:1"));
+        assertNull(cacheService.get("user_profile:1"));
+        assertEquals("OPEN", breakerState());
+
+        int attempts = redis.roundTrips.get();
+        for (int i = 0; i < 100; i++) {
+            assertNull(cacheService.get("user_profile:1"));
+        }
+        assertEquals(attempts, redis.roundTrips.get(), "熔断期间不应再访问Redis");
+    }
+
+    @Test
+    void deletesDoNotThrowWhileOpen() {
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+
+        assertFalse(cacheService.delete("product_detail:1"));
+        assertEquals(0L, cacheService.multiDelete(List.of("product_detail:2", "product_detail:3")));
+        cacheService.invalidateNamespace("category_product_ids:1:");
+    }
+
+    @Test
+    void setDuringOutageServesFromLocalTierAndIsReplayedWithSetNx() throws InterruptedException {
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+
+        cacheService.set("product_detail:7", "fresh", 30, TimeUnit.MINUTES);
+        assertEquals("fresh", cacheService.get("product_detail:7"), "熔断期间从L1读取");
+
+        recover();
+        await(() -> "fresh".equals(redis.values.get("product_detail:7")));
+        long ttl = redis.ttlMillis.get("product_detail:7");
+        assertTrue(ttl > TimeUnit.MINUTES.toMillis(29) && ttl <= TimeUnit.MINUTES.toMillis(30));
+    }
+
+    @Test
+    void replayDoesNotOverwriteValueWrittenAfterRecovery() throws InterruptedException {
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+        cacheService.set("product_detail:8", "queued", 30, TimeUnit.MINUTES);
+
+        redis.values.put("product_detail:8", "newer");
+        recover();
+        await(() -> Integer.valueOf(0).equals(
+                ((Map<?, ?>) cacheService.getTierStatistics().get("writeBehind")).get("pending")));
+        assertEquals("newer", redis.values.get("product_detail:8"));
+    }
+
+    @Test
+    void deleteDuringOutageDropsQueuedWriteAndIsReplayed() throws InterruptedException {
+        redis.values.put("product_detail:9", "stale");
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+
+        cacheService.set("product_detail:9", "queued", 30, TimeUnit.MINUTES);
+        cacheService.delete("product_detail:9");
+
+        recover();
+        await(() -> !redis.values.containsKey("product_detail:9"));
+        Thread.sleep(100);
+        assertFalse(redis.values.containsKey("product_detail:9"), "已删除的待写条目不应补写");
+    }
+
+    @Test
+    void deleteAfterQueuedWriteStillRemovesStaleValueBeforeReplay() throws InterruptedException {
+        redis.values.put("product_detail:10", "stale");
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+
+        cacheService.delete("product_detail:10");
+        cacheService.set("product_detail:10", "fresh", 30, TimeUnit.MINUTES);
+
+        recover();
+        await(() -> "fresh".equals(redis.values.get("product_detail:10")));
+    }
+
+    @Test
+    void overflowingPendingInvalidationsTriggersBroadInvalidationOnRecovery() throws InterruptedException {
+        ReflectionTestUtils.setField(cacheService, "pendingInvalidationSize", 2);
+        for (int i = 1; i <= 5; i++) {
+            redis.values.put("product_detail:" + i, "stale");
+        }
+        redis.strings.put("cache:gen:category_product_ids:1:", "3");
+        redis.down.set(true);
+        cacheService.get("a");
+        cacheService.get("a");
+
+        for (int i = 1; i <= 5; i++) {
+            cacheService.delete("product_detail:" + i);
+        }
+
+        recover();
+        await(() -> redis.values.keySet().stream().noneMatch(key -> key.startsWith("product_detail:")));
+        await(() -> "4".equals(redis.strings.get("cache:gen:category_product_ids:1:")));
+    }
+}
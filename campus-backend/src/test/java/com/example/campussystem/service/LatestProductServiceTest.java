@@ -0,0 +1,70 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 最新商品游标分页测试：时间线覆盖范围内从内存返回，超出部分从锚点按键集查询，不带 OFFSET
+ */
+class LatestProductServiceTest {
+
+    private ProductRepository productRepository;
+    private LatestProductService latestProductService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        // 时间线容量 3，数据库中多于 3 件在售商品：ID 50、40、30 进入时间线，第 4 行说明时间线不完整
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            rows.add(new Object[]{50L - i * 10, now.minusMinutes(i)});
+        }
+        when(productRepository.findTimeline(eq(1), any(Pageable.class))).thenReturn(rows);
+        when(productRepository.countByStatusGroupByCategory(1)).thenReturn(new ArrayList<>());
+        when(productRepository.findTimelineAfter(eq(1), anyLong(), anyInt(), anyInt())).thenReturn(List.of(20L, 10L));
+
+        latestProductService = new LatestProductService();
+        ReflectionTestUtils.setField(latestProductService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(latestProductService, "enabled", true);
+        ReflectionTestUtils.setField(latestProductService, "capacity", 3);
+        ReflectionTestUtils.setField(latestProductService, "categoryCapacity", 3);
+        latestProductService.init();
+        latestProductService.resync();
+    }
+
+    @Test
+    void firstPageInsideTimelineIsServedFromMemory() {
+        assertEquals(List.of(50L, 40L), latestProductService.getIdsAfter(null, null, 2));
+        verify(productRepository, never()).findTimelineAfter(anyInt(), anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void pageCrossingTimelineEndContinuesFromTailWithoutOffset() {
+        assertEquals(List.of(30L, 20L, 10L), latestProductService.getIdsAfter(null, 40L, 3));
+        verify(productRepository).findTimelineAfter(1, 30L, 0, 2);
+    }
+
+    @Test
+    void anchorBeyondTimelineQueriesFromAnchorWithoutOffset() {
+        assertEquals(List.of(20L, 10L), latestProductService.getIdsAfter(null, 25L, 2));
+        verify(productRepository).findTimelineAfter(1, 25L, 0, 2);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.campussystem.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存失效代价随键空间增长的基准：按模式删除（SCAN + DEL，升级前的方式）与命名空间代数递增（INCR）对比。
+ * 在每次往返带 100µs 模拟延迟的Redis替身中放入 1k、10k、100k 个无关key和一个分类的 30 个列表页，
+ * 每轮使该分类的列表页失效，统计往返次数和耗时；代数方式的代价应与键空间大小无关。
+ * 不随单元测试运行，在 campus-backend 目录下手动执行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.campussystem.service.NamespaceInvalidationBenchmark
+ */
+public class NamespaceInvalidationBenchmark {
+
+    private static final String NAMESPACE = "category_product_ids:7:";
+    private static final long LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int PAGES = 30;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        System.out.printf("%-9s %-12s %10s %10s %10s%n", "keyspace", "strategy", "trips", "p50 ms", "p99 ms");
+        for (int keyspace : new int[]{1_000, 10_000, 100_000}) {
+            RedisStandIn redis = new RedisStandIn();
+            CacheService cacheService = redis.newCacheService("", 100, 60_000);
+            try {
+                for (int i = 0; i < keyspace; i++) {
+                    redis.values.put("product_detail:" + i, i);
+                }
+                redis.latencyNanos = LATENCY_NANOS;
+
+                run(keyspace, "pattern", redis, () -> {
+                    for (int page = 0; page < PAGES; page++) {
+                        redis.values.put(NAMESPACE + page + ":10:createTime:desc", page);
+                    }
+                }, () -> cacheService.deleteByPattern(NAMESPACE + "*"));
+
+                run(keyspace, "generation", redis, () -> {
+                    for (int page = 0; page < PAGES; page++) {
+                        redis.values.put(cacheService.versionedKey(NAMESPACE, page + ":10:createTime:desc"), page);
+                    }
+                }, () -> cacheService.invalidateNamespace(NAMESPACE));
+            } finally {
+                cacheService.shutdown();
+            }
+        }
+    }
+
+    private static void run(int keyspace, String name, RedisStandIn redis, Runnable fill, Runnable invalidate) {
+        long[] nanos = new long[ROUNDS];
+        int trips = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            fill.run();
+            redis.roundTrips.set(0);
+            long start = System.nanoTime();
+            invalidate.run();
+            nanos[round] = System.nanoTime() - start;
+            trips = redis.roundTrips.get();
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-9d %-12s %10d %10.2f %10.2f%n", keyspace, name, trips,
+                nanos[ROUNDS / 2] / 1e6, nanos[(int) Math.ceil(ROUNDS * 0.99) - 1] / 1e6);
+    }
+}
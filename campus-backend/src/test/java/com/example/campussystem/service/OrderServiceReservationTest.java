@@ -0,0 +1,247 @@
+package com.example.campussystem.service;
+
+import com.example.campussystem.dto.OrderRequest;
+import com.example.campussystem.entity.Order;
+import com.example.campussystem.entity.Product;
+import com.example.campussystem.entity.User;
+import com.example.campussystem.event.ProductChangedEvent;
+import com.example.campussystem.exception.BusinessException;
+import com.example.campussystem.repository.OrderRepository;
+import com.example.campussystem.repository.ProductRepository;
+import com.example.campussystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 下单预订、取消、确认的并发与状态流转测试
+ * 构建中没有嵌入式数据库，商品表用内存中的状态替身：条件更新 UPDATE ... WHERE status = ? 的行锁语义
+ * 用 ConcurrentHashMap.replace(key, expected, new) 的原子比较替换模拟，读取则始终返回快照（模拟所有买家都读到上架状态）。
+ * 因此这里只验证 OrderService 正确使用了条件更新的返回值，不覆盖数据库：
+ * ProductRepository.updateStatusIfMatch 的SQL本身及其在MySQL上的行锁行为需要在真实数据库上验证。
+ */
+class OrderServiceReservationTest {
+
+    private static final long PRODUCT_ID = 42L;
+    private static final long SELLER_ID = 1L;
+
+    private final Map<Long, Integer> productStatus = new ConcurrentHashMap<>();
+    private final AtomicInteger savedOrders = new AtomicInteger();
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private OrderService orderService;
+    private ProductRepository productRepository;
+    private OrderRepository orderRepository;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        productStatus.put(PRODUCT_ID, 1);
+        when(productRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(invocation.getArgument(0));
+            product.setUserId(SELLER_ID);
+            product.setTitle("二手自行车");
+            // 所有买家都在预订前读到了上架状态
+            product.setStatus(1);
+            return Optional.of(product);
+        });
+        when(productRepository.updateStatusIfMatch(anyLong(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Long productId = invocation.getArgument(0);
+            Integer expected = invocation.getArgument(1);
+            Integer status = invocation.getArgument(2);
+            return productStatus.replace(productId, expected, status) ? 1 : 0;
+        });
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(0));
+            return Optional.of(user);
+        });
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            if (order.getId() == null) {
+                order.setId(orderIds.incrementAndGet());
+                savedOrders.incrementAndGet();
+            }
+            return order;
+        });
+        when(orderRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Order order = new Order();
+            order.setId(invocation.getArgument(0));
+            order.setBuyerId(100L);
+            order.setSellerId(SELLER_ID);
+            order.setProductId(PRODUCT_ID);
+            order.setStatus(1);
+            return Optional.of(order);
+        });
+
+        SnowflakeOrderNumberGenerator generator = SnowflakeOrderNumberGeneratorTest.newGenerator(null, 1);
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(orderService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(orderService, "orderNumberGenerator", generator);
+        ReflectionTestUtils.setField(orderService, "eventPublisher", eventPublisher);
+    }
+
+    private static OrderRequest request() {
+        OrderRequest request = new OrderRequest();
+        request.setProductId(PRODUCT_ID);
+        request.setAmount(new BigDecimal("120.00"));
+        return request;
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentBuyersReservesTheProduct() throws Exception {
+        int buyers = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                long buyerId = 100L + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(request(), buyerId);
+                        return true;
+                    } catch (BusinessException e) {
+                        assertEquals("商品已被其他买家预订", e.getMessage());
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    succeeded++;
+                }
+            }
+            assertEquals(1, succeeded, "只能有一个买家下单成功");
+            assertEquals(1, savedOrders.get(), "失败的买家不应写入订单");
+            assertEquals(2, productStatus.get(PRODUCT_ID));
+            verify(productRepository, times(buyers)).updateStatusIfMatch(PRODUCT_ID, 1, 2);
+            verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void repeatedReservationRoundsNeverDoubleSell() throws Exception {
+        int rounds = 200;
+        int buyers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                productStatus.put(PRODUCT_ID, 1);
+                savedOrders.set(0);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < buyers; i++) {
+                    long buyerId = 100L + i;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            orderService.createOrder(request(), buyerId);
+                        } catch (BusinessException ignored) {
+                            // 预订失败的买家
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, savedOrders.get(), "第 " + round + " 轮出现重复售出");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelReleasesReservationOnlyOnce() {
+        orderService.createOrder(request(), 100L);
+        assertThrows(BusinessException.class, () -> orderService.createOrder(request(), 101L));
+
+        orderService.cancelOrder(1L, 100L);
+        assertEquals(1, productStatus.get(PRODUCT_ID), "取消订单后商品恢复上架");
+
+        // 卖家已把商品下架，重复取消不应覆盖卖家的状态
+        productStatus.put(PRODUCT_ID, 3);
+        orderService.cancelOrder(1L, 100L);
+        assertEquals(3, productStatus.get(PRODUCT_ID));
+        verify(productRepository, times(2)).updateStatusIfMatch(PRODUCT_ID, 2, 1);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void confirmByBothSidesMarksReservedProductSold() {
+        orderService.createOrder(request(), 100L);
+        when(orderRepository.findById(anyLong())).thenReturn(Optional.of(confirmedBySeller()));
+
+        orderService.confirmOrderByBuyer(1L, 100L);
+
+        assertEquals(3, productStatus.get(PRODUCT_ID));
+        verify(productRepository).updateStatusIfMatch(PRODUCT_ID, 2, 3);
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void confirmAfterCancelFails() {
+        orderService.createOrder(request(), 100L);
+        orderService.cancelOrder(1L, 100L);
+        when(orderRepository.findById(anyLong())).thenReturn(Optional.of(confirmedBySeller()));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> orderService.confirmOrderByBuyer(1L, 100L));
+        assertEquals("商品已不是预订状态，无法完成订单", e.getMessage());
+        assertEquals(1, productStatus.get(PRODUCT_ID), "取消后已恢复上架的商品不应被置为已售出");
+    }
+
+    private static Order confirmedBySeller() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setBuyerId(100L);
+        order.setSellerId(SELLER_ID);
+        order.setProductId(PRODUCT_ID);
+        order.setStatus(2);
+        order.setBuyerConfirm(0);
+        order.setSellerConfirm(1);
+        return order;
+    }
+}
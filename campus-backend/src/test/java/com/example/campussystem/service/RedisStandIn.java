@@ -0,0 +1,270 @@
+package com.example.campussystem.service;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 测试用的进程内Redis替身：用Map模拟字符串命令，可随时注入故障（所有命令抛出连接失败），
+ * 并记录每个key写入时的过期时间，供 {@link CacheService} 的单元测试使用；
+ * 设置 latencyNanos 后每次往返额外等待该时长，供基准测试模拟网络延迟
+ */
+class RedisStandIn {
+
+    final Map<String, Object> values = new ConcurrentHashMap<>();
+    final Map<String, String> strings = new ConcurrentHashMap<>();
+    final Map<String, Long> ttlMillis = new ConcurrentHashMap<>();
+    // 带过期时间的key的到期时刻，读取时惰性删除已过期的key
+    private final Map<String, Long> expireAt = new ConcurrentHashMap<>();
+    final AtomicBoolean down = new AtomicBoolean(false);
+    final AtomicInteger commands = new AtomicInteger();
+    final AtomicInteger roundTrips = new AtomicInteger();
+    volatile long latencyNanos;
+
+    final RedisTemplate<String, Object> redisTemplate;
+    final StringRedisTemplate stringRedisTemplate;
+    final RedisMessageListenerContainer listenerContainer;
+
+    private final RedisSerializer<Object> serializer = RedisSerializer.java();
+
+    @SuppressWarnings("unchecked")
+    RedisStandIn() {
+        redisTemplate = mock(RedisTemplate.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        listenerContainer = mock(RedisMessageListenerContainer.class);
+        ValueOperations<String, Object> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(redisTemplate.getValueSerializer()).thenAnswer(invocation -> serializer);
+
+        when(ops.get(anyString())).thenAnswer(invocation -> {
+            command();
+            return read(invocation.getArgument(0));
+        });
+        when(ops.multiGet(anyCollection())).thenAnswer(invocation -> {
+            command();
+            List<Object> result = new ArrayList<>();
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                result.add(read(key));
+            }
+            return result;
+        });
+        doAnswer(invocation -> {
+            command();
+            put(invocation.getArgument(0), invocation.getArgument(1), 0);
+            return null;
+        }).when(ops).set(anyString(), any());
+        doAnswer(invocation -> {
+            command();
+            TimeUnit unit = invocation.getArgument(3);
+            put(invocation.getArgument(0), invocation.getArgument(1), unit.toMillis(invocation.getArgument(2)));
+            return null;
+        }).when(ops).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        when(ops.setIfAbsent(anyString(), any())).thenAnswer(invocation -> {
+            command();
+            return putIfAbsent(invocation.getArgument(0), invocation.getArgument(1), 0);
+        });
+        when(ops.setIfAbsent(anyString(), any(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            command();
+            TimeUnit unit = invocation.getArgument(3);
+            return putIfAbsent(invocation.getArgument(0), invocation.getArgument(1),
+                    unit.toMillis(invocation.getArgument(2)));
+        });
+        when(redisTemplate.expire(anyString(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            command();
+            String key = invocation.getArgument(0);
+            if (read(key) == null) {
+                return false;
+            }
+            TimeUnit unit = invocation.getArgument(2);
+            long ttl = unit.toMillis(invocation.getArgument(1));
+            ttlMillis.put(key, ttl);
+            expireAt.put(key, System.currentTimeMillis() + ttl);
+            return true;
+        });
+        when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation -> {
+            command();
+            long removed = 0;
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                if (values.remove(key) != null) {
+                    removed++;
+                }
+                ttlMillis.remove(key);
+                expireAt.remove(key);
+            }
+            return removed;
+        });
+        // 管道内的命令直接作用于Map，整个管道只计一次往返
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(stringCommands.set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                any(RedisStringCommands.SetOption.class))).thenAnswer(set -> {
+            Expiration expiration = set.getArgument(2);
+            put(new String(set.<byte[]>getArgument(0), StandardCharsets.UTF_8),
+                    serializer.deserialize(set.getArgument(1)),
+                    expiration.isPersistent() ? 0 : expiration.getExpirationTimeInMilliseconds());
+            return true;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            command();
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return new ArrayList<>();
+        });
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            command();
+            long removed = 0;
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                if (values.remove(key) != null) {
+                    removed++;
+                }
+                ttlMillis.remove(key);
+                expireAt.remove(key);
+            }
+            return removed;
+        });
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(invocation -> scan(invocation.getArgument(0), values));
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenAnswer(invocation -> scan(invocation.getArgument(0), strings));
+        doAnswer(invocation -> {
+            command();
+            return null;
+        }).when(stringRedisTemplate).convertAndSend(anyString(), anyString());
+
+        ValueOperations<String, String> stringOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringOps);
+        when(stringOps.get(anyString())).thenAnswer(invocation -> {
+            command();
+            return strings.get(invocation.<String>getArgument(0));
+        });
+        when(stringOps.increment(anyString())).thenAnswer(invocation -> {
+            command();
+            return Long.parseLong(strings.merge(invocation.getArgument(0), "1",
+                    (current, one) -> String.valueOf(Long.parseLong(current) + 1)));
+        });
+    }
+
+    /**
+     * 创建连接到本替身的 CacheService；policies 为本地缓存策略，空串表示不启用L1
+     */
+    CacheService newCacheService(String policies, int failureThreshold, long openMillis) {
+        CacheService cacheService = new CacheService();
+        ReflectionTestUtils.setField(cacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cacheService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cacheService, "redisMessageListenerContainer", listenerContainer);
+        ReflectionTestUtils.setField(cacheService, "localCacheEnabled", !policies.isEmpty());
+        ReflectionTestUtils.setField(cacheService, "localCachePolicies", policies);
+        ReflectionTestUtils.setField(cacheService, "generationRefreshMillis", 5000L);
+        ReflectionTestUtils.setField(cacheService, "singleFlightLockEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "singleFlightWaitMillis", 5000L);
+        ReflectionTestUtils.setField(cacheService, "refreshThreads", 1);
+        ReflectionTestUtils.setField(cacheService, "refreshQueueSize", 10);
+        ReflectionTestUtils.setField(cacheService, "breakerEnabled", true);
+        ReflectionTestUtils.setField(cacheService, "breakerFailureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(cacheService, "breakerSlowCallMillis", 0L);
+        ReflectionTestUtils.setField(cacheService, "breakerOpenMillis", openMillis);
+        ReflectionTestUtils.setField(cacheService, "writeBehindSize", 100);
+        ReflectionTestUtils.setField(cacheService, "pendingInvalidationSize", 100);
+        ReflectionTestUtils.setField(cacheService, "lostInvalidationPatterns", "product_detail:*");
+        cacheService.init();
+        return cacheService;
+    }
+
+    /**
+     * 模拟SCAN：与真实Redis一样遍历整个键空间，每检查 count 个key计一次往返，无论其中有多少匹配
+     */
+    @SuppressWarnings("unchecked")
+    private Cursor<String> scan(ScanOptions options, Map<String, ?> keyspace) {
+        Pattern pattern = Pattern.compile(options.getPattern() == null ? ".*"
+                : Pattern.quote(options.getPattern()).replace("*", "\\E.*\\Q").replace("?", "\\E.\\Q"));
+        long count = options.getCount() != null ? options.getCount() : 10;
+        Iterator<String> keys = new ArrayList<>(keyspace.keySet()).iterator();
+        Deque<String> matched = new ArrayDeque<>();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> {
+            while (matched.isEmpty() && keys.hasNext()) {
+                command();
+                for (long i = 0; i < count && keys.hasNext(); i++) {
+                    String key = keys.next();
+                    if (pattern.matcher(key).matches()) {
+                        matched.add(key);
+                    }
+                }
+            }
+            return !matched.isEmpty();
+        });
+        when(cursor.next()).thenAnswer(invocation -> matched.remove());
+        return cursor;
+    }
+
+    private void command() {
+        roundTrips.incrementAndGet();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        if (down.get()) {
+            throw new RedisConnectionFailureException("Redis替身已断开");
+        }
+        commands.incrementAndGet();
+    }
+
+    private Object read(String key) {
+        Long deadline = expireAt.get(key);
+        if (deadline != null && deadline <= System.currentTimeMillis()) {
+            values.remove(key);
+            ttlMillis.remove(key);
+            expireAt.remove(key);
+        }
+        return values.get(key);
+    }
+
+    private void put(String key, Object value, long ttl) {
+        values.put(key, value);
+        if (ttl > 0) {
+            ttlMillis.put(key, ttl);
+            expireAt.put(key, System.currentTimeMillis() + ttl);
+        } else {
+            ttlMillis.remove(key);
+            expireAt.remove(key);
+        }
+    }
+
+    private boolean putIfAbsent(String key, Object value, long ttl) {
+        if (read(key) != null) {
+            return false;
+        }
+        put(key, value, ttl);
+        return true;
+    }
+}
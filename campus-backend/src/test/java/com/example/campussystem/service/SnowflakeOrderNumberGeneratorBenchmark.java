@@ -0,0 +1,79 @@
+package com.example.campussystem.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 订单号生成器的多线程唯一性与吞吐量基准，对比升级前的 "ORD" + yyyyMMddHHmmss + 随机数 方案。
+ * 不随单元测试运行，在 campus-backend 目录下手动执行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.campussystem.service.SnowflakeOrderNumberGeneratorBenchmark
+ */
+public class SnowflakeOrderNumberGeneratorBenchmark {
+
+    private static final int PER_THREAD = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        SnowflakeOrderNumberGenerator snowflake = SnowflakeOrderNumberGeneratorTest.newGenerator(null, 1);
+        // 升级前 OrderService.generateOrderNo 的实现
+        Supplier<String> legacy = () -> "ORD" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                + String.format("%04d", (int) (Math.random() * 10000));
+
+        System.out.printf("%-10s %8s %12s %12s %12s%n", "generator", "threads", "generated", "duplicates", "ops/ms");
+        for (int threads : new int[]{1, 4, 16}) {
+            run("legacy", threads, legacy);
+            run("snowflake", threads, snowflake::nextOrderNo);
+        }
+    }
+
+    private static void run(String name, int threads, Supplier<String> generator) throws Exception {
+        Set<String> seen = ConcurrentHashMap.newKeySet(threads * PER_THREAD);
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    String[] orderNos = new String[PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        orderNos[i] = generator.get();
+                    }
+                    return orderNos;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            List<String[]> results = new ArrayList<>();
+            for (Future<String[]> future : futures) {
+                results.add(future.get());
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            // 去重在计时之外进行，只统计生成本身的耗时
+            for (String[] orderNos : results) {
+                for (String orderNo : orderNos) {
+                    if (!seen.add(orderNo)) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            }
+            long total = (long) threads * PER_THREAD;
+            System.out.printf("%-10s %8d %12d %12d %12d%n", name, threads, total, duplicates.get(),
+                    total * 1_000_000 / Math.max(1, elapsed));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
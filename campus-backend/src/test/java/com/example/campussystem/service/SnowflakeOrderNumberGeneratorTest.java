@@ -0,0 +1,170 @@
+package com.example.campussystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    private final RedisStandIn redis = new RedisStandIn();
+    private final CacheService cacheService = redis.newCacheService("", 100, 60_000);
+
+    static SnowflakeOrderNumberGenerator newGenerator(CacheService cacheService, long configuredNodeId) {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "cacheService", cacheService);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", configuredNodeId);
+        ReflectionTestUtils.setField(generator, "leaseMillis", 60_000L);
+        generator.init();
+        return generator;
+    }
+
+    private static long nodeIdOf(long id) {
+        return (id >>> 12) & 1023;
+    }
+
+    @Test
+    void usesConfiguredNodeIdWithoutRedis() {
+        redis.down.set(true);
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, 7);
+
+        assertEquals(7, generator.getNodeId());
+        assertEquals(7, nodeIdOf(generator.nextId()));
+    }
+
+    @Test
+    void rejectsConfiguredNodeIdOutOfRange() {
+        assertThrows(IllegalStateException.class, () -> newGenerator(cacheService, 1024));
+    }
+
+    @Test
+    void leasesDistinctNodeIdsForInstancesSharingRedis() {
+        SnowflakeOrderNumberGenerator first = newGenerator(cacheService, -1);
+        SnowflakeOrderNumberGenerator second = newGenerator(cacheService, -1);
+
+        assertNotEquals(first.getNodeId(), second.getNodeId(), "同一主机上的两个实例散列起点相同，第二个应顺延");
+        assertEquals(first.getNodeId(), nodeIdOf(first.nextId()));
+        assertEquals(60_000L, redis.ttlMillis.get("order:node:" + first.getNodeId()));
+    }
+
+    @Test
+    void failsFastWhenLeaseCannotBeAcquired() {
+        redis.down.set(true);
+
+        assertThrows(IllegalStateException.class, () -> newGenerator(cacheService, -1));
+    }
+
+    @Test
+    void renewKeepsOwnLeaseAndMovesOffATakenOne() {
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, -1);
+        long leased = generator.getNodeId();
+        String key = "order:node:" + leased;
+
+        redis.ttlMillis.put(key, 1L);
+        generator.renewLease();
+        assertEquals(leased, generator.getNodeId());
+        assertEquals(60_000L, redis.ttlMillis.get(key), "续租应重置过期时间");
+
+        // 租约过期后被其他节点占用
+        redis.values.put(key, "other-node");
+        long before = generator.nextId();
+        generator.renewLease();
+        assertNotEquals(leased, generator.getNodeId());
+        long after = generator.nextId();
+        assertEquals(generator.getNodeId(), nodeIdOf(after));
+        assertTrue(after > before, "换ID后仍保持单调");
+    }
+
+    @Test
+    void keepsCurrentNodeIdWhileRedisIsDown() {
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, -1);
+        long leased = generator.getNodeId();
+
+        redis.down.set(true);
+        generator.renewLease();
+        assertEquals(leased, generator.getNodeId());
+        assertEquals(leased, nodeIdOf(generator.nextId()), "租约有效期内继续生成");
+    }
+
+    @Test
+    void stopsGeneratingOnceLeaseIsOlderThanLeaseTime() {
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, -1);
+        long leased = generator.getNodeId();
+
+        // Redis不可达已超过租约时长，ID可能已被其他节点租走
+        redis.down.set(true);
+        ReflectionTestUtils.setField(generator, "leaseConfirmedAt", System.nanoTime() - TimeUnit.MINUTES.toNanos(2));
+        generator.renewLease();
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        redis.down.set(false);
+        generator.renewLease();
+        assertEquals(leased, nodeIdOf(generator.nextId()), "续租成功后恢复生成");
+    }
+
+    @Test
+    void releasesOwnLeaseOnShutdown() {
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, -1);
+        String key = "order:node:" + generator.getNodeId();
+
+        generator.releaseLease();
+        assertFalse(redis.values.containsKey(key));
+    }
+
+    @Test
+    void generatesUniqueMonotonicOrderNumbersUnderConcurrency() throws Exception {
+        SnowflakeOrderNumberGenerator generator = newGenerator(cacheService, 3);
+        int threads = 16;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<List<String>> task = () -> {
+                    start.await();
+                    List<String> orderNos = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        orderNos.add(generator.nextOrderNo());
+                    }
+                    return orderNos;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            Set<String> unique = new HashSet<>(threads * perThread);
+            for (Future<List<String>> future : futures) {
+                List<String> orderNos = future.get();
+                for (int i = 0; i < orderNos.size(); i++) {
+                    String orderNo = orderNos.get(i);
+                    assertEquals(22, orderNo.length());
+                    assertTrue(orderNo.startsWith("ORD"));
+                    assertTrue(unique.add(orderNo), "订单号重复: " + orderNo);
+                    if (i > 0) {
+                        // 定长补零，字典序即数值顺序
+                        assertTrue(orderNo.compareTo(orderNos.get(i - 1)) > 0, "同一线程内应单调递增");
+                    }
+                }
+            }
+            assertEquals(threads * perThread, unique.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
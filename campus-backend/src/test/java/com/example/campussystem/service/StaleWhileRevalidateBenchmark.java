@@ -0,0 +1,106 @@
+package com.example.campussystem.service;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 缓存页到期时的读取延迟基准：硬过期（getOrLoad，到期后下一个读取方同步回源）与
+ * 软/硬两级过期加XFetch提前刷新（getOrRefresh，到期后返回旧值并在后台刷新）对比 p50/p99/最大延迟。
+ * 在Redis替身上，读取线程持续读取同一批分类页，回源固定耗时 30ms，TTL 缩短到百毫秒级以便在数秒内经历多次到期。
+ * 不随单元测试运行，在 campus-backend 目录下手动执行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.campussystem.service.StaleWhileRevalidateBenchmark
+ */
+public class StaleWhileRevalidateBenchmark {
+
+    private static final int READERS = 8;
+    private static final int PAGES = 4;
+    private static final long LOAD_MILLIS = 30;
+    private static final long SOFT_TTL_MILLIS = 200;
+    private static final long HARD_TTL_MILLIS = 400;
+    private static final long DURATION_MILLIS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "strategy", "reads", "loads", "p50 us", "p99 us", "max ms");
+        run("hard-ttl", (cacheService, key, loader) ->
+                cacheService.getOrLoad(key, SOFT_TTL_MILLIS, TimeUnit.MILLISECONDS, loader));
+        run("swr+xfetch", (cacheService, key, loader) ->
+                cacheService.getOrRefresh(key, SOFT_TTL_MILLIS, HARD_TTL_MILLIS, TimeUnit.MILLISECONDS, loader));
+    }
+
+    private interface Reader {
+        Object read(CacheService cacheService, String key, Supplier<Object> loader);
+    }
+
+    private static void run(String name, Reader reader) throws Exception {
+        RedisStandIn redis = new RedisStandIn();
+        CacheService cacheService = redis.newCacheService("", 100, 60_000);
+        ReflectionTestUtils.setField(cacheService, "xfetchBeta", 1.0d);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Object> loader = () -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(LOAD_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(List.of(1L, 2L, 3L));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < READERS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] samples = new long[1 << 16];
+                    int count = 0;
+                    long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+                    while (System.currentTimeMillis() < deadline) {
+                        String key = "category_product_ids:7:v0:" + (count % PAGES) + ":10:price:asc";
+                        long begin = System.nanoTime();
+                        reader.read(cacheService, key, loader);
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, samples.length * 2);
+                        }
+                        samples[count++] = System.nanoTime() - begin;
+                        Thread.sleep(1);
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            start.countDown();
+
+            List<long[]> perThread = new ArrayList<>();
+            int total = 0;
+            for (Future<long[]> future : futures) {
+                long[] samples = future.get();
+                perThread.add(samples);
+                total += samples.length;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] samples : perThread) {
+                System.arraycopy(samples, 0, all, offset, samples.length);
+                offset += samples.length;
+            }
+            Arrays.sort(all);
+            System.out.printf("%-10s %10d %10d %10d %10d %10.1f%n", name, total, loads.get(),
+                    all[total / 2] / 1000, all[(int) Math.ceil(total * 0.99) - 1] / 1000, all[total - 1] / 1e6);
+        } finally {
+            executor.shutdownNow();
+            cacheService.shutdown();
+        }
+    }
+}
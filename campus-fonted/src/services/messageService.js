@@ -8,6 +8,9 @@ class MessageService {
     this.messageHandlers = []
     this.connectionHandlers = []
     this.conversationHandlers = []
+    this.unreadHandlers = []
+    this.typingHandlers = []
+    this.readReceiptHandlers = []
   }
 
   // 初始化WebSocket连接（使用原生 WebSocket，避免 SockJS 的 /info 404）
@@ -124,6 +127,21 @@ class MessageService {
         }
       })
       
+      // 订阅未读数增量（新消息 +1，标记已读为负数）
+      this.client.subscribe('/user/queue/unread', (message) => {
+        this.dispatch(this.unreadHandlers, message.body, '未读数增量')
+      })
+
+      // 订阅对方正在输入状态
+      this.client.subscribe('/user/queue/typing', (message) => {
+        this.dispatch(this.typingHandlers, message.body, '输入状态')
+      })
+
+      // 订阅已读回执
+      this.client.subscribe('/user/queue/read-receipt', (message) => {
+        this.dispatch(this.readReceiptHandlers, message.body, '已读回执')
+      })
+      
       // 订阅系统通知
       this.client.subscribe('/topic/notifications', (message) => {
         console.log('收到系统通知:', message.body)
@@ -154,6 +172,42 @@ class MessageService {
     }
   }
 
+  // 解析推送内容并分发给对应处理器
+  dispatch(handlers, body, label) {
+    try {
+      const payload = JSON.parse(body)
+      handlers.forEach(handler => {
+        try { handler(payload) } catch (e) { console.error(`${label}处理器错误:`, e) }
+      })
+    } catch (e) {
+      console.error(`解析${label}失败:`, e, body)
+    }
+  }
+
+  // 添加处理器并返回取消订阅函数
+  addHandler(handlers, handler) {
+    handlers.push(handler)
+    return () => {
+      const index = handlers.indexOf(handler)
+      if (index > -1) handlers.splice(index, 1)
+    }
+  }
+
+  // 未读数增量订阅：handler({ contactUserId, delta })
+  onUnreadDelta(handler) {
+    return this.addHandler(this.unreadHandlers, handler)
+  }
+
+  // 输入状态订阅：handler({ fromUserId, conversationId, isTyping })
+  onTyping(handler) {
+    return this.addHandler(this.typingHandlers, handler)
+  }
+
+  // 已读回执订阅：handler({ readerId, conversationId, messageId, count, readTime })
+  onReadReceipt(handler) {
+    return this.addHandler(this.readReceiptHandlers, handler)
+  }
+
   // 发送消息
   sendMessage(message) {
     if (!this.isConnected || !this.client) {
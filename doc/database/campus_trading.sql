@@ -98,6 +98,26 @@ INSERT INTO `chat_sessions` VALUES (4, 'session_004', 2, '李四', 1, '2025-01-2
 INSERT INTO `chat_sessions` VALUES (5, 'session_005', 4, '赵六', 1, '2025-01-21 16:31:00', '2025-09-25 01:35:11', NULL, '2025-09-25 01:35:11', '2025-09-25 01:35:11');
 INSERT INTO `chat_sessions` VALUES (6, 'group_main', 1, '张三', 1, '2025-01-21 16:21:00', '2025-09-25 01:35:11', NULL, '2025-09-25 01:35:11', '2025-09-25 01:35:11');
 
+-- ----------------------------
+-- Table structure for conversations
+-- ----------------------------
+DROP TABLE IF EXISTS `conversations`;
+CREATE TABLE `conversations`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `user_id` bigint NOT NULL COMMENT '会话所属用户ID',
+  `contact_user_id` bigint NOT NULL COMMENT '联系人ID',
+  `last_message_id` bigint NOT NULL COMMENT '最后一条消息ID',
+  `last_message_content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL COMMENT '最后一条消息内容',
+  `last_message_type` int NULL DEFAULT NULL,
+  `product_id` bigint NULL DEFAULT NULL COMMENT '最后一条消息关联商品ID',
+  `last_message_time` datetime(6) NULL DEFAULT NULL,
+  `unread_count` int NOT NULL DEFAULT 0 COMMENT '该用户未读的消息数',
+  `update_time` datetime(6) NULL DEFAULT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_conversations_user_contact`(`user_id` ASC, `contact_user_id` ASC) USING BTREE,
+  INDEX `idx_conversations_user_time`(`user_id` ASC, `last_message_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '会话摘要表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for favorites
 -- ----------------------------
@@ -145,6 +165,8 @@ CREATE TABLE `messages`  (
   INDEX `idx_messages_is_read`(`is_read` ASC) USING BTREE,
   INDEX `idx_messages_session_id`(`session_id` ASC) USING BTREE,
   INDEX `idx_messages_message_type`(`message_type` ASC) USING BTREE,
+  INDEX `idx_messages_conversation`(`from_user_id` ASC, `to_user_id` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_messages_chat_start`(`from_user_id` ASC, `to_user_id` ASC, `product_id` ASC) USING BTREE,
   CONSTRAINT `messages_ibfk_1` FOREIGN KEY (`from_user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `messages_ibfk_2` FOREIGN KEY (`to_user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `messages_ibfk_3` FOREIGN KEY (`product_id`) REFERENCES `products` (`id`) ON DELETE SET NULL ON UPDATE RESTRICT
@@ -271,6 +293,8 @@ CREATE TABLE `products`  (
   INDEX `idx_products_create_time`(`create_time` ASC) USING BTREE,
   INDEX `idx_products_price`(`price` ASC) USING BTREE,
   INDEX `idx_products_title`(`title` ASC) USING BTREE,
+  INDEX `idx_products_status_time`(`status` ASC, `create_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_products_category_status_time`(`category_id` ASC, `status` ASC, `create_time` ASC, `id` ASC) USING BTREE,
   CONSTRAINT `products_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `products_ibfk_2` FOREIGN KEY (`category_id`) REFERENCES `categories` (`id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 11 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '商品表' ROW_FORMAT = Dynamic;